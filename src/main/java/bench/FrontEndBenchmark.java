@@ -0,0 +1,323 @@
+package main.java.bench;
+
+import main.java.converter.Util;
+import main.java.parser.BaseNode;
+import main.java.parser.Parser;
+import main.java.parser.ParserException;
+import main.java.parser.TokenList;
+import main.java.parser.TokenStream;
+import main.java.parser.Tokenizer;
+import main.java.parser.TopNode;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks of the tokenizer and the parser, on the files of a tree such as
+ * {@code Lib/} and on {@link ProgramGenerator generated} programs.
+ * <p>
+ *     Usage: {@code FrontEndBenchmark [--lib DIR] [--shapes SHAPE,...]
+ *     [--size N] [--seed N] [--warmup N] [--iterations N] [--time MS]
+ *     [--parallel BOOL] [--ascii-fast-path BOOL]}
+ * </p>
+ * <p>
+ *     Each benchmark is run for a number of warmup iterations, which are
+ *     thrown away, and then for a number of measured iterations, each as
+ *     many times as fits in the given time. The tokenizer is measured in
+ *     tokens per second, and the parser, which includes tokenizing, in nodes
+ *     per second, along with how many bytes each allocates per second and
+ *     per token or node. Errors are the standard deviation over the measured
+ *     iterations.
+ * </p>
+ * <p>
+ *     Run with a fixed heap, e.g. {@code -Xms1g -Xmx1g}, so that results are
+ *     comparable between runs. Files of the tree which fail to parse are left
+ *     out of both benchmarks.
+ * </p>
+ * <p>
+ *     With {@code --parallel true}, each text is lexed with {@link
+ *     TokenStream#lexParallel} and parsed from {@link
+ *     TokenList#lexParallel}, which split texts of at least 64 KiB into
+ *     chunks lexed on the common {@link java.util.concurrent.ForkJoinPool
+ *     ForkJoinPool}; smaller texts are lexed as usual. With {@code
+ *     --ascii-fast-path false}, every line is normalized, including those
+ *     which are entirely ASCII and so are left as they are.
+ * </p>
+ *
+ * @author Patrick Norton
+ */
+public final class FrontEndBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Somewhere for results to go, so that the work making them cannot be
+     * optimized away.
+     */
+    private static volatile Object sink;
+
+    private FrontEndBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        Path lib = Path.of("Lib");
+        List<ProgramGenerator.Shape> shapes = List.of(ProgramGenerator.Shape.values());
+        int size = 200;
+        long seed = 42;
+        int warmup = 5;
+        int iterations = 10;
+        long time = 500;
+        boolean parallel = false;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("Expected a value after " + args[i]);
+            }
+            switch (args[i]) {
+                case "--lib":
+                    lib = value.isEmpty() ? null : Path.of(value);
+                    break;
+                case "--shapes":
+                    shapes = value.isEmpty() ? List.of() : parseShapes(value);
+                    break;
+                case "--size":
+                    size = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    time = Long.parseLong(value);
+                    break;
+                case "--parallel":
+                    parallel = Boolean.parseBoolean(value);
+                    break;
+                case "--ascii-fast-path":
+                    // Read once, when the tokenizer is first used
+                    System.setProperty("newlang.asciiFastPath", value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            i++;
+        }
+        List<Input> inputs = new ArrayList<>();
+        if (lib != null) {
+            inputs.add(Input.ofTree(lib, parallel));
+        }
+        for (var shape : shapes) {
+            var name = shape.name().toLowerCase(Locale.ROOT) + "/" + size;
+            inputs.add(Input.of(name, List.of(ProgramGenerator.generate(shape, size, seed)), parallel));
+        }
+        System.out.printf("%-22s %-8s %8s %17s %10s %10s%n",
+                "input", "bench", "chars", "units/s", "alloc MB/s", "B/unit");
+        for (var input : inputs) {
+            report(input, "tokens", input.tokens, measure(input::tokenize, warmup, iterations, time));
+            report(input, "nodes", input.nodes, measure(input::parse, warmup, iterations, time));
+        }
+    }
+
+    @NotNull
+    private static List<ProgramGenerator.Shape> parseShapes(@NotNull String value) {
+        if (value.equals("all")) {
+            return List.of(ProgramGenerator.Shape.values());
+        }
+        List<ProgramGenerator.Shape> result = new ArrayList<>();
+        for (var name : value.split(",")) {
+            result.add(ProgramGenerator.Shape.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+        }
+        return result;
+    }
+
+    /**
+     * Run a benchmark, returning the operations per second and the bytes
+     * allocated per operation of each measured iteration, in that order.
+     */
+    @NotNull
+    private static double[][] measure(@NotNull Runnable benchmark, int warmup, int iterations, long millis) {
+        double[][] results = new double[2][iterations];
+        long limit = millis * 1_000_000;
+        for (int i = -warmup; i < iterations; i++) {
+            long thread = Thread.currentThread().getId();
+            long allocated = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long elapsed;
+            int ops = 0;
+            do {
+                benchmark.run();
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < limit);
+            allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+            if (i >= 0) {
+                results[0][i] = ops * 1e9 / elapsed;
+                results[1][i] = (double) allocated / ops;
+            }
+        }
+        return results;
+    }
+
+    private static void report(@NotNull Input input, String unit, long units, @NotNull double[][] results) {
+        double opsPerSecond = mean(results[0]);
+        double bytesPerOp = mean(results[1]);
+        System.out.printf("%-22s %-8s %8d %,10.0f +-%3.0f%% %10.1f %10.1f%n",
+                input.name, unit, input.chars, units * opsPerSecond,
+                100 * deviation(results[0]) / opsPerSecond,
+                bytesPerOp * opsPerSecond / 1e6, bytesPerOp / units);
+    }
+
+    private static double mean(@NotNull double[] values) {
+        double sum = 0;
+        for (var value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double deviation(@NotNull double[] values) {
+        double mean = mean(values);
+        double sum = 0;
+        for (var value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return values.length > 1 ? Math.sqrt(sum / (values.length - 1)) : 0;
+    }
+
+    /**
+     * The number of nodes in a tree, each counted once however many times it
+     * is referred to.
+     */
+    private static long countNodes(@NotNull TopNode node) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>(node.getNodes());
+        long count = 0;
+        while (!pending.isEmpty()) {
+            var value = pending.pop();
+            if (!seen.add(value)) {
+                continue;
+            }
+            if (value instanceof Collection<?>) {
+                for (var element : (Collection<?>) value) {
+                    push(pending, element);
+                }
+            } else if (value.getClass().isArray()) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    push(pending, Array.get(value, i));
+                }
+            } else if (value instanceof BaseNode && !(value instanceof Enum<?>)) {
+                count++;
+                for (var type = value.getClass(); type != Object.class; type = type.getSuperclass()) {
+                    for (Field field : type.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                            field.setAccessible(true);
+                            try {
+                                push(pending, field.get(value));
+                            } catch (IllegalAccessException e) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void push(@NotNull Deque<Object> pending, Object value) {
+        if (value instanceof BaseNode || value instanceof Collection<?>
+                || value != null && value.getClass().isArray() && !value.getClass().getComponentType().isPrimitive()) {
+            pending.push(value);
+        }
+    }
+
+    /**
+     * A set of texts, each benchmarked as a file of its own, with the number
+     * of tokens and nodes in all of them.
+     */
+    private static final class Input {
+        private final String name;
+        private final List<String> texts;
+        private final long chars;
+        private final long tokens;
+        private final long nodes;
+        private final boolean parallel;
+
+        private Input(String name, @NotNull List<String> texts, boolean parallel) {
+            this.name = name;
+            this.texts = texts;
+            this.parallel = parallel;
+            long chars = 0;
+            long tokens = 0;
+            long nodes = 0;
+            for (var text : texts) {
+                chars += text.length();
+                tokens += TokenStream.lex(Path.of(name), text).getTokens().size();
+                nodes += countNodes(Parser.parse(Path.of(name), Tokenizer.parse(text)));
+            }
+            this.chars = chars;
+            this.tokens = tokens;
+            this.nodes = nodes;
+        }
+
+        @NotNull
+        static Input of(String name, @NotNull List<String> texts, boolean parallel) {
+            return new Input(name, texts, parallel);
+        }
+
+        @NotNull
+        static Input ofTree(@NotNull Path root, boolean parallel) throws IOException {
+            List<Path> files;
+            try (var walker = Files.walk(root)) {
+                files = walker.filter(path -> path.toString().endsWith(Util.FILE_EXTENSION))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            List<String> texts = new ArrayList<>();
+            for (var file : files) {
+                var text = Files.readString(file);
+                try {
+                    Parser.parse(file, Tokenizer.parse(text));
+                    texts.add(text);
+                } catch (ParserException ignored) {
+                    // Not part of either benchmark
+                }
+            }
+            return new Input(root.toString(), texts, parallel);
+        }
+
+        void tokenize() {
+            for (var text : texts) {
+                var path = Path.of(name);
+                sink = parallel ? TokenStream.lexParallel(path, text) : TokenStream.lex(path, text);
+            }
+        }
+
+        void parse() {
+            for (var text : texts) {
+                var path = Path.of(name);
+                sink = Parser.parse(path, parallel ? TokenList.lexParallel(path, text) : Tokenizer.parse(text));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package main.java.bench;
+
+import main.java.converter.Util;
+import main.java.parser.Keyword;
+import main.java.parser.Token;
+import main.java.parser.TokenStream;
+import main.java.parser.TokenType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A benchmark of the keyword checks the parser makes on tokens, with the
+ * keyword resolved by the lexer and without.
+ * <p>
+ *     Usage: {@code KeywordBenchmark [--lib DIR] [--warmup N]
+ *     [--iterations N] [--time MS]}
+ * </p>
+ * <p>
+ *     Every token of the files of the tree is checked against a keyword, a
+ *     few keywords and a set of keywords, as the parser does at the start
+ *     of each statement and expression. This is done on the tokens as the
+ *     lexer produces them, which carry the keyword they were resolved to,
+ *     and on copies of them made through {@link Token#Token(TokenType,
+ *     String, main.java.parser.LineInfo) the public constructor}, which do
+ *     not, so each check looks the keyword up by the token's text, as every
+ *     check did before the lexer resolved keywords. The result is measured
+ *     in checks per second, as in {@link FrontEndBenchmark}.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see FrontEndBenchmark
+ */
+public final class KeywordBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The checks made on each token, one each of the three kinds.
+     */
+    private static final int CHECKS = 3;
+    private static final Set<Keyword> LOOPS = EnumSet.of(Keyword.FOR, Keyword.WHILE, Keyword.DO, Keyword.DOTIMES);
+
+    private static volatile Object sink;
+
+    private KeywordBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        Path lib = Path.of("Lib");
+        int warmup = 5;
+        int iterations = 10;
+        long time = 500;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("Expected a value after " + args[i]);
+            }
+            switch (args[i]) {
+                case "--lib":
+                    lib = Path.of(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    time = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            i++;
+        }
+        List<Token> resolved = lex(lib);
+        List<Token> unresolved = new ArrayList<>(resolved.size());
+        for (var token : resolved) {
+            unresolved.add(new Token(token.token, token.sequence, token.lineInfo()));
+        }
+        long checks = (long) CHECKS * resolved.size();
+        System.out.printf("%-12s %8s %17s %10s %10s%n", "tokens", "count", "checks/s", "alloc MB/s", "B/check");
+        report("by text", checks, measure(() -> check(unresolved), warmup, iterations, time));
+        report("resolved", checks, measure(() -> check(resolved), warmup, iterations, time));
+    }
+
+    @NotNull
+    private static List<Token> lex(@NotNull Path root) throws IOException {
+        List<Path> files;
+        try (var walker = Files.walk(root)) {
+            files = walker.filter(path -> path.toString().endsWith(Util.FILE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        List<Token> tokens = new ArrayList<>();
+        for (var file : files) {
+            try {
+                tokens.addAll(TokenStream.lex(file, Files.readString(file)).getTokens());
+            } catch (RuntimeException ignored) {
+                // Not part of the benchmark
+            }
+        }
+        return tokens;
+    }
+
+    private static void check(@NotNull List<Token> tokens) {
+        int count = 0;
+        for (var token : tokens) {
+            if (token.is(Keyword.IF)) {
+                count++;
+            }
+            if (token.is(Keyword.ELIF, Keyword.ELSE)) {
+                count++;
+            }
+            if (token.isKeyword(LOOPS)) {
+                count++;
+            }
+        }
+        sink = count;
+    }
+
+    /**
+     * Run a benchmark, returning the operations per second and the bytes
+     * allocated per operation of each measured iteration, in that order.
+     */
+    @NotNull
+    private static double[][] measure(@NotNull Runnable benchmark, int warmup, int iterations, long millis) {
+        double[][] results = new double[2][iterations];
+        long limit = millis * 1_000_000;
+        for (int i = -warmup; i < iterations; i++) {
+            long thread = Thread.currentThread().getId();
+            long allocated = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long elapsed;
+            int ops = 0;
+            do {
+                benchmark.run();
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < limit);
+            allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+            if (i >= 0) {
+                results[0][i] = ops * 1e9 / elapsed;
+                results[1][i] = (double) allocated / ops;
+            }
+        }
+        return results;
+    }
+
+    private static void report(String name, long checks, @NotNull double[][] results) {
+        double opsPerSecond = mean(results[0]);
+        double bytesPerOp = mean(results[1]);
+        System.out.printf("%-12s %8d %,10.0f +-%3.0f%% %10.1f %10.2f%n",
+                name, checks, checks * opsPerSecond,
+                100 * deviation(results[0]) / opsPerSecond,
+                bytesPerOp * opsPerSecond / 1e6, bytesPerOp / checks);
+    }
+
+    private static double mean(@NotNull double[] values) {
+        double sum = 0;
+        for (var value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double deviation(@NotNull double[] values) {
+        double mean = mean(values);
+        double sum = 0;
+        for (var value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return values.length > 1 ? Math.sqrt(sum / (values.length - 1)) : 0;
+    }
+}
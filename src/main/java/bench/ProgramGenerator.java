@@ -0,0 +1,309 @@
+package main.java.bench;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Random;
+
+/**
+ * A generator of synthetic programs, for measuring the front end on inputs
+ * of a chosen size and shape.
+ * <p>
+ *     The same shape, size and seed always give the same program. Programs
+ *     are only meant to tokenize and parse, not to compile: names are not
+ *     declared and types need not match.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see FrontEndBenchmark
+ */
+public final class ProgramGenerator {
+    private static final String[] TYPES = {"int", "str", "bool", "list[int]", "dict[str, int]", "Foo[T]"};
+    private static final String[] BINARY = {"+", "-", "*", "/", "%", "==", "<", ">=", "and", "or", "&", "|"};
+    private static final int NESTING_DEPTH = 48;
+    private static final int LITERAL_LENGTH = 256;
+    private static final int METHODS_PER_CLASS = 200;
+
+    /**
+     * The kinds of program that can be generated, each stressing a different
+     * part of the front end.
+     */
+    public enum Shape {
+        /**
+         * Expressions nested deeply in parentheses, calls, indices and
+         * literals; {@code size} statements of them.
+         */
+        DEEP_NESTING,
+        /**
+         * {@code size} short functions, each of a few statements.
+         */
+        SMALL_FUNCTIONS,
+        /**
+         * {@code size} list and dict literals of hundreds of elements.
+         */
+        GIANT_LITERALS,
+        /**
+         * {@code size} formatted strings, each with several interpolations.
+         */
+        FSTRINGS,
+        /**
+         * Classes of hundreds of methods, {@code size} methods in all.
+         */
+        LONG_CLASSES,
+    }
+
+    private final Random random;
+    private final StringBuilder out = new StringBuilder();
+    private int names;
+    private char quote = '"';
+
+    private ProgramGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generate a program.
+     *
+     * @param shape The shape of the program
+     * @param size The number of units of the shape in the program
+     * @param seed The seed of the generator
+     * @return The text of the program
+     */
+    @NotNull
+    public static String generate(@NotNull Shape shape, int size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative program size: " + size);
+        }
+        ProgramGenerator generator = new ProgramGenerator(seed);
+        switch (shape) {
+            case DEEP_NESTING:
+                generator.deepNesting(size);
+                break;
+            case SMALL_FUNCTIONS:
+                generator.smallFunctions(size);
+                break;
+            case GIANT_LITERALS:
+                generator.giantLiterals(size);
+                break;
+            case FSTRINGS:
+                generator.formattedStrings(size);
+                break;
+            case LONG_CLASSES:
+                generator.longClasses(size);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown shape " + shape);
+        }
+        return generator.out.toString();
+    }
+
+    private void deepNesting(int size) {
+        for (int i = 0; i < size; i++) {
+            out.append("var ").append(name()).append(" = ");
+            nested(NESTING_DEPTH);
+            out.append('\n');
+        }
+    }
+
+    private void nested(int depth) {
+        if (depth == 0) {
+            atom();
+            return;
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                out.append('(');
+                nested(depth - 1);
+                out.append(' ').append(pick(BINARY)).append(' ');
+                atom();
+                out.append(')');
+                break;
+            case 1:
+                out.append(name()).append('(');
+                nested(depth - 1);
+                out.append(", ");
+                atom();
+                out.append(')');
+                break;
+            case 2:
+                out.append(name()).append('[');
+                nested(depth - 1);
+                out.append(']');
+                break;
+            default:
+                out.append('[');
+                atom();
+                out.append(", ");
+                nested(depth - 1);
+                out.append(']');
+                break;
+        }
+    }
+
+    private void smallFunctions(int size) {
+        for (int i = 0; i < size; i++) {
+            out.append("func ").append(name()).append('(');
+            parameters();
+            out.append(") -> ").append(pick(TYPES)).append(" {\n");
+            int statements = 1 + random.nextInt(4);
+            for (int j = 0; j < statements; j++) {
+                statement("    ");
+            }
+            out.append("    return ");
+            expression(3);
+            out.append("\n}\n\n");
+        }
+    }
+
+    private void giantLiterals(int size) {
+        for (int i = 0; i < size; i++) {
+            out.append("var ").append(name()).append(" = ");
+            boolean isDict = random.nextBoolean();
+            out.append(isDict ? '{' : '[');
+            for (int j = 0; j < LITERAL_LENGTH; j++) {
+                if (j > 0) {
+                    out.append(j % 16 == 0 ? ",\n    " : ", ");
+                }
+                if (isDict) {
+                    stringLiteral();
+                    out.append(": ");
+                }
+                if (random.nextBoolean()) {
+                    out.append(random.nextInt(1_000_000));
+                } else {
+                    stringLiteral();
+                }
+            }
+            out.append(isDict ? '}' : ']').append('\n');
+        }
+    }
+
+    private void formattedStrings(int size) {
+        for (int i = 0; i < size; i++) {
+            out.append("print(f\"");
+            int parts = 2 + random.nextInt(5);
+            for (int j = 0; j < parts; j++) {
+                out.append(word()).append(' ').append('{');
+                // Strings inside may not end the one around them
+                quote = '\'';
+                expression(2);
+                quote = '"';
+                if (random.nextInt(3) == 0) {
+                    out.append("!r:>").append(1 + random.nextInt(20));
+                }
+                out.append("} ");
+            }
+            out.append("\")\n");
+        }
+    }
+
+    private void longClasses(int size) {
+        for (int i = 0; i < size; i += METHODS_PER_CLASS) {
+            out.append("class ").append(typeName()).append(" {\n");
+            out.append("    private int ").append(name()).append('\n');
+            for (int j = i; j < Math.min(size, i + METHODS_PER_CLASS); j++) {
+                out.append("\n    public method ").append(name()).append('(');
+                parameters();
+                out.append(") -> ").append(pick(TYPES)).append(" {\n");
+                statement("        ");
+                out.append("        return self.").append(name()).append('\n');
+                out.append("    }\n");
+            }
+            out.append("}\n\n");
+        }
+    }
+
+    private void parameters() {
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(pick(TYPES)).append(' ').append(name());
+        }
+    }
+
+    private void statement(String indent) {
+        out.append(indent);
+        switch (random.nextInt(4)) {
+            case 0:
+                out.append(pick(TYPES)).append(' ').append(name()).append(" = ");
+                expression(3);
+                out.append('\n');
+                break;
+            case 1:
+                out.append("if ");
+                expression(2);
+                out.append(" {\n").append(indent).append("    ").append(name()).append(" += 1\n");
+                out.append(indent).append("}\n");
+                break;
+            case 2:
+                out.append("for int ").append(name()).append(" in ");
+                expression(1);
+                out.append(" {\n").append(indent).append("    print(").append(name()).append(")\n");
+                out.append(indent).append("}\n");
+                break;
+            default:
+                out.append(name()).append('(');
+                expression(2);
+                out.append(")\n");
+                break;
+        }
+    }
+
+    private void expression(int depth) {
+        if (depth == 0 || random.nextInt(3) == 0) {
+            atom();
+        } else {
+            expression(depth - 1);
+            out.append(' ').append(pick(BINARY)).append(' ');
+            expression(depth - 1);
+        }
+    }
+
+    private void atom() {
+        switch (random.nextInt(4)) {
+            case 0:
+                out.append(random.nextInt(10_000));
+                break;
+            case 1:
+                stringLiteral();
+                break;
+            case 2:
+                out.append(name()).append('.').append(name());
+                break;
+            default:
+                out.append(name());
+                break;
+        }
+    }
+
+    private void stringLiteral() {
+        out.append(quote).append(word()).append(quote);
+    }
+
+    @NotNull
+    private String name() {
+        return "x" + names++ % 997;
+    }
+
+    @NotNull
+    private String typeName() {
+        return "Gen" + names++;
+    }
+
+    @NotNull
+    private String word() {
+        int length = 1 + random.nextInt(8);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    @Contract(pure = true)
+    private String pick(@NotNull String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
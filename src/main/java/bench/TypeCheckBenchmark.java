@@ -0,0 +1,126 @@
+package main.java.bench;
+
+import main.java.converter.BaseConverter;
+import main.java.converter.BytecodeWriter;
+import main.java.converter.CompilerInfo;
+import main.java.parser.Parser;
+import main.java.parser.Tokenizer;
+import main.java.parser.TopNode;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A benchmark of type checking and converting deeply nested expressions,
+ * whose cost should grow linearly with how deeply they are nested.
+ * <p>
+ *     Usage: {@code TypeCheckBenchmark [--depths N,...] [--warmup N]
+ *     [--iterations N]}
+ * </p>
+ * <p>
+ *     For each depth, a program is generated with one expression of each
+ *     kind nested that deeply: arithmetic nested in its first operand,
+ *     function calls nested in their arguments, and conditional expressions
+ *     nested in arithmetic. It is parsed once, and then linked and converted
+ *     afresh each iteration; the best time of the measured iterations is
+ *     reported, with what it allocated. Run with a large stack, e.g.
+ *     {@code -Xss256m}, for the deepest programs.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see FrontEndBenchmark
+ */
+public final class TypeCheckBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink;
+
+    private TypeCheckBenchmark() {}
+
+    public static void main(String[] args) {
+        List<Integer> depths = List.of(100, 200, 400, 800);
+        int warmup = 5;
+        int iterations = 10;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("Expected a value after " + args[i]);
+            }
+            switch (args[i]) {
+                case "--depths":
+                    depths = parseDepths(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            i++;
+        }
+        System.out.printf("%8s %12s %12s %12s%n", "depth", "best ms", "ns/level", "alloc MB");
+        for (int depth : depths) {
+            var path = Path.of("nested" + depth);
+            var node = Parser.parse(path, Tokenizer.parse(generate(depth)));
+            long bestTime = Long.MAX_VALUE;
+            long bestAllocated = 0;
+            for (int i = -warmup; i < iterations; i++) {
+                long thread = Thread.currentThread().getId();
+                long allocated = THREADS.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                convert(node);
+                long elapsed = System.nanoTime() - start;
+                allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+                if (i >= 0 && elapsed < bestTime) {
+                    bestTime = elapsed;
+                    bestAllocated = allocated;
+                }
+            }
+            System.out.printf("%8d %12.2f %12.0f %12.2f%n",
+                    depth, bestTime / 1e6, (double) bestTime / depth, bestAllocated / 1e6);
+        }
+    }
+
+    @NotNull
+    private static List<Integer> parseDepths(@NotNull String value) {
+        List<Integer> result = new ArrayList<>();
+        for (var depth : value.split(",")) {
+            result.add(Integer.parseInt(depth.trim()));
+        }
+        return result;
+    }
+
+    private static void convert(@NotNull TopNode node) {
+        var info = new CompilerInfo(node).link();
+        info.addStackFrame();
+        var bytes = new BytecodeWriter();
+        for (var statement : node) {
+            BaseConverter.convert(bytes, statement, info);
+        }
+        info.removeStackFrame();
+        sink = bytes.toByteArray();
+    }
+
+    @NotNull
+    private static String generate(int depth) {
+        var arithmetic = new StringBuilder("1");
+        var calls = new StringBuilder("1");
+        var conditionals = new StringBuilder("1");
+        for (int i = 0; i < depth; i++) {
+            arithmetic.insert(0, '(').append(i % 2 == 0 ? " + 1)" : " * 2)");
+            calls.insert(0, "f(").append(" + 1)");
+            conditionals.insert(0, "((").append(" if true else 2) + 1)");
+        }
+        return "func f(int a) -> int {\n    return a\n}\n\n"
+                + "var x = " + arithmetic + "\n"
+                + "var y = " + calls + "\n"
+                + "var z = " + conditionals + "\n";
+    }
+}
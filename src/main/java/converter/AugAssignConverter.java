@@ -4,9 +4,6 @@ import main.java.parser.AugmentedAssignmentNode;
 import main.java.parser.VariableNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class AugAssignConverter implements BaseConverter {
     private CompilerInfo info;
     private AugmentedAssignmentNode node;
@@ -16,26 +13,24 @@ public final class AugAssignConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         var assignedConverter = TestConverter.of(info, node.getName(), 1);
         var valueConverter = TestConverter.of(info, node.getValue(), 1);
-        var returnType = assignedConverter.returnType()[0].operatorReturnType(node.getOperator().operator)[0];
+        var assignedType = TestConverter.returnType(node.getName(), info, 1)[0];
+        var returnType = assignedType.operatorReturnType(node.getOperator().operator)[0];
         if (returnType == null) {
             throw CompilerException.format("Value of type %s does not have an overloaded %s operator",
-                    node, assignedConverter.returnType()[0].name(), node.getOperator().operator.name);
-        } else if (!returnType.isSuperclass(assignedConverter.returnType()[0])) {
+                    node, assignedType.name(), node.getOperator().operator.name);
+        } else if (!returnType.isSuperclass(assignedType)) {
             throw CompilerException.format(
                     "Value of type %s has a return type of %s, which is incompatible with the type of %s",
-                    node, assignedConverter.returnType()[0].name(), returnType, node.getName());
+                    node, assignedType.name(), returnType, node.getName());
         }
-        List<Byte> bytes = new ArrayList<>(assignedConverter.convert(start));
-        bytes.addAll(valueConverter.convert(start));
-        bytes.add(OperatorConverter.BYTECODE_MAP.get(node.getOperator().operator).value);
-        bytes.add(Bytecode.STORE.value);
+        assignedConverter.convert(bytes);
+        valueConverter.convert(bytes);
+        bytes.emit(OperatorConverter.BYTECODE_MAP.get(node.getOperator().operator));
         var variable = (VariableNode) node.getName();  // TODO: Add assignment for other types
-        bytes.addAll(Util.shortToBytes(info.varIndex(variable.getName())));
-        return bytes;
+        bytes.emit(Bytecode.STORE, info.varIndex(variable.getName()));
     }
 }
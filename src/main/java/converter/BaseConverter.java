@@ -25,15 +25,11 @@ import main.java.parser.WhileStatementNode;
 import main.java.parser.WithStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 public interface BaseConverter {
-    @NotNull
-    List<Byte> convert(int start);
+    void convert(@NotNull BytecodeWriter bytes);
 
-    @NotNull
-    static List<Byte> bytes(int start, BaseNode tokens, CompilerInfo info) {
-        return toBytes(tokens, info).convert(start);
+    static void convert(@NotNull BytecodeWriter bytes, BaseNode tokens, CompilerInfo info) {
+        toBytes(tokens, info).convert(bytes);
     }
 
     @NotNull
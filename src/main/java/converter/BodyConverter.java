@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.StatementBodyNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class BodyConverter implements BaseConverter {
     private StatementBodyNode node;
     private CompilerInfo info;
@@ -15,13 +12,10 @@ public final class BodyConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
         for (var stmt : node) {
-            bytes.addAll(BaseConverter.bytes(start + bytes.size(), stmt, info));
+            BaseConverter.convert(bytes, stmt, info);
         }
-        return bytes;
     }
 }
@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.BreakStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class BreakConverter implements BaseConverter {
     private BreakStatementNode node;
     private CompilerInfo info;
@@ -15,18 +12,25 @@ public final class BreakConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
+        // A plain 'break' has no number of loops, and breaks just one
+        int levels = Math.max(node.getLoops(), 1);
+        int loopCount = info.loopManager().loopCount();
+        if (loopCount == 0) {
+            throw CompilerException.of("Cannot break: not in a loop", node);
+        } else if (levels > loopCount) {
+            throw CompilerException.format(
+                    "Cannot break %d levels: only %d loop%s", node, levels, loopCount, loopCount == 1 ? "" : "s"
+            );
+        }
+        Bytecode jump;
         if (!node.getCond().isEmpty()) {
-            bytes.addAll(TestConverter.bytes(start, node.getCond(), info, 1));
-            bytes.add(Bytecode.JUMP_TRUE.value);
+            TestConverter.convert(bytes, node.getCond(), info, 1);
+            jump = Bytecode.JUMP_TRUE;
         } else {
-            bytes.add(Bytecode.JUMP.value);
+            jump = Bytecode.JUMP;
         }
-        info.addBreak(node.getLoops(), start + bytes.size());
-        bytes.addAll(Util.zeroToBytes());
-        return bytes;
+        bytes.emitJump(jump, info.breakLabel(levels));
     }
 }
@@ -7,7 +7,6 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 
@@ -136,6 +135,18 @@ public enum Bytecode {
         return sum + 1;
     }
 
+    int operandCount() {
+        return operands.length;
+    }
+
+    int operandSize(int index) {
+        return operands[index].byteCount;
+    }
+
+    boolean isJump() {
+        return operands.length == 1 && operands[0] == Type.LOCATION;
+    }
+
     private static final Map<Byte, Bytecode> VALUE_MAP;
 
     static {
@@ -147,16 +158,16 @@ public enum Bytecode {
     }
 
     @NotNull
-    static String disassemble(CompilerInfo info, @NotNull List<Byte> bytes) {
+    static String disassemble(CompilerInfo info, @NotNull byte[] bytes) {
         var sb = new StringBuilder();
-        for (int i = 0; i < bytes.size();) {
-            var op = VALUE_MAP.get(bytes.get(i++));
+        for (int i = 0; i < bytes.length;) {
+            var op = VALUE_MAP.get(bytes[i++]);
             if (op.operands.length > 0) {
                  sb.append(String.format("%-7d%-16s", i - 1, op));
                 StringJoiner sj = new StringJoiner(", ");
                 for (var operand : op.operands) {
                     var operandSize = operand.byteCount;
-                    var value = fromBytes(bytes.subList(i, i + operandSize));
+                    var value = fromBytes(bytes, i, operandSize);
                     i += operandSize;
                     switch (operand) {
                         case ARGC:
@@ -184,10 +195,10 @@ public enum Bytecode {
         return sb.toString();
     }
 
-    private static int fromBytes(@NotNull List<Byte> bytes) {
+    private static int fromBytes(@NotNull byte[] bytes, int start, int length) {
         int total = 0;
-        for (int i = 0; i < bytes.size(); i++) {
-            total |= byteToInt(bytes.get(i)) << Byte.SIZE * (bytes.size() - i - 1);
+        for (int i = 0; i < length; i++) {
+            total |= byteToInt(bytes[start + i]) << Byte.SIZE * (length - i - 1);
         }
         return total;
     }
@@ -0,0 +1,145 @@
+package main.java.converter;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Temporary files holding the finished bytecode of a module while the rest
+ * of it is compiled, so that it is not kept on the heap.
+ * <p>
+ *     The code of the default function is appended a statement at a time,
+ *     and that of every other function all at once when it is finished. The
+ *     files are deleted when this is closed.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see CompilerInfo#compileStreaming
+ */
+final class BytecodeSpill implements Closeable {
+    private final FileChannel defaultCode;
+    private final FileChannel functionCode;
+    private final Map<Integer, long[]> functions = new HashMap<>();
+
+    BytecodeSpill() {
+        try {
+            defaultCode = open();
+            functionCode = open();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @NotNull
+    private static FileChannel open() throws IOException {
+        var path = Files.createTempFile("newlang", ".spill");
+        return FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * The number of bytes of the default function so far.
+     *
+     * @return The size
+     */
+    int defaultSize() {
+        try {
+            return (int) defaultCode.size();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Add the code of a statement to the end of the default function.
+     *
+     * @param bytes The code
+     */
+    void addDefault(@NotNull byte[] bytes) {
+        write(defaultCode, defaultSize(), bytes);
+    }
+
+    /**
+     * Store the code of a finished function.
+     *
+     * @param index The index of the function
+     * @param bytes The code
+     */
+    void addFunction(int index, @NotNull byte[] bytes) {
+        try {
+            long position = functionCode.size();
+            write(functionCode, position, bytes);
+            functions.put(index, new long[] {position, bytes.length});
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    boolean hasFunction(int index) {
+        return functions.containsKey(index);
+    }
+
+    /**
+     * The code of the default function.
+     *
+     * @return The code
+     */
+    @NotNull
+    byte[] defaultBytes() {
+        return read(defaultCode, 0, defaultSize());
+    }
+
+    /**
+     * The code of a function which was {@link #addFunction added}.
+     *
+     * @param index The index of the function
+     * @return The code
+     */
+    @NotNull
+    byte[] functionBytes(int index) {
+        var location = functions.get(index);
+        return read(functionCode, location[0], (int) location[1]);
+    }
+
+    private static void write(@NotNull FileChannel channel, long position, @NotNull byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @NotNull
+    private static byte[] read(@NotNull FileChannel channel, long position, int length) {
+        var buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Bytecode spill file was truncated");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public void close() {
+        try (defaultCode; functionCode) {
+            functions.clear();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
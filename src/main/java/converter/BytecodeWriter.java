@@ -0,0 +1,193 @@
+package main.java.converter;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of bytes, which the code of a function is written to as
+ * it is converted.
+ * <p>
+ *     Converters are all given the writer of the function they are in and
+ *     append their code to it in place, so the {@link #location location} of
+ *     the writer is always that of the next instruction.
+ * </p>
+ * <p>
+ *     Jumps refer to a {@link Label} rather than to a location, and are
+ *     written with a placeholder which is only filled in, all at once, when
+ *     the bytes are {@link #toByteArray taken}; so a jump may be emitted
+ *     before its label is {@link #bind bound}, and no converter has to know
+ *     where its code starts.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see BaseConverter#convert(BytecodeWriter)
+ */
+public final class BytecodeWriter {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int DEFAULT_JUMP_CAPACITY = 8;
+
+    private final int start;
+    private byte[] bytes;
+    private int size;
+    private int[] jumps = new int[DEFAULT_JUMP_CAPACITY];
+    private Label[] targets = new Label[DEFAULT_JUMP_CAPACITY];
+    private int jumpCount;
+
+    public BytecodeWriter() {
+        this(0);
+    }
+
+    /**
+     * Create a writer for code which does not start at the beginning of its
+     * function, such as one statement among others.
+     *
+     * @param start The location of the first byte written, relative to the
+     *              start of the function
+     */
+    public BytecodeWriter(int start) {
+        this.start = start;
+        this.bytes = new byte[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * The location of the next byte written, relative to the start of the
+     * function.
+     *
+     * @return The location
+     */
+    public int location() {
+        return start + size;
+    }
+
+    /**
+     * Write an instruction with no operands.
+     *
+     * @param op The instruction
+     */
+    public void emit(@NotNull Bytecode op) {
+        assert op.operandCount() == 0 : op + " takes operands";
+        add(op.value);
+    }
+
+    /**
+     * Write an instruction with one operand, taking as many bytes as the
+     * instruction says it does.
+     *
+     * @param op The instruction
+     * @param operand The operand
+     */
+    public void emit(@NotNull Bytecode op, int operand) {
+        assert op.operandCount() == 1 : op + " does not take 1 operand";
+        add(op.value);
+        addOperand(operand, op.operandSize(0));
+    }
+
+    /**
+     * Write an instruction with two operands.
+     *
+     * @param op The instruction
+     * @param first The first operand
+     * @param second The second operand
+     */
+    public void emit(@NotNull Bytecode op, int first, int second) {
+        assert op.operandCount() == 2 : op + " does not take 2 operands";
+        add(op.value);
+        addOperand(first, op.operandSize(0));
+        addOperand(second, op.operandSize(1));
+    }
+
+    /**
+     * Write a jump to a label, which need not be bound yet.
+     *
+     * @param op The jump instruction
+     * @param target The label to jump to
+     */
+    public void emitJump(@NotNull Bytecode op, @NotNull Label target) {
+        assert op.isJump() : op + " is not a jump";
+        add(op.value);
+        if (jumpCount == jumps.length) {
+            jumps = Arrays.copyOf(jumps, jumpCount * 2);
+            targets = Arrays.copyOf(targets, jumpCount * 2);
+        }
+        jumps[jumpCount] = size;
+        targets[jumpCount] = target;
+        jumpCount++;
+        addInt(0);
+    }
+
+    /**
+     * Bind a label to the location of the next instruction written.
+     *
+     * @param label The label
+     */
+    public void bind(@NotNull Label label) {
+        label.setLocation(location());
+    }
+
+    public void add(byte value) {
+        ensureCapacity(1);
+        bytes[size++] = value;
+    }
+
+    public void addShort(short value) {
+        ensureCapacity(Short.BYTES);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    public void addInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    public void addAll(@NotNull byte[] values) {
+        ensureCapacity(values.length);
+        System.arraycopy(values, 0, bytes, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * The bytes written so far, with every jump set to the location of its
+     * label.
+     *
+     * @return A copy of the bytes
+     */
+    @NotNull
+    public byte[] toByteArray() {
+        for (int i = 0; i < jumpCount; i++) {
+            if (!targets[i].isBound()) {
+                throw CompilerInternalError.withHeader("Jump to unbound label at " + jumps[i]);
+            }
+            int index = jumps[i];
+            int target = targets[i].getLocation();
+            bytes[index] = (byte) (target >>> 24);
+            bytes[index + 1] = (byte) (target >>> 16);
+            bytes[index + 2] = (byte) (target >>> 8);
+            bytes[index + 3] = (byte) target;
+        }
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private void addOperand(int value, int byteCount) {
+        switch (byteCount) {
+            case Short.BYTES:
+                addShort((short) value);
+                break;
+            case Integer.BYTES:
+                addInt(value);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown operand size " + byteCount);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -29,9 +29,8 @@ public final class ClassConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         var supers = info.typesOf(node.getSuperclasses());
         var declarations = new DeclarationConverter(info);
         var methods = new MethodConverter(info);
@@ -76,13 +75,12 @@ public final class ClassConverter implements BaseConverter {
             throw CompilerException.format("Illegal name for class '%s'", node.getName(), name);
         }
         info.addVariable(name, Builtins.TYPE.generify(type), new ClassConstant(name, classIndex));
-        return Collections.emptyList();
     }
 
     @NotNull
-    private <T> Map<T, List<Byte>> convert(@NotNull Map<T, StatementBodyNode> functions,
-                                           StdTypeObject type, Map<T, FunctionInfo> args) {
-        Map<T, List<Byte>> result = new HashMap<>();
+    private <T> Map<T, byte[]> convert(@NotNull Map<T, StatementBodyNode> functions,
+                                       StdTypeObject type, Map<T, FunctionInfo> args) {
+        Map<T, byte[]> result = new HashMap<>();
         for (var pair : functions.entrySet()) {
             info.addStackFrame();
             info.addVariable("self", type, true);
@@ -92,9 +90,10 @@ public final class ClassConverter implements BaseConverter {
                 info.addVariable(arg.getName(), arg.getType());
             }
             info.addFunctionReturns(fnInfo.getReturns());
-            var bytes = BaseConverter.bytes(0, pair.getValue(), info);
+            var bytes = new BytecodeWriter();
+            BaseConverter.convert(bytes, pair.getValue(), info);
             info.popFnReturns();
-            result.put(pair.getKey(), bytes);
+            result.put(pair.getKey(), bytes.toByteArray());
             info.removeStackFrame();
         }
         return result;
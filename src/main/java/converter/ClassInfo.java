@@ -3,7 +3,6 @@ package main.java.converter;
 import main.java.parser.OpSpTypeNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,15 +12,15 @@ public final class ClassInfo {
     private List<Short> superConstants;
     private Map<String, Short> variables;
     private Map<String, Short> staticVariables;
-    private Map<OpSpTypeNode, List<Byte>> operatorDefs;
-    private Map<OpSpTypeNode, List<Byte>> staticOperators;
-    private Map<String, List<Byte>> methodDefs;
-    private Map<String, List<Byte>> staticMethods;
+    private Map<OpSpTypeNode, byte[]> operatorDefs;
+    private Map<OpSpTypeNode, byte[]> staticOperators;
+    private Map<String, byte[]> methodDefs;
+    private Map<String, byte[]> staticMethods;
 
     private ClassInfo(StdTypeObject type, List<Short> superConstants,
                       Map<String, Short> variables, Map<String, Short> staticVariables,
-                      Map<OpSpTypeNode, List<Byte>> operatorDefs, Map<OpSpTypeNode, List<Byte>> staticOperators,
-                      Map<String, List<Byte>> methodDefs, Map<String, List<Byte>> staticMethods) {
+                      Map<OpSpTypeNode, byte[]> operatorDefs, Map<OpSpTypeNode, byte[]> staticOperators,
+                      Map<String, byte[]> methodDefs, Map<String, byte[]> staticMethods) {
         this.type = type;
         this.superConstants = superConstants;
         this.variables = variables;
@@ -36,15 +35,15 @@ public final class ClassInfo {
         return type;
     }
 
-    public Map<OpSpTypeNode, List<Byte>> getOperatorDefs() {
+    public Map<OpSpTypeNode, byte[]> getOperatorDefs() {
         return operatorDefs;
     }
 
-    public Map<String, List<Byte>> getMethodDefs() {
+    public Map<String, byte[]> getMethodDefs() {
         return methodDefs;
     }
 
-    public Map<String, List<Byte>> getStaticMethods() {
+    public Map<String, byte[]> getStaticMethods() {
         return staticMethods;
     }
 
@@ -53,52 +52,53 @@ public final class ClassInfo {
     }
 
     @NotNull
-    public List<Byte> toBytes() {
-        List<Byte> bytes = new ArrayList<>(StringConstant.strBytes(type.name()));
-        bytes.addAll(Util.intToBytes(superConstants.size()));
+    public byte[] toBytes() {
+        var bytes = new BytecodeWriter();
+        bytes.addAll(StringConstant.strByteArray(type.name()));
+        bytes.addInt(superConstants.size());
         for (var superType : superConstants) {
-            bytes.addAll(Util.intToBytes(superType));
+            bytes.addInt(superType);
         }
-        bytes.addAll(Util.shortToBytes((short) type.getGenericInfo().size()));
+        bytes.addShort((short) type.getGenericInfo().size());
         addVariables(bytes, variables);
         addVariables(bytes, staticVariables);
         addOperators(bytes, operatorDefs);
         addOperators(bytes, staticOperators);
         addMethods(bytes, methodDefs);
         addMethods(bytes, staticMethods);
-        return bytes;
+        return bytes.toByteArray();
     }
 
-    private static void addVariables(@NotNull List<Byte> bytes, @NotNull Map<String, Short> byteMap) {
-        bytes.addAll(Util.intToBytes(byteMap.size()));
+    private static void addVariables(@NotNull BytecodeWriter bytes, @NotNull Map<String, Short> byteMap) {
+        bytes.addInt(byteMap.size());
         for (var pair : byteMap.entrySet()) {
-            bytes.addAll(StringConstant.strBytes(pair.getKey()));
-            bytes.addAll(Util.shortToBytes(pair.getValue()));
+            bytes.addAll(StringConstant.strByteArray(pair.getKey()));
+            bytes.addShort(pair.getValue());
         }
     }
 
-    private static void addOperators(@NotNull List<Byte> bytes, @NotNull Map<OpSpTypeNode, List<Byte>> byteMap) {
-        bytes.addAll(Util.intToBytes(byteMap.size()));
+    private static void addOperators(@NotNull BytecodeWriter bytes, @NotNull Map<OpSpTypeNode, byte[]> byteMap) {
+        bytes.addInt(byteMap.size());
         for (var pair : byteMap.entrySet()) {
             bytes.add((byte) pair.getKey().ordinal());
-            bytes.addAll(Util.intToBytes(pair.getValue().size()));
+            bytes.addInt(pair.getValue().length);
             bytes.addAll(pair.getValue());
         }
     }
 
-    private static void addMethods(@NotNull List<Byte> bytes, @NotNull Map<String, List<Byte>> byteMap) {
-        bytes.addAll(Util.intToBytes(byteMap.size()));
+    private static void addMethods(@NotNull BytecodeWriter bytes, @NotNull Map<String, byte[]> byteMap) {
+        bytes.addInt(byteMap.size());
         for (var pair : byteMap.entrySet()) {
-            bytes.addAll(StringConstant.strBytes(pair.getKey()));
-            bytes.addAll(Util.intToBytes(pair.getValue().size()));
+            bytes.addAll(StringConstant.strByteArray(pair.getKey()));
+            bytes.addInt(pair.getValue().length);
             bytes.addAll(pair.getValue());
         }
     }
 
-    private static void addSet(@NotNull List<Byte> bytes, @NotNull Set<String> set) {
-        bytes.addAll(Util.intToBytes(set.size()));
+    private static void addSet(@NotNull BytecodeWriter bytes, @NotNull Set<String> set) {
+        bytes.addInt(set.size());
         for (var str : set) {
-            bytes.addAll(StringConstant.strBytes(str));
+            bytes.addAll(StringConstant.strByteArray(str));
         }
     }
 
@@ -107,10 +107,10 @@ public final class ClassInfo {
         private List<Short> superConstants;
         private Map<String, Short> variables;
         private Map<String, Short> staticVariables;
-        private Map<OpSpTypeNode, List<Byte>> operatorDefs;
-        private Map<OpSpTypeNode, List<Byte>> staticOperators;
-        private Map<String, List<Byte>> methodDefs;
-        private Map<String, List<Byte>> staticMethods;
+        private Map<OpSpTypeNode, byte[]> operatorDefs;
+        private Map<OpSpTypeNode, byte[]> staticOperators;
+        private Map<String, byte[]> methodDefs;
+        private Map<String, byte[]> staticMethods;
 
         public Factory setType(StdTypeObject type) {
             assert this.type == null;
@@ -136,25 +136,25 @@ public final class ClassInfo {
             return this;
         }
 
-        public Factory setOperatorDefs(Map<OpSpTypeNode, List<Byte>> operatorDefs) {
+        public Factory setOperatorDefs(Map<OpSpTypeNode, byte[]> operatorDefs) {
             assert this.operatorDefs == null;
             this.operatorDefs = operatorDefs;
             return this;
         }
 
-        public Factory setStaticOperators(Map<OpSpTypeNode, List<Byte>> staticOperators) {
+        public Factory setStaticOperators(Map<OpSpTypeNode, byte[]> staticOperators) {
             assert this.staticOperators == null;
             this.staticOperators = staticOperators;
             return this;
         }
 
-        public Factory setMethodDefs(Map<String, List<Byte>> methodDefs) {
+        public Factory setMethodDefs(Map<String, byte[]> methodDefs) {
             assert this.methodDefs == null;
             this.methodDefs = methodDefs;
             return this;
         }
 
-        public Factory setStaticMethods(Map<String, List<Byte>> staticMethods) {
+        public Factory setStaticMethods(Map<String, byte[]> staticMethods) {
             assert this.staticMethods == null;
             this.staticMethods = staticMethods;
             return this;
@@ -1,7 +1,9 @@
 package main.java.converter;
 
 import main.java.parser.ImportExportNode;
+import main.java.parser.IndependentNode;
 import main.java.parser.LineInfo;
+import main.java.parser.TestNode;
 import main.java.parser.TopNode;
 import main.java.parser.TypeLikeNode;
 import main.java.parser.TypeNode;
@@ -24,6 +26,7 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -40,7 +43,8 @@ public final class CompilerInfo {
     private IndexedSet<ClassInfo> classes = new IndexedHashSet<>();
     private LoopManager loopManager = new LoopManager();
 
-    private List<Map<String, VariableInfo>> variables = new ArrayList<>();
+    private SymbolTable variables = new SymbolTable();
+    private List<Map<TypeKey, TypeObject[]>> returnTypes = new ArrayList<>();
     private Map<String, NameableType> typeMap = new HashMap<>();
     private IntAllocator varNumbers = new IntAllocator();
 
@@ -51,6 +55,7 @@ public final class CompilerInfo {
     private boolean allowSettingExports = false;
     private boolean linked = false;
     private boolean compiled = false;
+    private BytecodeSpill spill = null;
 
     public CompilerInfo(TopNode node) {
         this.node = node;
@@ -62,22 +67,82 @@ public final class CompilerInfo {
         }
         link();
         this.addStackFrame();
-        List<Byte> bytes = new ArrayList<>();
+        var bytes = new BytecodeWriter();
         for (var statement : node) {
             if (statement instanceof ImportExportNode
                     && ((ImportExportNode) statement).getType() == ImportExportNode.EXPORT) {
                 continue;
             }
-            bytes.addAll(BaseConverter.bytes(bytes.size(), statement, this));
+            BaseConverter.convert(bytes, statement, this);
         }
         this.removeStackFrame();
         // Put the default function at the beginning
-        functions.set(0, new Function(new FunctionInfo("__default__", new ArgumentInfo()), bytes));
+        functions.set(0, new Function(new FunctionInfo("__default__", new ArgumentInfo()), bytes.toByteArray()));
         writeToFile(file);
         compiled = true;
         return this;
     }
 
+    /**
+     * Compile a module one top-level statement at a time, as it is parsed.
+     * <p>
+     *     Each statement is linked and converted before the next is taken, so
+     *     that nothing keeps it afterwards, and the code of each function is
+     *     moved out to a {@link BytecodeSpill temporary file} once the
+     *     statement it is in is finished. Memory therefore does not grow with
+     *     the length of the module, only with the names and constants in it.
+     * </p>
+     * <p>
+     *     This is only for modules whose top level refers to nothing before
+     *     it is declared: imports are only linked once they are reached.
+     *     Exports are resolved once the whole module has been seen, as when
+     *     linking up front, so their output is the same; errors, however, are
+     *     thrown in the order of the statements they are in, not all errors
+     *     in linking first.
+     * </p>
+     *
+     * @param statements The top-level statements of the module
+     * @param file The file to write the bytecode to
+     * @return Itself
+     */
+    public CompilerInfo compileStreaming(@NotNull Iterator<IndependentNode> statements, File file) {
+        if (compiled) {
+            return this;
+        }
+        assert !linked && !node.iterator().hasNext();
+        var linker = new Linker(this);
+        try (var spill = new BytecodeSpill()) {
+            this.spill = spill;
+            this.addStackFrame();
+            while (statements.hasNext()) {
+                var statement = statements.next();
+                linker.link(statement);
+                if (statement instanceof ImportExportNode
+                        && ((ImportExportNode) statement).getType() == ImportExportNode.EXPORT) {
+                    continue;
+                }
+                int firstFunction = functions.size();
+                var bytes = new BytecodeWriter(spill.defaultSize());
+                BaseConverter.convert(bytes, statement, this);
+                spill.addDefault(bytes.toByteArray());
+                for (int i = firstFunction; i < functions.size(); i++) {
+                    var function = functions.get(i);
+                    spill.addFunction(i, function.getBytes());
+                    functions.set(i, new Function(function.getInfo(), new byte[0]));
+                }
+            }
+            this.removeStackFrame();
+            setExports(linker);
+            linked = true;
+            functions.set(0, new Function(new FunctionInfo("__default__", new ArgumentInfo()), new byte[0]));
+            writeToFile(file);
+        } finally {
+            this.spill = null;
+        }
+        compiled = true;
+        return this;
+    }
+
     public void addExport(String name, TypeObject type, LineInfo info) {
         if (!allowSettingExports) {
             throw CompilerException.of("Illegal position for export statement", info);
@@ -105,6 +170,7 @@ public final class CompilerInfo {
     }
 
     public int addFunction(@NotNull Function info) {
+        clearReturnTypes();
         functions.add(info);
         return functions.size() - 1;
     }
@@ -126,10 +192,11 @@ public final class CompilerInfo {
      */
     public short addConstant(LangConstant value) {
         constants.add(value);
-        if (constants.indexOf(value) > Short.MAX_VALUE) {
+        int index = constants.indexOf(value);
+        if (index > Short.MAX_VALUE) {
             throw new RuntimeException("Too many constants");
         }
-        return (short) constants.indexOf(value);
+        return (short) index;
     }
 
     /**
@@ -139,7 +206,8 @@ public final class CompilerInfo {
      * @return The index in the stack
      */
     public short constIndex(LangConstant value) {
-        return constants.contains(value) ? (short) constants.indexOf(value) : addConstant(value);
+        int index = constants.indexOf(value);
+        return index != -1 ? (short) index : addConstant(value);
     }
 
     /**
@@ -160,6 +228,7 @@ public final class CompilerInfo {
     }
 
     public int addClass(ClassInfo info) {
+        clearReturnTypes();
         classes.add(info);
         return classes.indexOf(info);
     }
@@ -168,7 +237,12 @@ public final class CompilerInfo {
         if (linked) {
             return this;
         }
-        var linker = new Linker(this).link(node);
+        setExports(new Linker(this).link(node));
+        linked = true;
+        return this;
+    }
+
+    private void setExports(@NotNull Linker linker) {
         var exports = linker.getExports();
         var globals = linker.getGlobals();
         try {
@@ -186,8 +260,6 @@ public final class CompilerInfo {
         } finally {
             allowSettingExports = false;
         }
-        linked = true;
-        return this;
     }
 
     public void writeToFile(@NotNull File file) {
@@ -206,12 +278,11 @@ public final class CompilerInfo {
             }
             writer.flush();
             writer.write(Util.toByteArray(exports.size()));
+            var exportIndices = exportIndices();
             for (var export : exports) {
                 writer.write(StringConstant.strByteArray(export));
-                for (int i = 0; i < constants.size(); i++) {
-                    if (constants.get(i).name().equals(export)) {
-                        writer.write(Util.toByteArray(i));
-                    }
+                for (int i : exportIndices.getOrDefault(export, Collections.emptyList())) {
+                    writer.write(Util.toByteArray(i));
                 }
             }
             writer.flush();
@@ -222,8 +293,9 @@ public final class CompilerInfo {
             }
             writer.flush();
             writer.write(Util.toByteArray(functions.size()));
-            for (var function : functions) {
-                var byteArray = Util.toByteArray(function.getBytes());
+            for (int i = 0; i < functions.size(); i++) {
+                var function = functions.get(i);
+                var byteArray = functionBytes(i);
                 writer.write(Util.toByteArray(StringConstant.strBytes(function.getName())));
                 writer.write(Util.toByteArray((short) 0));  // TODO: Put variable count
                 writer.write(Util.toByteArray(byteArray.length));
@@ -232,7 +304,7 @@ public final class CompilerInfo {
             writer.flush();
             writer.write(Util.toByteArray(classes.size()));
             for (var cls : classes) {
-                writer.write(Util.toByteArray(cls.toBytes()));
+                writer.write(cls.toBytes());
             }
             writer.flush();
         } catch (IOException e) {
@@ -240,14 +312,49 @@ public final class CompilerInfo {
         }
     }
 
+    /**
+     * The code of a function, wherever it is kept.
+     *
+     * @param index The index of the function
+     * @return The code
+     */
+    private byte[] functionBytes(int index) {
+        if (spill == null) {
+            return functions.get(index).getBytes();
+        } else if (index == 0) {
+            return spill.defaultBytes();
+        } else if (spill.hasFunction(index)) {
+            return spill.functionBytes(index);
+        } else {
+            return functions.get(index).getBytes();
+        }
+    }
+
+    /**
+     * The indices of the constants named by each export, in order, found in
+     * one pass over the constants rather than one per export.
+     */
+    @NotNull
+    private Map<String, List<Integer>> exportIndices() {
+        Map<String, List<Integer>> result = new HashMap<>();
+        for (int i = 0; i < constants.size(); i++) {
+            var name = constants.get(i).name();
+            if (exports.contains(name)) {
+                result.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+            }
+        }
+        return result;
+    }
+
     private void printDisassembly() {
         System.out.println("Constants:");
+        int index = 0;
         for (var constant : constants) {
-            System.out.printf("%d: %s%n", constants.indexOf(constant), constant.name());
+            System.out.printf("%d: %s%n", index++, constant.name());
         }
-        for (var function : functions) {
-            System.out.printf("%s:%n", function.getName());
-            System.out.println(Bytecode.disassemble(this, function.getBytes()));
+        for (int i = 0; i < functions.size(); i++) {
+            System.out.printf("%s:%n", functions.get(i).getName());
+            System.out.println(Bytecode.disassemble(this, functionBytes(i)));
         }
         for (var cls : classes) {
             for (var fnPair : cls.getMethodDefs().entrySet()) {
@@ -266,31 +373,24 @@ public final class CompilerInfo {
     }
 
     /**
-     * Add a break statement to the pool of un-linked statements.
+     * The label a break statement should jump to.
      *
      * @param levels The number of levels to break
-     * @param location The location (absolute, by start of function)
+     * @return The label of the end of the loop
      */
-    public void addBreak(int levels, int location) {
-        loopManager.addBreak(levels, location);
-    }
-
-    /**
-     * Add a continue statement's pointer to the list.
-     *
-     * @param location The location (absolute, by start of function)
-     */
-    public void addContinue(int location) {
-        loopManager.addContinue(location);
+    @NotNull
+    public Label breakLabel(int levels) {
+        return loopManager.breakLabel(levels);
     }
 
     /**
-     * Set the point where a {@code continue} statement should jump to.
+     * The label a continue statement should jump to.
      *
-     * @param location The location (absolute, by start of function)
+     * @return The label of the point where the loop continues
      */
-    public void setContinuePoint(int location) {
-        loopManager.setContinuePoint(location);
+    @NotNull
+    public Label continueLabel() {
+        return loopManager.continueLabel();
     }
 
     public LoopManager loopManager() {
@@ -350,6 +450,7 @@ public final class CompilerInfo {
     }
 
     public void addType(NameableType type) {
+        clearReturnTypes();
         typeMap.put(type.name(), type);
     }
 
@@ -372,16 +473,17 @@ public final class CompilerInfo {
      * Add a new set of variable names to the stack.
      */
     public void addStackFrame() {
-        variables.add(new HashMap<>());
+        variables.enterScope();
+        returnTypes.add(new HashMap<>());
     }
 
     /**
      * Remove the current level of variable declarations from the stack.
      */
     public void removeStackFrame() {
-        var vars = variables.remove(variables.size() - 1);
-        for (var pair : vars.values()) {
-            varNumbers.remove(pair.getLocation());
+        returnTypes.remove(returnTypes.size() - 1);
+        for (var info : variables.exitScope()) {
+            varNumbers.remove(info.getLocation());
         }
     }
 
@@ -412,7 +514,55 @@ public final class CompilerInfo {
     }
 
     private void addVariable(String name, VariableInfo info) {
-         variables.get(variables.size() - 1).put(name, info);
+        clearReturnTypes();
+        variables.declare(name, info);
+    }
+
+    /**
+     * The type of an expression, as computed earlier in the current stack
+     * frame.
+     * <p>
+     *     Types are kept per stack frame, as that is where the variables they
+     *     depend on are, and are only looked up in the innermost frame: a
+     *     frame inside it may declare variables hiding those the type was
+     *     computed with. Declaring anything forgets the types of the frame it
+     *     is declared in, and leaving a frame forgets all of its types, so
+     *     the type of a node is never used where its names may mean anything
+     *     different.
+     * </p>
+     *
+     * @param node The expression
+     * @param retCount The number of values the expression is to return
+     * @return The type, or {@code null} if it has not been computed here
+     * @see TestConverter#returnType(TestNode, CompilerInfo, int)
+     */
+    @Nullable
+    public TypeObject[] cachedReturnType(@NotNull TestNode node, int retCount) {
+        if (returnTypes.isEmpty()) {
+            return null;
+        }
+        return returnTypes.get(returnTypes.size() - 1).get(new TypeKey(node, retCount));
+    }
+
+    /**
+     * Remember the type of an expression for the rest of the current stack
+     * frame.
+     *
+     * @param node The expression
+     * @param retCount The number of values the expression is to return
+     * @param types The type of the expression
+     * @see #cachedReturnType
+     */
+    public void cacheReturnType(@NotNull TestNode node, int retCount, @NotNull TypeObject[] types) {
+        if (!returnTypes.isEmpty()) {
+            returnTypes.get(returnTypes.size() - 1).put(new TypeKey(node, retCount), types);
+        }
+    }
+
+    private void clearReturnTypes() {
+        if (!returnTypes.isEmpty()) {
+            returnTypes.get(returnTypes.size() - 1).clear();
+        }
     }
 
     /**
@@ -428,13 +578,7 @@ public final class CompilerInfo {
 
     @Nullable
     private VariableInfo varInfo(String name) {  // TODO: Universally accessible globals
-        for (int i = variables.size() - 1; i >= 0; i--) {
-            var map = variables.get(i);
-            if (map.containsKey(name)) {
-                return map.get(name);
-            }
-        }
-        return null;
+        return variables.lookup(name);
     }
 
     /**
@@ -484,4 +628,31 @@ public final class CompilerInfo {
     {  // Prevent "non-updating" compiler warning
         anonymousNums.remove(0);
     }
+
+    /**
+     * An expression by identity, together with the number of values it is to
+     * return, which may change its type.
+     */
+    private static final class TypeKey {
+        private final TestNode node;
+        private final int retCount;
+
+        TypeKey(TestNode node, int retCount) {
+            this.node = node;
+            this.retCount = retCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TypeKey typeKey = (TypeKey) o;
+            return node == typeKey.node && retCount == typeKey.retCount;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(node) + retCount;
+        }
+    }
 }
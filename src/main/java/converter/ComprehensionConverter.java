@@ -4,9 +4,6 @@ import main.java.parser.ComprehensionNode;
 import main.java.parser.TypedVariableNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class ComprehensionConverter implements TestConverter {
     private ComprehensionNode node;
     private CompilerInfo info;
@@ -39,23 +36,18 @@ public final class ComprehensionConverter implements TestConverter {
         }
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {  // TODO: While conditional
+    public void convert(@NotNull BytecodeWriter bytes) {  // TODO: While conditional
         assert retCount == 1 || retCount == 0;
         boolean isList = node.getBrace().equals("[");
-        List<Byte> bytes = new ArrayList<>();
-        bytes.add(isList ? Bytecode.LIST_CREATE.value : Bytecode.SET_CREATE.value);
-        bytes.addAll(Util.shortToBytes((short) 0));
-        bytes.add(Bytecode.LOAD_CONST.value);
-        bytes.addAll(Util.shortToBytes(info.constIndex(Builtins.constantOf("iter"))));
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getLooped().get(0), info, 1));
-        bytes.add(Bytecode.CALL_TOS.value);
-        bytes.addAll(Util.shortToBytes((short) 1));
-        var topJump = start + bytes.size();
-        bytes.add(Bytecode.FOR_ITER.value);
-        int forJump = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
+        bytes.emit(isList ? Bytecode.LIST_CREATE : Bytecode.SET_CREATE, 0);
+        bytes.emit(Bytecode.LOAD_CONST, info.constIndex(Builtins.constantOf("iter")));
+        TestConverter.convert(bytes, node.getLooped().get(0), info, 1);
+        bytes.emit(Bytecode.CALL_TOS, 1);
+        var topLabel = new Label();
+        bytes.bind(topLabel);
+        var endLabel = new Label();
+        bytes.emitJump(Bytecode.FOR_ITER, endLabel);
         // Add the variable for the loop
         var variable = node.getVariables()[0];
         info.addStackFrame();
@@ -63,24 +55,20 @@ public final class ComprehensionConverter implements TestConverter {
             var typedVar = (TypedVariableNode) variable;
             info.addVariable(typedVar.getVariable().getName(), info.getType(typedVar.getType()));
         }
-        bytes.add(Bytecode.STORE.value);
-        bytes.addAll(Util.shortToBytes(info.varIndex(variable.getVariable().getName())));
+        bytes.emit(Bytecode.STORE, info.varIndex(variable.getVariable().getName()));
         if (!node.getCondition().isEmpty()) {
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getCondition(), info, 1));
-            bytes.add(Bytecode.JUMP_FALSE.value);
-            bytes.addAll(Util.intToBytes(topJump));
+            TestConverter.convert(bytes, node.getCondition(), info, 1);
+            bytes.emitJump(Bytecode.JUMP_FALSE, topLabel);
         }
-        bytes.add(Bytecode.SWAP_2.value);  // The iterator object will be atop the list, swap it and back again
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getBuilder()[0].getArgument(), info, 1));
-        bytes.add(isList ? Bytecode.LIST_ADD.value : Bytecode.SET_ADD.value);
-        bytes.add(Bytecode.SWAP_2.value);
-        bytes.add(Bytecode.JUMP.value);
-        bytes.addAll(Util.intToBytes(topJump));
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), forJump);
+        bytes.emit(Bytecode.SWAP_2);  // The iterator object will be atop the list, swap it and back again
+        TestConverter.convert(bytes, node.getBuilder()[0].getArgument(), info, 1);
+        bytes.emit(isList ? Bytecode.LIST_ADD : Bytecode.SET_ADD);
+        bytes.emit(Bytecode.SWAP_2);
+        bytes.emitJump(Bytecode.JUMP, topLabel);
+        bytes.bind(endLabel);
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
         info.removeStackFrame();
-        return bytes;
     }
 }
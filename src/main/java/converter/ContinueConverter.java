@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.ContinueStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class ContinueConverter implements BaseConverter {
     private ContinueStatementNode node;
     private CompilerInfo info;
@@ -15,18 +12,18 @@ public final class ContinueConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
+        if (!info.loopManager().canContinue()) {
+            throw CompilerException.of("Cannot continue: not in a loop", node);
+        }
+        Bytecode jump;
         if (!node.getCond().isEmpty()) {
-            bytes.addAll(TestConverter.bytes(start, node.getCond(), info, 1));
-            bytes.add(Bytecode.JUMP_TRUE.value);
+            TestConverter.convert(bytes, node.getCond(), info, 1);
+            jump = Bytecode.JUMP_TRUE;
         } else {
-            bytes.add(Bytecode.JUMP.value);
+            jump = Bytecode.JUMP;
         }
-        info.addContinue(start + bytes.size());
-        bytes.addAll(Util.zeroToBytes());
-        return bytes;
+        bytes.emitJump(jump, info.continueLabel());
     }
 }
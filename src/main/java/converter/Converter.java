@@ -1,5 +1,6 @@
 package main.java.converter;
 
+import main.java.parser.IndependentNode;
 import main.java.parser.LineInfo;
 import main.java.parser.Parser;
 import main.java.parser.TopNode;
@@ -12,6 +13,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 public final class Converter {
     private static final FilenameFilter EXPORT_FILTER = (f, s) -> s.equals(Util.EXPORTS_FILENAME);
     private static final Map<String, CompilerInfo> modules = new HashMap<>();
+    private static final Map<Path, TopNode> parsed = new HashMap<>();
 
     private static File destFile = null;
 
@@ -31,6 +34,31 @@ public final class Converter {
         new CompilerInfo(node).compile(file);
     }
 
+    /**
+     * Convert a module one top-level statement at a time, as it is parsed.
+     *
+     * @param file The file to write the bytecode to
+     * @param path The path of the module
+     * @param statements The top-level statements of the module
+     * @see CompilerInfo#compileStreaming
+     */
+    public static void convertToFile(@NotNull File file, Path path, Iterator<IndependentNode> statements) {
+        assert destFile == null || destFile.equals(file.getParentFile());
+        setDestFile(file.getParentFile());
+        new CompilerInfo(new TopNode(path)).compileStreaming(statements, file);
+    }
+
+    /**
+     * Record the parsed form of a file, so that it is not parsed again when
+     * it is imported.
+     *
+     * @param path The path of the file
+     * @param node The parsed file
+     */
+    public static void addParsed(@NotNull Path path, TopNode node) {
+        parsed.put(path.toAbsolutePath().normalize(), node);
+    }
+
     public static CompilerInfo findModule(String name) {
         if (modules.containsKey(name)) {
             return modules.get(name);
@@ -105,7 +133,8 @@ public final class Converter {
             assert exportFiles != null && exportFiles.length == 1;
             endFile = exportFiles[0];
         }
-        var info = new CompilerInfo(Parser.parse(endFile));
+        var node = parsed.get(endFile.toPath().toAbsolutePath().normalize());
+        var info = new CompilerInfo(node != null ? node : Parser.parse(endFile));
         modules.put(name, info);
         return info;
     }
@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.DeclarationNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
-import java.util.List;
-
 public final class DeclarationConverter implements BaseConverter {
     private DeclarationNode node;
     private CompilerInfo info;
@@ -15,13 +12,11 @@ public final class DeclarationConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         if (!node.getType().isDecided()) {
             throw CompilerException.of("var not allowed in declarations", node);
         }
         info.addVariable(node.getName().getName(), info.getType(node.getType()));
-        return Collections.emptyList();
     }
 }
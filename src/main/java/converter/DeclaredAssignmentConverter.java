@@ -4,10 +4,6 @@ import main.java.parser.DeclaredAssignmentNode;
 import main.java.parser.DescriptorNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 public final class DeclaredAssignmentConverter implements BaseConverter {
     private CompilerInfo info;
     private DeclaredAssignmentNode node;
@@ -17,9 +13,8 @@ public final class DeclaredAssignmentConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         assert !node.isColon();
         if (node.getNames().length > 1) {
             throw new UnsupportedOperationException("Conversion of multiple-var assignment not implemented");
@@ -27,7 +22,7 @@ public final class DeclaredAssignmentConverter implements BaseConverter {
         var value = node.getValues().get(0);
         var assigned = node.getTypes()[0];
         var converter = TestConverter.of(info, value, 1);
-        var valueType = converter.returnType()[0];
+        var valueType = TestConverter.returnType(value, info, 1)[0];
         var rawType = assigned.getType();
         var assignedType = rawType.isDecided() ? info.getType(rawType) : valueType;
         var assignedName = assigned.getVariable().getName();
@@ -42,12 +37,10 @@ public final class DeclaredAssignmentConverter implements BaseConverter {
         if (converter instanceof ConstantConverter && node.getDescriptors().contains(DescriptorNode.CONST)) {
             var constant = ((ConstantConverter) converter).constant();
             info.addVariable(assignedName, assignedType, constant);
-            return Collections.emptyList();
+            return;
         }
-        List<Byte> bytes = new ArrayList<>(converter.convert(start));
+        converter.convert(bytes);
         info.addVariable(assignedName, assignedType);
-        bytes.add(Bytecode.STORE.value);
-        bytes.addAll(Util.shortToBytes(info.varIndex(assignedName)));
-        return bytes;
+        bytes.emit(Bytecode.STORE, info.varIndex(assignedName));
     }
 }
@@ -4,9 +4,6 @@ import main.java.parser.DictLiteralNode;
 import main.java.parser.TestNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class DictLiteralConverter implements TestConverter {
     private DictLiteralNode node;
     private CompilerInfo info;
@@ -26,26 +23,22 @@ public final class DictLiteralConverter implements TestConverter {
         return new TypeObject[] {Builtins.DICT.generify(keyType, valType)};
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
         if (retCount == 0) {  // If this is not being assigned, no need to actually create the list, just get side effects
             CompilerWarning.warn("Unnecessary dict creation", node);
             for (var pair : node.pairs()) {
-                bytes.addAll(BaseConverter.bytes(start + bytes.size(), pair.getKey(), info));
-                bytes.addAll(BaseConverter.bytes(start + bytes.size(), pair.getValue(), info));
+                BaseConverter.convert(bytes, pair.getKey(), info);
+                BaseConverter.convert(bytes, pair.getValue(), info);
             }
         } else {
             assert retCount == 1;
             for (var pair : node.pairs()) {
-                bytes.addAll(TestConverter.bytes(start + bytes.size(), pair.getKey(), info, 1));
-                bytes.addAll(TestConverter.bytes(start + bytes.size(), pair.getValue(), info, 1));
+                TestConverter.convert(bytes, pair.getKey(), info, 1);
+                TestConverter.convert(bytes, pair.getValue(), info, 1);
             }
-            bytes.add(Bytecode.DICT_CREATE.value);
-            bytes.addAll(Util.shortToBytes((short) node.size()));
+            bytes.emit(Bytecode.DICT_CREATE, node.size());
         }
-        return bytes;
     }
 
     @NotNull
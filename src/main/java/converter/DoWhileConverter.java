@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.DoStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class DoWhileConverter extends LoopConverter {
     private DoStatementNode node;
 
@@ -14,16 +11,13 @@ public final class DoWhileConverter extends LoopConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    protected List<Byte> trueConvert(int start) {
-        var body = BaseConverter.bytes(start, node.getBody(), info);
-        List<Byte> bytes = new ArrayList<>(body);
-        info.setContinuePoint(start + bytes.size());
-        var cond = TestConverter.bytes(start + bytes.size(), node.getConditional(), info, 1);
-        bytes.addAll(cond);
-        bytes.add(Bytecode.JUMP_TRUE.value);
-        bytes.addAll(Util.intToBytes(start));
-        return bytes;
+    protected void trueConvert(@NotNull BytecodeWriter bytes) {
+        var start = new Label();
+        bytes.bind(start);
+        BaseConverter.convert(bytes, node.getBody(), info);
+        bytes.bind(info.continueLabel());
+        TestConverter.convert(bytes, node.getConditional(), info, 1);
+        bytes.emitJump(Bytecode.JUMP_TRUE, start);
     }
 }
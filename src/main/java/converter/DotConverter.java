@@ -9,9 +9,6 @@ import main.java.parser.SpecialOpNameNode;
 import main.java.parser.VariableNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class DotConverter implements TestConverter {
     private DottedVariableNode node;
     private CompilerInfo info;
@@ -86,80 +83,70 @@ public final class DotConverter implements TestConverter {
         return normalDotReturnType(bangType, dot);
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>(TestConverter.bytes(start, node.getPreDot(), info, 1));
+    public void convert(@NotNull BytecodeWriter bytes) {
+        TestConverter.convert(bytes, node.getPreDot(), info, 1);
         for (var dot : node.getPostDots()) {
             switch (dot.getDotPrefix()) {
                 case "":
-                    convertNormal(start, bytes, dot);
+                    convertNormal(bytes, dot);
                     break;
                 case "?":
-                    convertNullDot(start, bytes, dot);
+                    convertNullDot(bytes, dot);
                     break;
                 case "!!":
-                    convertNotNullDot(start, bytes, dot);
+                    convertNotNullDot(bytes, dot);
                     break;
                 default:
                     throw new RuntimeException("Unknown value for dot prefix");
             }
         }
-        return bytes;
     }
 
-    private void convertNormal(int start, @NotNull List<Byte> bytes, @NotNull DottedVar dot) {
+    private void convertNormal(@NotNull BytecodeWriter bytes, @NotNull DottedVar dot) {
         assert dot.getDotPrefix().isEmpty();
         var postDot = dot.getPostDot();
-        convertPostDot(start, bytes, postDot);
+        convertPostDot(bytes, postDot);
     }
 
-    private void convertNullDot(int start, @NotNull List<Byte> bytes, @NotNull DottedVar dot) {
+    private void convertNullDot(@NotNull BytecodeWriter bytes, @NotNull DottedVar dot) {
         assert dot.getDotPrefix().equals("?");  // TODO: Optimizations & warnings for non-null types
         var postDot = dot.getPostDot();
-        bytes.add(Bytecode.DUP_TOP.value);
-        bytes.add(Bytecode.JUMP_NULL.value);
-        int jumpPos = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        convertPostDot(start, bytes, postDot);
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jumpPos);
+        bytes.emit(Bytecode.DUP_TOP);
+        var endLabel = new Label();
+        bytes.emitJump(Bytecode.JUMP_NULL, endLabel);
+        convertPostDot(bytes, postDot);
+        bytes.bind(endLabel);
     }
 
-    private void convertNotNullDot(int start, @NotNull List<Byte> bytes, @NotNull DottedVar dot) {
+    private void convertNotNullDot(@NotNull BytecodeWriter bytes, @NotNull DottedVar dot) {
         assert dot.getDotPrefix().equals("!!");  // TODO: Optimizations & warnings for non-null types
         var postDot = dot.getPostDot();
-        bytes.add(Bytecode.DUP_TOP.value);
-        bytes.add(Bytecode.JUMP_NN.value);
-        int jumpPos = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.add(Bytecode.POP_TOP.value);
-        bytes.add(Bytecode.LOAD_CONST.value);
-        bytes.addAll(Util.shortToBytes(info.constIndex(Builtins.constantOf("str"))));  // TODO: Error type
-        bytes.add(Bytecode.LOAD_CONST.value);
+        bytes.emit(Bytecode.DUP_TOP);
+        var notNullLabel = new Label();
+        bytes.emitJump(Bytecode.JUMP_NN, notNullLabel);
+        bytes.emit(Bytecode.POP_TOP);
+        bytes.emit(Bytecode.LOAD_CONST, info.constIndex(Builtins.constantOf("str")));  // TODO: Error type
         var message = String.format("Value %s asserted non-null, was null", postDot);
-        bytes.addAll(Util.shortToBytes(info.constIndex(LangConstant.of(message))));
-        bytes.add(Bytecode.THROW_QUICK.value);
-        bytes.addAll(Util.shortToBytes((short) 1));
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jumpPos);
-        convertPostDot(start, bytes, postDot);
+        bytes.emit(Bytecode.LOAD_CONST, info.constIndex(LangConstant.of(message)));
+        bytes.emit(Bytecode.THROW_QUICK, 1);
+        bytes.bind(notNullLabel);
+        convertPostDot(bytes, postDot);
     }
 
-    private void convertPostDot(int start, @NotNull List<Byte> bytes, @NotNull NameNode postDot) {
-        bytes.add(Bytecode.LOAD_DOT.value);
+    private void convertPostDot(@NotNull BytecodeWriter bytes, @NotNull NameNode postDot) {
         if (postDot instanceof VariableNode) {
             var name = LangConstant.of(((VariableNode) postDot).getName());
-            bytes.addAll(Util.shortToBytes(info.constIndex(name)));
+            bytes.emit(Bytecode.LOAD_DOT, info.constIndex(name));
         } else if (postDot instanceof FunctionCallNode) {
             var caller = ((FunctionCallNode) postDot).getCaller();
             var name = LangConstant.of(((VariableNode) caller).getName());
-            bytes.addAll(Util.shortToBytes(info.constIndex(name)));
+            bytes.emit(Bytecode.LOAD_DOT, info.constIndex(name));
             var callConverter = new FunctionCallConverter(info, (FunctionCallNode) postDot, retCount);
-            callConverter.convertCall(bytes, start);
+            callConverter.convertCall(bytes);
         } else if (postDot instanceof SpecialOpNameNode) {
-            bytes.remove(bytes.size() - 1);
             var op = ((SpecialOpNameNode) postDot).getOperator();
-            bytes.add(Bytecode.LOAD_OP.value);
-            bytes.addAll(Util.shortToBytes((short) op.ordinal()));
+            bytes.emit(Bytecode.LOAD_OP, op.ordinal());
         } else {
             throw new UnsupportedOperationException("This kind of post-dot not yet supported");
         }
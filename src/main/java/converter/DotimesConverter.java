@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.DotimesStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class DotimesConverter extends LoopConverter {
     private DotimesStatementNode node;
     private CompilerInfo info;
@@ -16,26 +13,23 @@ public final class DotimesConverter extends LoopConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> trueConvert(int start) {
+    public void trueConvert(@NotNull BytecodeWriter bytes) {
         var countConverter = TestConverter.of(info, node.getIterations(), 1);
-        if (!Builtins.INT.isSuperclass(countConverter.returnType()[0])) {
+        var countType = TestConverter.returnType(node.getIterations(), info, 1)[0];
+        if (!Builtins.INT.isSuperclass(countType)) {
             throw CompilerException.format(
                     "dotimes loop's iteration count has type '%s', which is not a subclass of int",
-                    node.getIterations(), countConverter.returnType()[0].name()
+                    node.getIterations(), countType.name()
             );
         }
-        List<Byte> bytes = new ArrayList<>(countConverter.convert(start));
-        int topJump = start + bytes.size();
-        info.setContinuePoint(topJump);
-        bytes.add(Bytecode.DOTIMES.value);
-        int jumpLoc = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getBody(), info));
-        bytes.add(Bytecode.JUMP.value);
-        bytes.addAll(Util.intToBytes(topJump));
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jumpLoc);
-        return bytes;
+        countConverter.convert(bytes);
+        var topLabel = info.continueLabel();
+        bytes.bind(topLabel);
+        var endLabel = new Label();
+        bytes.emitJump(Bytecode.DOTIMES, endLabel);
+        BaseConverter.convert(bytes, node.getBody(), info);
+        bytes.emitJump(Bytecode.JUMP, topLabel);
+        bytes.bind(endLabel);
     }
 }
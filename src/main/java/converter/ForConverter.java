@@ -4,12 +4,8 @@ import main.java.parser.ForStatementNode;
 import main.java.parser.OpSpTypeNode;
 import main.java.parser.TypedVariableNode;
 import main.java.parser.VariableNode;
-import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class ForConverter extends LoopConverter {
     private ForStatementNode node;
     private CompilerInfo info;
@@ -20,10 +16,8 @@ public final class ForConverter extends LoopConverter {
         this.info = info;
     }
 
-    @NotNull
-    @Contract(pure = true)
     @Override
-    public List<Byte> trueConvert(int start) {
+    public void trueConvert(@NotNull BytecodeWriter bytes) {
         assert node.getVars().length == 1 : "'for' loops with multiple vars not yet implemented";
         assert node.getIterables().size() == 1 : "'for' loops with multiple vars not yet implemented";
         var valueConverter = TestConverter.of(info, node.getIterables().get(0), 1);
@@ -36,32 +30,26 @@ public final class ForConverter extends LoopConverter {
             }
             info.addVariable(iteratedName, iteratorType);
         }
-        var valueReturnedType = valueConverter.returnType()[0].operatorReturnType(OpSpTypeNode.ITER)[0];
+        var valueType = TestConverter.returnType(node.getIterables().get(0), info, 1)[0];
+        var valueReturnedType = valueType.operatorReturnType(OpSpTypeNode.ITER)[0];
         if (!iteratorType.isSuperclass(valueReturnedType)) {
             throw CompilerException.format(
                     "'for'-loop iterator returns '%s', variable requires '%s'",
                     node.getIterables().get(0), valueReturnedType.name(), iteratorType.name()
             );
         }
-        List<Byte> bytes = new ArrayList<>();
-        bytes.add(Bytecode.LOAD_CONST.value);
-        bytes.addAll(Util.shortToBytes(info.constIndex(Builtins.constantOf("iter"))));
-        bytes.addAll(valueConverter.convert(start));
-        bytes.add(Bytecode.CALL_TOS.value);
-        bytes.addAll(Util.shortToBytes((short) 1));
-        info.setContinuePoint(start + bytes.size());
-        bytes.add(Bytecode.FOR_ITER.value);
-        int jumpPos = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.add(Bytecode.STORE.value);
-        bytes.addAll(Util.shortToBytes(info.varIndex(iteratedName)));
-        bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getBody(), info));
-        bytes.add(Bytecode.JUMP.value);
-        info.addContinue(start + bytes.size());
-        bytes.addAll(Util.zeroToBytes());
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jumpPos);
-        bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getNobreak(), info));
-        return bytes;
+        bytes.emit(Bytecode.LOAD_CONST, info.constIndex(Builtins.constantOf("iter")));
+        valueConverter.convert(bytes);
+        bytes.emit(Bytecode.CALL_TOS, 1);
+        var continueLabel = info.continueLabel();
+        bytes.bind(continueLabel);
+        var endLabel = new Label();
+        bytes.emitJump(Bytecode.FOR_ITER, endLabel);
+        bytes.emit(Bytecode.STORE, info.varIndex(iteratedName));
+        BaseConverter.convert(bytes, node.getBody(), info);
+        bytes.emitJump(Bytecode.JUMP, continueLabel);
+        bytes.bind(endLabel);
+        BaseConverter.convert(bytes, node.getNobreak(), info);
     }
 
     private TypeObject getIteratorType() {
@@ -72,8 +60,8 @@ public final class ForConverter extends LoopConverter {
         if (iteratorType.isDecided()) {
             return info.getType(iteratorType);
         } else {
-            var valueConverter = TestConverter.of(info, node.getIterables().get(0), 1);
-            return valueConverter.returnType()[0].operatorReturnType(OpSpTypeNode.ITER)[0];
+            var valueType = TestConverter.returnType(node.getIterables().get(0), info, 1)[0];
+            return valueType.operatorReturnType(OpSpTypeNode.ITER)[0];
         }
     }
 }
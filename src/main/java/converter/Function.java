@@ -1,12 +1,12 @@
 package main.java.converter;
 
-import java.util.List;
+import org.jetbrains.annotations.NotNull;
 
 public final class Function {
     private FunctionInfo info;
-    private List<Byte> bytes;
+    private byte[] bytes;
 
-    public Function(FunctionInfo info, List<Byte> bytes) {
+    public Function(FunctionInfo info, @NotNull byte[] bytes) {
         this.info = info;
         this.bytes = bytes;
     }
@@ -23,10 +23,14 @@ public final class Function {
         return info.getReturns();
     }
 
-    public List<Byte> getBytes() {
+    public byte[] getBytes() {
         return bytes;
     }
 
+    void setBytes(@NotNull byte[] bytes) {
+        this.bytes = bytes;
+    }
+
     public FunctionInfo getInfo() {
         return info;
     }
@@ -5,9 +5,6 @@ import main.java.parser.OpSpTypeNode;
 import main.java.parser.VariableNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class FunctionCallConverter implements TestConverter {
     private CompilerInfo info;
     private FunctionCallNode node;
@@ -19,27 +16,24 @@ public final class FunctionCallConverter implements TestConverter {
         this.retCount = retCount;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        var callConverter = TestConverter.of(info, node.getCaller(), 1);
-        var retTypes = callConverter.returnType();
-        ensureTypesMatch(retTypes[0]);
-        List<Byte> bytes = new ArrayList<>(callConverter.convert(start));
-        convertCall(bytes, start);
-        for (int i = retCount; i < returnType().length; i++) {
-            bytes.add(Bytecode.POP_TOP.value);
+    public void convert(@NotNull BytecodeWriter bytes) {
+        var callerType = TestConverter.returnType(node.getCaller(), info, 1)[0];
+        ensureTypesMatch(callerType);
+        TestConverter.convert(bytes, node.getCaller(), info, 1);
+        convertCall(bytes);
+        int returnCount = TestConverter.returnType(node, info, retCount).length;
+        for (int i = retCount; i < returnCount; i++) {
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
-    void convertCall(List<Byte> bytes, int start) {
+    void convertCall(@NotNull BytecodeWriter bytes) {
         for (var value : node.getParameters()) {
             // TODO: Varargs
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), value.getArgument(), info, 1));
+            TestConverter.convert(bytes, value.getArgument(), info, 1);
         }
-        bytes.add(Bytecode.CALL_TOS.value);
-        bytes.addAll(Util.shortToBytes((short) node.getParameters().length));
+        bytes.emit(Bytecode.CALL_TOS, node.getParameters().length);
     }
 
     @NotNull
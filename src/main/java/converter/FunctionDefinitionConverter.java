@@ -4,10 +4,6 @@ import main.java.parser.FunctionDefinitionNode;
 import main.java.parser.TypedArgumentNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 public final class FunctionDefinitionConverter implements BaseConverter {
     private CompilerInfo info;
     private FunctionDefinitionNode node;
@@ -17,13 +13,13 @@ public final class FunctionDefinitionConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
         var retTypes =  info.typesOf(node.getRetval());
         var fnInfo = new FunctionInfo(node.getName().getName(), convertArgs(), retTypes);
-        int index = info.addFunction(new Function(fnInfo, bytes));
+        // Added before its body is converted, so it can be called from in there
+        var function = new Function(fnInfo, new byte[0]);
+        int index = info.addFunction(function);
         var constVal = new FunctionConstant(node.getName().getName(), index);
         info.addVariable(node.getName().getName(), fnInfo.toCallable(), constVal);
         info.addStackFrame();
@@ -31,12 +27,13 @@ public final class FunctionDefinitionConverter implements BaseConverter {
         for (var arg : node.getArgs()) {
             info.addVariable(arg.getName().getName(), info.getType(arg.getType()));
         }
+        var fnBytes = new BytecodeWriter();
         for (var statement : node.getBody()) {
-            bytes.addAll(BaseConverter.bytes(bytes.size(), statement, info));
+            BaseConverter.convert(fnBytes, statement, info);
         }
+        function.setBytes(fnBytes.toByteArray());
         info.removeStackFrame();
         info.popFnReturns();
-        return Collections.emptyList();
     }
 
     @NotNull
@@ -1,13 +1,9 @@
 package main.java.converter;
 
-import main.java.parser.ElifStatementNode;
 import main.java.parser.IfStatementNode;
 import main.java.parser.StatementBodyNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class IfConverter implements BaseConverter {
     private IfStatementNode node;
     private CompilerInfo info;
@@ -17,55 +13,31 @@ public final class IfConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        var bytes = new ArrayList<>(TestConverter.bytes(start, node.getConditional(), info, 1));
+    public void convert(@NotNull BytecodeWriter bytes) {
+        var endLabel = new Label();
+        TestConverter.convert(bytes, node.getConditional(), info, 1);
         boolean hasElse = !node.getElseStmt().isEmpty();
-        addBody(bytes, start, node.getBody(), node.getElifs().length > 0 || hasElse);
+        addBody(bytes, node.getBody(), node.getElifs().length > 0 || hasElse, endLabel);
         int elifsRemaining = node.getElifs().length - 1;
         for (var elif : node.getElifs()) {
-            addElif(bytes, start, elif, hasElse || elifsRemaining > 0);
+            TestConverter.convert(bytes, elif.getTest(), info, 1);
+            addBody(bytes, elif.getBody(), hasElse || elifsRemaining > 0, endLabel);
             elifsRemaining--;
         }
         if (hasElse) {
-            addElse(bytes, start, node.getElseStmt());
+            BaseConverter.convert(bytes, node.getElseStmt(), info);
         }
-        return bytes;
-    }
-
-    private void addBody(@NotNull List<Byte> bytes, int start, StatementBodyNode body, boolean trailingJump) {
-        var bodyBytes = BaseConverter.bytes(start + bytes.size() + Bytecode.JUMP_FALSE.size(), body, info);
-        // Jump index
-        var jumpTarget = start + bytes.size() + Bytecode.JUMP_FALSE.size() + bodyBytes.size() + trailingJumpBytes(trailingJump);
-        bytes.add(Bytecode.JUMP_FALSE.value);
-        bytes.addAll(Util.intToBytes(jumpTarget));
-        bytes.addAll(bodyBytes);
-    }
-
-    private void addElif(@NotNull List<Byte> bytes, int start, @NotNull ElifStatementNode elif, boolean trailingJump) {
-        var cond = elif.getTest();
-        var body = elif.getBody();
-        bytes.add(Bytecode.JUMP.value);
-        var jumpTarget = bytes.size();
-        bytes.addAll(Util.zeroToBytes());  // Set jump target as temp value
-        bytes.addAll(TestConverter.bytes(start + Bytecode.JUMP.size() + bytes.size(), cond, info, 1));
-        addBody(bytes, start, body, trailingJump);
-        // Set jump target
-        var target = Util.intToBytes(start + bytes.size() + trailingJumpBytes(trailingJump));
-        Util.emplace(bytes, target, jumpTarget);
-    }
-
-    private void addElse(@NotNull List<Byte> bytes, int start, StatementBodyNode body) {
-        var bodyBytes = BaseConverter.bytes(start + bytes.size() + Bytecode.JUMP.size(), body, info);
-        // Jump index
-        var jumpTarget = start + bytes.size() + Bytecode.JUMP.size() + bodyBytes.size();
-        bytes.add(Bytecode.JUMP.value);
-        bytes.addAll(Util.intToBytes(jumpTarget));
-        bytes.addAll(bodyBytes);
+        bytes.bind(endLabel);
     }
 
-    private int trailingJumpBytes(boolean trailingJump) {
-        return trailingJump ? Bytecode.JUMP.size() : 0;
+    private void addBody(@NotNull BytecodeWriter bytes, StatementBodyNode body, boolean trailingJump, Label endLabel) {
+        var nextLabel = new Label();
+        bytes.emitJump(Bytecode.JUMP_FALSE, nextLabel);
+        BaseConverter.convert(bytes, body, info);
+        if (trailingJump) {
+            bytes.emitJump(Bytecode.JUMP, endLabel);
+        }
+        bytes.bind(nextLabel);
     }
 }
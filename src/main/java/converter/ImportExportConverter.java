@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.ImportExportNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
-import java.util.List;
-
 public final class ImportExportConverter implements BaseConverter {
     private CompilerInfo info;
     private ImportExportNode node;
@@ -15,9 +12,8 @@ public final class ImportExportConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         switch (node.getType()) {
             case IMPORT:
             case TYPEGET:
@@ -29,7 +25,6 @@ public final class ImportExportConverter implements BaseConverter {
             default:
                 throw CompilerInternalError.of("Unknown type for ImportExportNode: " + node.getType(), node);
         }
-        return Collections.emptyList();
     }
 
     private void addImport() {
@@ -6,9 +6,6 @@ import main.java.parser.IncrementNode;
 import main.java.parser.VariableNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class IncrementDecrementConverter implements BaseConverter {
     private IncDecNode node;
     private CompilerInfo info;
@@ -18,29 +15,26 @@ public final class IncrementDecrementConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public final List<Byte> convert(int start) {
+    public final void convert(@NotNull BytecodeWriter bytes) {
         boolean isDecrement = node instanceof DecrementNode;
         assert isDecrement ^ node instanceof IncrementNode;
         var converter = TestConverter.of(info, node.getVariable(), 1);
-        if (!Builtins.INT.isSuperclass(converter.returnType()[0])) {
+        var type = TestConverter.returnType(node.getVariable(), info, 1)[0];
+        if (!Builtins.INT.isSuperclass(type)) {
             throw CompilerException.format(
                     "TypeError: Object of type %s cannot be %s",
-                    node.getLineInfo(), converter.returnType()[0].name(), isDecrement ? "incremented" : "decremented");
+                    node.getLineInfo(), type.name(), isDecrement ? "incremented" : "decremented");
         }
-        List<Byte> bytes = new ArrayList<>(converter.convert(start));
-        bytes.add(Bytecode.LOAD_CONST.value);
+        converter.convert(bytes);
         int constIndex = info.addConstant(LangConstant.of(1));
-        bytes.addAll(Util.shortToBytes((short) constIndex));
-        bytes.add((isDecrement ? Bytecode.MINUS : Bytecode.PLUS).value);
+        bytes.emit(Bytecode.LOAD_CONST, constIndex);
+        bytes.emit(isDecrement ? Bytecode.MINUS : Bytecode.PLUS);
         if (node.getVariable() instanceof VariableNode) {
             short varIndex = info.varIndex(((VariableNode) node.getVariable()).getName());
-            bytes.add(Bytecode.STORE.value);
-            bytes.addAll(Util.shortToBytes(varIndex));
+            bytes.emit(Bytecode.STORE, varIndex);
         } else {
             throw CompilerInternalError.of("Non-variable in/decrement not yet implemented", node);
         }
-        return bytes;
     }
 }
@@ -5,9 +5,6 @@ import main.java.parser.OpSpTypeNode;
 import main.java.parser.SliceNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class IndexConverter implements TestConverter {
     private IndexNode node;
     private CompilerInfo info;
@@ -30,29 +27,24 @@ public final class IndexConverter implements TestConverter {
         return TestConverter.returnType(node.getVar(), info, 1)[0].operatorReturnType(operator);
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>(TestConverter.bytes(start, node.getVar(), info, 1));
+    public void convert(@NotNull BytecodeWriter bytes) {
+        TestConverter.convert(bytes, node.getVar(), info, 1);
         if (node.getIndices()[0] instanceof SliceNode) {
             assert node.getIndices().length == 1;
             var slice = (SliceNode) node.getIndices()[0];
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), slice.getStart(), info, 1));
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), slice.getEnd(), info, 1));
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), slice.getStep(), info, 1));
-            bytes.add(Bytecode.CALL_OP.value);
-            bytes.addAll(Util.shortToBytes((short) OpSpTypeNode.GET_SLICE.ordinal()));
-            bytes.addAll(Util.shortToBytes((short) 3));
+            TestConverter.convert(bytes, slice.getStart(), info, 1);
+            TestConverter.convert(bytes, slice.getEnd(), info, 1);
+            TestConverter.convert(bytes, slice.getStep(), info, 1);
+            bytes.emit(Bytecode.CALL_OP, OpSpTypeNode.GET_SLICE.ordinal(), 3);
         } else {
             for (var index : node.getIndices()) {
-                bytes.addAll(TestConverter.bytes(start, index, info, 1));
+                TestConverter.convert(bytes, index, info, 1);
             }
-            bytes.add(Bytecode.LOAD_SUBSCRIPT.value);
-            bytes.addAll(Util.shortToBytes((short) node.getIndices().length));
+            bytes.emit(Bytecode.LOAD_SUBSCRIPT, node.getIndices().length);
             if (retCount == 0) {
-                bytes.add(Bytecode.POP_TOP.value);
+                bytes.emit(Bytecode.POP_TOP);
             }
         }
-        return bytes;
     }
 }
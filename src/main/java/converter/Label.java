@@ -0,0 +1,31 @@
+package main.java.converter;
+
+/**
+ * A location in the code of a function, which jumps may refer to before it
+ * is known.
+ * <p>
+ *     A label is {@link BytecodeWriter#bind bound} to a location once the
+ *     code before it has been written, and every jump to it, whether emitted
+ *     before or after that, is given its location when the writer's bytes
+ *     are {@link BytecodeWriter#toByteArray taken}.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see BytecodeWriter#emitJump(Bytecode, Label)
+ */
+public final class Label {
+    private int location = -1;
+
+    public boolean isBound() {
+        return location != -1;
+    }
+
+    int getLocation() {
+        return location;
+    }
+
+    void setLocation(int location) {
+        assert !isBound() : "Label bound twice";
+        this.location = location;
+    }
+}
@@ -5,10 +5,6 @@ import main.java.parser.TestNode;
 import main.java.parser.TypedArgumentNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 public final class LambdaConverter implements TestConverter {
     private LambdaNode node;
     private CompilerInfo info;
@@ -26,21 +22,17 @@ public final class LambdaConverter implements TestConverter {
         return new TypeObject[] {new FunctionInfo(convertArgs(), lambdaReturnType()).toCallable()};
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         if (retCount == 0) {
             CompilerWarning.warn("Unused lambda", node);
-            return Collections.emptyList();
+            return;
         }
         assert retCount == 1;
-        List<Byte> bytes = new ArrayList<>();
         var name = info.lambdaName();
         var fnInfo = new FunctionInfo(name, convertArgs(), info.typesOf(node.getReturns()));
         int fnIndex = info.addFunction(new Function(fnInfo, convertBody()));
-        bytes.add(Bytecode.MAKE_FUNCTION.value);
-        bytes.addAll(Util.shortToBytes((short) fnIndex));
-        return bytes;
+        bytes.emit(Bytecode.MAKE_FUNCTION, fnIndex);
     }
 
     private TypeObject[] lambdaReturnType() {
@@ -58,18 +50,21 @@ public final class LambdaConverter implements TestConverter {
     }
 
     @NotNull
-    private List<Byte> convertBody() {
+    private byte[] convertBody() {
         info.addStackFrame();
         info.addFunctionReturns(lambdaReturnType());
         for (var arg : node.getArgs()) {
             info.addVariable(arg.getName().getName(), info.getType(arg.getType()));
         }
-        List<Byte> fnBytes = new ArrayList<>(node.isArrow()
-                ? TestConverter.bytes(0, (TestNode) node.getBody().get(0), info, lambdaReturnType().length)
-                : BaseConverter.bytes(0, node.getBody(), info));
+        var fnBytes = new BytecodeWriter();
+        if (node.isArrow()) {
+            TestConverter.convert(fnBytes, (TestNode) node.getBody().get(0), info, lambdaReturnType().length);
+        } else {
+            BaseConverter.convert(fnBytes, node.getBody(), info);
+        }
         info.removeStackFrame();
         info.popFnReturns();
-        return fnBytes;
+        return fnBytes.toByteArray();
     }
 
     @NotNull
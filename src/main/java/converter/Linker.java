@@ -5,6 +5,7 @@ import main.java.parser.ContextDefinitionNode;
 import main.java.parser.DefinitionNode;
 import main.java.parser.FunctionDefinitionNode;
 import main.java.parser.ImportExportNode;
+import main.java.parser.IndependentNode;
 import main.java.parser.LineInfo;
 import main.java.parser.MethodDefinitionNode;
 import main.java.parser.OperatorDefinitionNode;
@@ -40,41 +41,53 @@ public final class Linker {
     public Linker link(@NotNull TopNode node) {
         assert exports.isEmpty() && globals.isEmpty();
         for (var stmt : node) {
-            if (stmt instanceof DefinitionNode) {
-                var name = ((DefinitionNode) stmt).getName();
-                TypeObject type;
-                if (stmt instanceof FunctionDefinitionNode) {  // TODO: Register functions properly
-                    type = Builtins.CALLABLE;
-                } else if (stmt instanceof PropertyDefinitionNode) {
-                    var typeNode = ((PropertyDefinitionNode) stmt).getType();
-                    type = null;  // FIXME: Convert type properly
-                } else if (stmt instanceof ContextDefinitionNode) {
-                    type = null;
-                } else if (stmt instanceof OperatorDefinitionNode) {
-                    throw CompilerInternalError.of("Illegal operator definition", stmt);
-                } else if (stmt instanceof MethodDefinitionNode) {
-                    throw CompilerInternalError.of("Illegal method definition", stmt);
-                } else if (stmt instanceof ClassDefinitionNode) {
-                    type = Builtins.TYPE;  // FIXME: Generify types correctly
-                } else {
-                    throw new UnsupportedOperationException(String.format("Unknown definition %s", name.getClass()));
-                }
-                globals.put(name.toString(), type);
-            } else if (stmt instanceof ImportExportNode) {
-                var ieNode = (ImportExportNode) stmt;
-                switch (ieNode.getType()) {
-                    case IMPORT:
-                    case TYPEGET:
-                        addImports(ieNode);
-                        break;
-                    case EXPORT:
-                        addExports(ieNode);
-                        break;
-                    default:
-                        throw CompilerInternalError.of(
-                                "Unknown type of import/export", ieNode.getLineInfo()
-                        );
-                }
+            link(stmt);
+        }
+        return this;
+    }
+
+    /**
+     * Link a single top-level statement, after those before it.
+     *
+     * @param stmt The statement
+     * @return Itself
+     */
+    @NotNull
+    public Linker link(@NotNull IndependentNode stmt) {
+        if (stmt instanceof DefinitionNode) {
+            var name = ((DefinitionNode) stmt).getName();
+            TypeObject type;
+            if (stmt instanceof FunctionDefinitionNode) {  // TODO: Register functions properly
+                type = Builtins.CALLABLE;
+            } else if (stmt instanceof PropertyDefinitionNode) {
+                var typeNode = ((PropertyDefinitionNode) stmt).getType();
+                type = null;  // FIXME: Convert type properly
+            } else if (stmt instanceof ContextDefinitionNode) {
+                type = null;
+            } else if (stmt instanceof OperatorDefinitionNode) {
+                throw CompilerInternalError.of("Illegal operator definition", stmt);
+            } else if (stmt instanceof MethodDefinitionNode) {
+                throw CompilerInternalError.of("Illegal method definition", stmt);
+            } else if (stmt instanceof ClassDefinitionNode) {
+                type = Builtins.TYPE;  // FIXME: Generify types correctly
+            } else {
+                throw new UnsupportedOperationException(String.format("Unknown definition %s", name.getClass()));
+            }
+            globals.put(name.toString(), type);
+        } else if (stmt instanceof ImportExportNode) {
+            var ieNode = (ImportExportNode) stmt;
+            switch (ieNode.getType()) {
+                case IMPORT:
+                case TYPEGET:
+                    addImports(ieNode);
+                    break;
+                case EXPORT:
+                    addExports(ieNode);
+                    break;
+                default:
+                    throw CompilerInternalError.of(
+                            "Unknown type of import/export", ieNode.getLineInfo()
+                    );
             }
         }
         return this;
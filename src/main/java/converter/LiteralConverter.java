@@ -4,9 +4,6 @@ import main.java.parser.LiteralNode;
 import main.java.parser.TestNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class LiteralConverter implements TestConverter {
     private LiteralNode node;
     private CompilerInfo info;
@@ -25,25 +22,21 @@ public final class LiteralConverter implements TestConverter {
         return new TypeObject[]{mainType.generify(returnTypes(node.getBuilders()))};
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
         if (retCount == 0) {  // If this is not being assigned, no need to actually create the list, just get side effects
             CompilerWarning.warnf("Unnecessary %s creation", node, node.getBraceType().equals("[") ? "list" : "set");
             for (var value : node.getBuilders()) {
-                bytes.addAll(BaseConverter.bytes(start + bytes.size(), value, info));
+                BaseConverter.convert(bytes, value, info);
             }
         } else {
             assert retCount == 1;
             boolean isList = node.getBraceType().equals("[");
             for (var value : node.getBuilders()) {
-                bytes.addAll(TestConverter.bytes(start + bytes.size(), value, info, 1));
+                TestConverter.convert(bytes, value, info, 1);
             }
-            bytes.add((isList ? Bytecode.LIST_CREATE : Bytecode.SET_CREATE).value);
-            bytes.addAll(Util.shortToBytes((short) node.getBuilders().length));
+            bytes.emit(isList ? Bytecode.LIST_CREATE : Bytecode.SET_CREATE, node.getBuilders().length);
         }
-        return bytes;
     }
 
     @NotNull
@@ -2,8 +2,6 @@ package main.java.converter;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 public abstract class LoopConverter implements BaseConverter {
     protected final CompilerInfo info;
     private boolean hasContinue;
@@ -17,16 +15,14 @@ public abstract class LoopConverter implements BaseConverter {
         this.hasContinue = hasContinue;
     }
 
-    @NotNull
     @Override
-    public final List<Byte> convert(int start) {
+    public final void convert(@NotNull BytecodeWriter bytes) {
         info.loopManager().enterLoop(hasContinue);
         info.addStackFrame();
-        var bytes = trueConvert(start);
-        info.loopManager().exitLoop(start, bytes);
+        trueConvert(bytes);
+        info.loopManager().exitLoop(bytes);
         info.removeStackFrame();
-        return bytes;
     }
 
-    protected abstract List<Byte> trueConvert(int start);
+    protected abstract void trueConvert(@NotNull BytecodeWriter bytes);
 }
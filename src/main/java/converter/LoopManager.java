@@ -3,86 +3,101 @@ package main.java.converter;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayDeque;
-import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 public final class LoopManager {
-    private Deque<Boolean> loopLevel = new ArrayDeque<>();
-    private Map<Integer, Set<Integer>> breakPointers = new HashMap<>();
-    private Map<Integer, Set<Integer>> continuePointers = new HashMap<>();
-    private Deque<Integer> continueLocations = new ArrayDeque<>();
+    private Deque<Loop> loops = new ArrayDeque<>();
 
     /**
      * Enter another loop, implying another level of break/continue statements.
      */
     public void enterLoop(boolean hasContinue) {
-        loopLevel.push(hasContinue);
-        continueLocations.push(-1);
-        assert continueLocations.size() == loopLevel.size();
+        loops.push(new Loop(hasContinue));
     }
 
     /**
-     * Exit a loop, and set all dangling pointers to the end of the loop.
+     * Exit a loop, and bind its break label to the end of the loop.
      *
-     * @param listStart The index of the beginning of the list relative to the
-     *                  start of the function
-     * @param bytes The list of bytes
+     * @param bytes The bytes of the function, ending with the loop
      */
-    public void exitLoop(int listStart, @NotNull List<Byte> bytes) {
-        int level = loopLevel.size();
-        boolean hasContinue = loopLevel.pop();
-        int endLoop = listStart + bytes.size();
-        for (int i : breakPointers.getOrDefault(level, Collections.emptySet())) {
-            Util.emplace(bytes, Util.intToBytes(endLoop), i - listStart);
-        }
-        breakPointers.remove(level);
-        int continueLocation = continueLocations.pop();
-        if (hasContinue) {
-            assert continueLocation != -1 : "Continue location not defined";
-            for (int i : continuePointers.getOrDefault(level, Collections.emptySet())) {
-                Util.emplace(bytes, Util.intToBytes(continueLocation), i - listStart);
-            }
-            continuePointers.remove(level);
-        } else {
-            assert continueLocation == -1 : "Continue location erroneously set";
-        }
+    public void exitLoop(@NotNull BytecodeWriter bytes) {
+        var loop = loops.pop();
+        assert loop.continueLabel == null || loop.continueLabel.isBound() : "Continue location not defined";
+        bytes.bind(loop.breakLabel);
     }
 
     /**
-     * Add a break statement to the pool of un-linked statements.
+     * The number of loops currently entered.
      *
-     * @param levels The number of levels to break
-     * @param location The location (absolute, by start of function)
+     * @return The number of loops
+     */
+    public int loopCount() {
+        return loops.size();
+    }
+
+    /**
+     * Whether or not any loop currently entered can be continued.
+     *
+     * @return If there is a loop to continue
      */
-    public void addBreak(int levels, int location) {
-        var pointerSet = breakPointers.computeIfAbsent(loopLevel.size() - levels + 1, k -> new HashSet<>());
-        pointerSet.add(location);
+    public boolean canContinue() {
+        for (var loop : loops) {
+            if (loop.continueLabel != null) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Add a continue statement's pointer to the list.
+     * The label a break statement should jump to.
+     * <p>
+     *     Whether there are enough loops to break should be checked with
+     *     {@link #loopCount()} first, as it depends on the code being
+     *     compiled.
+     * </p>
      *
-     * @param location The location (absolute, by start of function)
+     * @param levels The number of levels to break
+     * @return The label of the end of the loop
      */
-    public void addContinue(int location) {
-        var pointerSet = continuePointers.computeIfAbsent(loopLevel.size(), k -> new HashSet<>());
-        pointerSet.add(location);
+    @NotNull
+    public Label breakLabel(int levels) {
+        if (levels <= 0 || levels > loops.size()) {
+            throw new IllegalStateException("Cannot break " + levels + " levels");
+        }
+        var iterator = loops.iterator();
+        for (int i = 1; i < levels; i++) {
+            iterator.next();
+        }
+        return iterator.next().breakLabel;
     }
 
     /**
-     * Set the point where a {@code continue} statement should jump to.
+     * The label a continue statement should jump to, that of the innermost
+     * loop which can be continued.
+     * <p>
+     *     Whether there is such a loop should be checked with {@link
+     *     #canContinue()} first.
+     * </p>
      *
-     * @param location The location (absolute, by start of function)
+     * @return The label, to be bound by the loop to where it continues
      */
-    public void setContinuePoint(int location) {
-        assert continueLocations.size() == loopLevel.size() : "Mismatch in continue levels";
-        int oldValue = continueLocations.pop();
-        assert oldValue == -1 : "Defined multiple continue points for loop";
-        continueLocations.push(location);
+    @NotNull
+    public Label continueLabel() {
+        for (var loop : loops) {
+            if (loop.continueLabel != null) {
+                return loop.continueLabel;
+            }
+        }
+        throw new IllegalStateException("No loop to continue");
+    }
+
+    private static final class Loop {
+        private final Label breakLabel = new Label();
+        private final Label continueLabel;
+
+        private Loop(boolean hasContinue) {
+            this.continueLabel = hasContinue ? new Label() : null;
+        }
     }
 }
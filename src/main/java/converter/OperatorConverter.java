@@ -4,10 +4,8 @@ import main.java.parser.OperatorNode;
 import main.java.parser.OperatorTypeNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
-import java.util.List;
 import java.util.Map;
 
 public final class OperatorConverter implements TestConverter {
@@ -70,36 +68,38 @@ public final class OperatorConverter implements TestConverter {
             case NOT_EQUALS:
                 return notEqualsReturn();
         }
-        var firstOpConverter = TestConverter.of(info, node.getOperands()[0].getArgument(), 1);
-        var retType = firstOpConverter.returnType()[0].operatorReturnType(node.getOperator());
+        var firstType = TestConverter.returnType(node.getOperands()[0].getArgument(), info, 1)[0];
+        var retType = firstType.operatorReturnType(node.getOperator());
         if (retType == null) {
             throw CompilerInternalError.of("Operator not implemented", node);
         }
         return retType;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
         switch (node.getOperator()) {
             case NULL_COERCE:
-                return convertNullCoerce(start);
+                convertNullCoerce(bytes);
+                return;
             case BOOL_AND:
             case BOOL_OR:
-                return convertBoolOp(start);
+                convertBoolOp(bytes);
+                return;
             case NOT_NULL:
-                return convertNotNull(start);
+                convertNotNull(bytes);
+                return;
             case NOT_EQUALS:
-                return convertNotEquals(start);
+                convertNotEquals(bytes);
+                return;
             case IN:
-                return convertContains(start);
+                convertContains(bytes);
+                return;
         }
         int opCount = node.getOperands().length;
         TypeObject opType = null;
         for (var arg : node.getOperands()) {
-            var converter = TestConverter.of(info, arg.getArgument(), 1);
-            var retTypes = converter.returnType();
+            var retTypes = TestConverter.returnType(arg.getArgument(), info, 1);
             if (retTypes.length == 0) {
                 throw CompilerException.of("Cannot use return type of function with 0 returns", arg);
             }
@@ -111,134 +111,118 @@ public final class OperatorConverter implements TestConverter {
                 );
             }
             opType = opType == null ? retType : opType.operatorReturnType(node.getOperator())[0];
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), arg.getArgument(), info, 1));
+            TestConverter.convert(bytes, arg.getArgument(), info, 1);
         }
         var bytecode = BYTECODE_MAP.get(node.getOperator());
         if (opCount == (node.getOperator().isUnary() ? 1 : 2)) {
-            bytes.add(bytecode.value);
+            bytes.emit(bytecode);
         } else {
             throw new UnsupportedOperationException("Operators with > 2 operands not yet supported");
         }
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
-    @NotNull
-    private List<Byte> convertNullCoerce(int start) {
+    private void convertNullCoerce(@NotNull BytecodeWriter bytes) {
         assert node.getOperator() == OperatorTypeNode.NULL_COERCE;
         var firstConverter = TestConverter.of(info, node.getOperands()[0].getArgument(), 1);
-        if (!firstConverter.returnType()[0].isSuperclass(Builtins.NULL_TYPE)) {  // Non-optional return types won't be null
+        var firstType = TestConverter.returnType(node.getOperands()[0].getArgument(), info, 1)[0];
+        if (!firstType.isSuperclass(Builtins.NULL_TYPE)) {  // Non-optional return types won't be null
             var lineInfo = node.getOperands()[0].getLineInfo();
             CompilerWarning.warn("Using ?? operator on non-optional value", lineInfo);
-            return firstConverter.convert(start);
-        } else if (firstConverter.returnType()[0].equals(Builtins.NULL_TYPE)) {
+            firstConverter.convert(bytes);
+            return;
+        } else if (firstType.equals(Builtins.NULL_TYPE)) {
             var lineInfo = node.getOperands()[0].getLineInfo();
             CompilerWarning.warn("Using ?? operator on value that is always null", lineInfo);
-            return TestConverter.bytes(start, node.getOperands()[1].getArgument(), info, 1);
+            TestConverter.convert(bytes, node.getOperands()[1].getArgument(), info, 1);
+            return;
         }
-        List<Byte> bytes = new ArrayList<>(firstConverter.convert(start));
-        bytes.add(Bytecode.DUP_TOP.value);
-        bytes.add(Bytecode.JUMP_NN.value);
-        addPostJump(start, bytes);
+        firstConverter.convert(bytes);
+        bytes.emit(Bytecode.DUP_TOP);
+        addPostJump(bytes, Bytecode.JUMP_NN);
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
-    @NotNull
-    private List<Byte> convertBoolOp(int start) {
+    private void convertBoolOp(@NotNull BytecodeWriter bytes) {
         assert node.getOperator() == OperatorTypeNode.BOOL_AND || node.getOperator() == OperatorTypeNode.BOOL_OR;
-        List<Byte> bytes = new ArrayList<>();
-        bytes.add(Bytecode.LOAD_CONST.value);
-        bytes.addAll(Util.shortToBytes(info.constIndex(Builtins.constantOf("true"))));
-        bytes.addAll(TestConverter.bytes(start, node.getOperands()[0].getArgument(), info, 1));
-        bytes.add(Bytecode.DUP_TOP.value);
+        bytes.emit(Bytecode.LOAD_CONST, info.constIndex(Builtins.constantOf("true")));
+        TestConverter.convert(bytes, node.getOperands()[0].getArgument(), info, 1);
+        bytes.emit(Bytecode.DUP_TOP);
         var bytecode = node.getOperator() == OperatorTypeNode.BOOL_OR ? Bytecode.JUMP_FALSE : Bytecode.JUMP_TRUE;
-        bytes.add(bytecode.value);
-        addPostJump(start, bytes);
-        bytes.add(Bytecode.CALL_TOS.value);
-        bytes.addAll(Util.shortToBytes((short) 1));
+        addPostJump(bytes, bytecode);
+        bytes.emit(Bytecode.CALL_TOS, 1);
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
-    private void addPostJump(int start, @NotNull List<Byte> bytes) {
-        int jumpPos = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.add(Bytecode.POP_TOP.value);
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getOperands()[1].getArgument(), info, 1));
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jumpPos);
+    private void addPostJump(@NotNull BytecodeWriter bytes, @NotNull Bytecode jump) {
+        var endLabel = new Label();
+        bytes.emitJump(jump, endLabel);
+        bytes.emit(Bytecode.POP_TOP);
+        TestConverter.convert(bytes, node.getOperands()[1].getArgument(), info, 1);
+        bytes.bind(endLabel);
     }
 
-    @NotNull
-    private List<Byte> convertNotNull(int start) {
+    private void convertNotNull(@NotNull BytecodeWriter bytes) {
         assert node.getOperator() == OperatorTypeNode.NOT_NULL;
         var converter = TestConverter.of(info, node.getOperands()[0].getArgument(), 1);
-        List<Byte> bytes = new ArrayList<>(converter.convert(start));
-        if (converter.returnType()[0].equals(Builtins.NULL_TYPE)) {
+        converter.convert(bytes);
+        var type = TestConverter.returnType(node.getOperands()[0].getArgument(), info, 1)[0];
+        if (type.equals(Builtins.NULL_TYPE)) {
             throw CompilerException.of(
                     "Cannot use !! operator on variable on variable with type null",
                     node.getOperands()[0]
             );
-        } else if (converter.returnType()[0].isSuperclass(Builtins.NULL_TYPE)) {
-            bytes.add(Bytecode.DUP_TOP.value);
-            bytes.add(Bytecode.JUMP_NN.value);
-            int jumpPos = bytes.size();
-            bytes.addAll(Util.zeroToBytes());
-            bytes.add(Bytecode.POP_TOP.value);
-            bytes.add(Bytecode.LOAD_CONST.value);
-            bytes.addAll(Util.shortToBytes(info.constIndex(Builtins.constantOf("str"))));  // TODO: Get errors
-            bytes.add(Bytecode.LOAD_CONST.value);
+        } else if (type.isSuperclass(Builtins.NULL_TYPE)) {
+            bytes.emit(Bytecode.DUP_TOP);
+            var notNullLabel = new Label();
+            bytes.emitJump(Bytecode.JUMP_NN, notNullLabel);
+            bytes.emit(Bytecode.POP_TOP);
+            bytes.emit(Bytecode.LOAD_CONST, info.constIndex(Builtins.constantOf("str")));  // TODO: Get errors
             var message = String.format("Value %s asserted non-null, was null", node.getOperands()[0]);
-            bytes.addAll(Util.shortToBytes(info.constIndex(LangConstant.of(message))));
-            bytes.add(Bytecode.THROW_QUICK.value);
-            bytes.addAll(Util.shortToBytes((short) 1));
-            Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jumpPos);
+            bytes.emit(Bytecode.LOAD_CONST, info.constIndex(LangConstant.of(message)));
+            bytes.emit(Bytecode.THROW_QUICK, 1);
+            bytes.bind(notNullLabel);
         } else {
             CompilerWarning.warn("Used !! operator on non-optional value",
                     node.getOperands()[0].getLineInfo());
         }
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
-    @NotNull
-    private List<Byte> convertNotEquals(int start) {
+    private void convertNotEquals(@NotNull BytecodeWriter bytes) {
         int opCount = node.getOperands().length;
         assert opCount == 2 && node.getOperator() == OperatorTypeNode.NOT_EQUALS;
-        List<Byte> bytes = new ArrayList<>(TestConverter.bytes(start, node.getOperands()[0].getArgument(), info, 1));
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getOperands()[1].getArgument(), info, 1));
+        TestConverter.convert(bytes, node.getOperands()[0].getArgument(), info, 1);
+        TestConverter.convert(bytes, node.getOperands()[1].getArgument(), info, 1);
         if (opCount == (node.getOperator().isUnary() ? 1 : 2)) {
-            bytes.add(Bytecode.EQUAL.value);
+            bytes.emit(Bytecode.EQUAL);
         } else {
             throw new UnsupportedOperationException("Operators with > 2 operands not yet supported");
         }
-        bytes.add(Bytecode.BOOL_NOT.value);
+        bytes.emit(Bytecode.BOOL_NOT);
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
-    @NotNull
-    private List<Byte> convertContains(int start) {
+    private void convertContains(@NotNull BytecodeWriter bytes) {
         assert node.getOperands().length == 2 && node.getOperator() == OperatorTypeNode.IN;
         var operands = node.getOperands();
-        List<Byte> bytes = new ArrayList<>(TestConverter.bytes(start, operands[0].getArgument(), info, 1));
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), operands[1].getArgument(), info, 1));
-        bytes.add(Bytecode.SWAP_2.value);
-        bytes.add(Bytecode.CONTAINS.value);
+        TestConverter.convert(bytes, operands[0].getArgument(), info, 1);
+        TestConverter.convert(bytes, operands[1].getArgument(), info, 1);
+        bytes.emit(Bytecode.SWAP_2);
+        bytes.emit(Bytecode.CONTAINS);
         if (retCount == 0) {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        return bytes;
     }
 
     @NotNull
@@ -262,8 +246,8 @@ public final class OperatorConverter implements TestConverter {
 
     @NotNull
     public TypeObject[] notEqualsReturn() {
-        var firstOpConverter = TestConverter.of(info, node.getOperands()[0].getArgument(), 1);
-        var retType = firstOpConverter.returnType()[0].operatorReturnType(node.getOperator());
+        var firstType = TestConverter.returnType(node.getOperands()[0].getArgument(), info, 1)[0];
+        var retType = firstType.operatorReturnType(node.getOperator());
         if (retType == null) {
             throw CompilerInternalError.of("Operator != not implemented", node);
         }
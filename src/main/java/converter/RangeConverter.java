@@ -4,10 +4,6 @@ import main.java.parser.RangeLiteralNode;
 import main.java.parser.TestNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 public final class RangeConverter implements TestConverter {
     private RangeLiteralNode node;
     private CompilerInfo info;
@@ -25,39 +21,34 @@ public final class RangeConverter implements TestConverter {
         return new TypeObject[] {Builtins.RANGE};
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         if (retCount == 0) {
             CompilerWarning.warn("Range literal creation has unused result", node);
-            return Collections.emptyList();
+            return;
         }
-        List<Byte> bytes = new ArrayList<>();
-        bytes.add(Bytecode.LOAD_CONST.value);
         var constant = info.constIndex(Builtins.constantOf("range"));
-        bytes.addAll(Util.shortToBytes(constant));
-        convertPortion(start, bytes, node.getStart(), 0);
-        convertPortion(start, bytes, node.getEnd(), 0);
-        convertPortion(start, bytes, node.getStep(), 1);
-        bytes.add(Bytecode.CALL_TOS.value);
-        bytes.addAll(Util.shortToBytes((short) 3));
-        return bytes;
+        bytes.emit(Bytecode.LOAD_CONST, constant);
+        convertPortion(bytes, node.getStart(), 0);
+        convertPortion(bytes, node.getEnd(), 0);
+        convertPortion(bytes, node.getStep(), 1);
+        bytes.emit(Bytecode.CALL_TOS, 3);
     }
 
-    private void convertPortion(int start, List<Byte> bytes, @NotNull TestNode node, int defaultVal) {
+    private void convertPortion(BytecodeWriter bytes, @NotNull TestNode node, int defaultVal) {
         if (!node.isEmpty()) {
             var converter = TestConverter.of(info, node, 1);
-            if (!Builtins.INT.isSuperclass(converter.returnType()[0])) {
+            var type = TestConverter.returnType(node, info, 1)[0];
+            if (!Builtins.INT.isSuperclass(type)) {
                 throw CompilerException.format(
                         "TypeError: Type %s does not match required type %s",
-                        node, converter.returnType()[0].name(), Builtins.INT.name()
+                        node, type.name(), Builtins.INT.name()
                 );
             }
-            bytes.addAll(converter.convert(start));
+            converter.convert(bytes);
         } else {
             var constIndex = info.constIndex(LangConstant.of(defaultVal));
-            bytes.add(Bytecode.LOAD_CONST.value);
-            bytes.addAll(Util.shortToBytes(constIndex));
+            bytes.emit(Bytecode.LOAD_CONST, constIndex);
         }
     }
 }
@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.ReturnStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class ReturnConverter implements BaseConverter {
     private ReturnStatementNode node;
     private CompilerInfo info;
@@ -15,24 +12,20 @@ public final class ReturnConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    public void convert(@NotNull BytecodeWriter bytes) {
         checkReturnTypes();
         if (!node.getCond().isEmpty()) {
-            bytes.addAll(TestConverter.bytes(start, node.getCond(), info, 1));
-            var returnBytes = TestConverter.bytes(start, node.getReturned().get(0), info, node.getReturned().size());
-            int jumpTarget = start + bytes.size() + Bytecode.JUMP_FALSE.size() + returnBytes.size() + Bytecode.RETURN.size();
-            bytes.add(Bytecode.JUMP_FALSE.value);
-            bytes.addAll(Util.intToBytes(jumpTarget));
-            bytes.addAll(returnBytes);
+            TestConverter.convert(bytes, node.getCond(), info, 1);
+            var endLabel = new Label();
+            bytes.emitJump(Bytecode.JUMP_FALSE, endLabel);
+            TestConverter.convert(bytes, node.getReturned().get(0), info, node.getReturned().size());
+            bytes.emit(Bytecode.RETURN, node.getReturned().size());
+            bytes.bind(endLabel);
         } else {
-            bytes.addAll(TestConverter.bytes(start, node.getReturned().get(0), info, node.getReturned().size()));
+            TestConverter.convert(bytes, node.getReturned().get(0), info, node.getReturned().size());
+            bytes.emit(Bytecode.RETURN, node.getReturned().size());
         }
-        bytes.add(Bytecode.RETURN.value);
-        bytes.addAll(Util.shortToBytes((short) node.getReturned().size()));
-        return bytes;
     }
 
     private void checkReturnTypes() {
@@ -3,10 +3,6 @@ package main.java.converter;
 import main.java.parser.StringNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 public final class StringConverter implements ConstantConverter {
     private CompilerInfo info;
     private StringNode node;
@@ -18,18 +14,14 @@ public final class StringConverter implements ConstantConverter {
         this.retCount = retCount;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         if (retCount == 0) {
             CompilerWarning.warn("String literal unused", node);
-            return Collections.emptyList();
+            return;
         }
         int constIndex = info.addConstant(constant());
-        List<Byte> bytes = new ArrayList<>();
-        bytes.add(Bytecode.LOAD_CONST.value);
-        bytes.addAll(Util.shortToBytes((short) constIndex));
-        return bytes;
+        bytes.emit(Bytecode.LOAD_CONST, constIndex);
     }
 
     @NotNull
@@ -6,9 +6,6 @@ import main.java.parser.SwitchStatementNode;
 import main.java.parser.TestNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class SwitchConverter extends LoopConverter implements TestConverter {
     private SwitchStatementNode node;
     private int retCount;  // TODO: Make switch expressions work
@@ -19,14 +16,11 @@ public final class SwitchConverter extends LoopConverter implements TestConverte
         this.retCount = retCount;
     }
 
-    @NotNull
-    public List<Byte> trueConvert(int start) {
-        var switched = TestConverter.bytes(start, node.getSwitched(), info, 1);
-        List<Byte> bytes = new ArrayList<>(switched);
+    public void trueConvert(@NotNull BytecodeWriter bytes) {
+        TestConverter.convert(bytes, node.getSwitched(), info, 1);
         for (var caseStatement : node.getCases()) {
-            addCase(caseStatement, start, bytes);
+            addCase(caseStatement, bytes);
         }
-        return bytes;
     }
 
     @NotNull
@@ -49,40 +43,33 @@ public final class SwitchConverter extends LoopConverter implements TestConverte
         return finalTypes;
     }
 
-    private void addCase(@NotNull CaseStatementNode stmt, int start, @NotNull List<Byte> bytes) {
+    private void addCase(@NotNull CaseStatementNode stmt, @NotNull BytecodeWriter bytes) {
         // TODO: Ensure 'default' statement is at the end
         var label = stmt.getLabel();
-        List<Integer> jumpLocations = new ArrayList<>(label.length);
+        var nextCase = new Label();
         if (!(stmt instanceof DefaultStatementNode)) {
             assert label.length != 0;
             if (label.length == 1) {
-                bytes.add(Bytecode.DUP_TOP.value);
-                bytes.addAll(TestConverter.bytes(start + bytes.size(), label[0], info, 1));
-                bytes.add(Bytecode.EQUAL.value);
-                bytes.add(Bytecode.JUMP_FALSE.value);
-                jumpLocations.add(bytes.size());
-                bytes.addAll(Util.zeroToBytes());
-                bytes.add(Bytecode.POP_TOP.value);
+                bytes.emit(Bytecode.DUP_TOP);
+                TestConverter.convert(bytes, label[0], info, 1);
+                bytes.emit(Bytecode.EQUAL);
+                bytes.emitJump(Bytecode.JUMP_FALSE, nextCase);
+                bytes.emit(Bytecode.POP_TOP);
             } else {
                 throw new UnsupportedOperationException("Multiple clauses in switch not supported yet");
             }
         } else {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
         if (stmt.isArrow()) {
-            bytes.addAll(TestConverter.bytes(start + bytes.size(), (TestNode) stmt.getBody().get(0), info, retCount));
+            TestConverter.convert(bytes, (TestNode) stmt.getBody().get(0), info, retCount);
         } else {
             if (retCount > 0) {
                 throw new UnsupportedOperationException("Statements requiring 'break as' not supported yet");
             }
-            bytes.addAll(BaseConverter.bytes(start + bytes.size(), stmt.getBody(), info));
-        }
-        bytes.add(Bytecode.JUMP.value);
-        info.addBreak(1, start + bytes.size());
-        bytes.addAll(Util.zeroToBytes());
-        var endCase = Util.intToBytes(start + bytes.size());
-        for (var jumpLoc : jumpLocations) {
-            Util.emplace(bytes, endCase, jumpLoc);
+            BaseConverter.convert(bytes, stmt.getBody(), info);
         }
+        bytes.emitJump(Bytecode.JUMP, info.breakLabel(1));
+        bytes.bind(nextCase);
     }
 }
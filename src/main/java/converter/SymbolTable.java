@@ -0,0 +1,110 @@
+package main.java.converter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The variables in scope at a point in a module, by name.
+ * <p>
+ *     Each name is interned once as a {@link Symbol}, which points straight
+ *     to the variable it currently means; declaring it again in an inner
+ *     scope shadows that, and leaving the scope puts it back. Looking a name
+ *     up therefore takes one lookup in a hash map however deeply scopes are
+ *     nested, and entering and leaving a scope costs no more than the
+ *     variables declared in it.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see CompilerInfo#addStackFrame()
+ */
+final class SymbolTable {
+    private final Map<String, Symbol> symbols = new HashMap<>();
+    private final List<List<Symbol>> scopes = new ArrayList<>();
+
+    void enterScope() {
+        scopes.add(new ArrayList<>());
+    }
+
+    /**
+     * Leave the innermost scope, so that every name declared in it means
+     * what it did before.
+     *
+     * @return The variables declared in the scope
+     */
+    @NotNull
+    List<VariableInfo> exitScope() {
+        var scope = scopes.remove(scopes.size() - 1);
+        List<VariableInfo> result = new ArrayList<>(scope.size());
+        for (int i = scope.size() - 1; i >= 0; i--) {
+            var symbol = scope.get(i);
+            result.add(symbol.binding.info);
+            symbol.binding = symbol.binding.shadowed;
+        }
+        return result;
+    }
+
+    /**
+     * Declare a variable in the innermost scope, replacing one of the same
+     * name already declared there.
+     *
+     * @param name The name of the variable
+     * @param info The variable
+     */
+    void declare(String name, VariableInfo info) {
+        assert !scopes.isEmpty() : "No scope to declare " + name + " in";
+        var symbol = symbols.computeIfAbsent(name, Symbol::new);
+        int depth = scopes.size();
+        if (symbol.binding != null && symbol.binding.depth == depth) {
+            symbol.binding.info = info;
+        } else {
+            symbol.binding = new Binding(info, depth, symbol.binding);
+            scopes.get(depth - 1).add(symbol);
+        }
+    }
+
+    /**
+     * The variable a name means in the innermost scope.
+     *
+     * @param name The name of the variable
+     * @return The variable, or {@code null} if it is not declared
+     */
+    @Nullable
+    VariableInfo lookup(String name) {
+        var symbol = symbols.get(name);
+        return symbol == null || symbol.binding == null ? null : symbol.binding.info;
+    }
+
+    private static final class Symbol {
+        private final String name;
+        private Binding binding;
+
+        Symbol(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * A declaration of a symbol, and the one it shadows in an outer scope.
+     */
+    private static final class Binding {
+        private VariableInfo info;
+        private final int depth;
+        private final Binding shadowed;
+
+        Binding(VariableInfo info, int depth, Binding shadowed) {
+            this.info = info;
+            this.depth = depth;
+            this.shadowed = shadowed;
+        }
+    }
+}
@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.TernaryNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class TernaryConverter implements TestConverter {
     private TernaryNode node;
     private CompilerInfo info;
@@ -20,25 +17,21 @@ public final class TernaryConverter implements TestConverter {
     @NotNull
     @Override
     public TypeObject[] returnType() {
-        var ifTrue = TestConverter.of(info, node.getIfTrue(), retCount);
-        var ifFalse = TestConverter.of(info, node.getIfFalse(), retCount);
-        return new TypeObject[] {TypeObject.union(ifTrue.returnType()[0], ifFalse.returnType()[0])};
+        var ifTrue = TestConverter.returnType(node.getIfTrue(), info, retCount)[0];
+        var ifFalse = TestConverter.returnType(node.getIfFalse(), info, retCount)[0];
+        return new TypeObject[] {TypeObject.union(ifTrue, ifFalse)};
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>(TestConverter.bytes(start, node.getStatement(), info, 1));
-        bytes.add(Bytecode.JUMP_FALSE.value);
-        int jump1 = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getIfTrue(), info, retCount));
-        bytes.add(Bytecode.JUMP.value);
-        int jump2 = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jump1);
-        bytes.addAll(TestConverter.bytes(start + bytes.size(), node.getIfFalse(), info, 1));
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), jump2);
-        return bytes;
+    public void convert(@NotNull BytecodeWriter bytes) {
+        TestConverter.convert(bytes, node.getStatement(), info, 1);
+        var falseLabel = new Label();
+        var endLabel = new Label();
+        bytes.emitJump(Bytecode.JUMP_FALSE, falseLabel);
+        TestConverter.convert(bytes, node.getIfTrue(), info, retCount);
+        bytes.emitJump(Bytecode.JUMP, endLabel);
+        bytes.bind(falseLabel);
+        TestConverter.convert(bytes, node.getIfFalse(), info, 1);
+        bytes.bind(endLabel);
     }
 }
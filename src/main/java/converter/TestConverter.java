@@ -19,20 +19,39 @@ import main.java.parser.TestNode;
 import main.java.parser.VariableNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 public interface TestConverter extends BaseConverter {
     @NotNull
     TypeObject[] returnType();
 
-    @NotNull
-    static List<Byte> bytes(int start, @NotNull TestNode node, CompilerInfo info, int retCount) {
-        return of(info, node, retCount).convert(start);
+    static void convert(@NotNull BytecodeWriter bytes, @NotNull TestNode node, CompilerInfo info, int retCount) {
+        of(info, node, retCount).convert(bytes);
     }
 
+    /**
+     * The type of an expression, computed once per stack frame.
+     * <p>
+     *     Converters compute the types of their operands both to check them
+     *     and to compute their own, so an expression's type is asked for many
+     *     times over, and computing it afresh each time would take time
+     *     exponential in how deeply it is nested. Converters should get the
+     *     types of other nodes through here rather than from a converter of
+     *     their own.
+     * </p>
+     *
+     * @param node The expression
+     * @param info The compiler info
+     * @param retCount The number of values the expression is to return
+     * @return The type of the expression
+     * @see CompilerInfo#cachedReturnType
+     */
     @NotNull
-    static TypeObject[] returnType(TestNode node, CompilerInfo info, int retCount) {
-        return of(info, node, retCount).returnType();
+    static TypeObject[] returnType(@NotNull TestNode node, @NotNull CompilerInfo info, int retCount) {
+        var types = info.cachedReturnType(node, retCount);
+        if (types == null) {
+            types = of(info, node, retCount).returnType();
+            info.cacheReturnType(node, retCount, types);
+        }
+        return types;
     }
 
     @NotNull
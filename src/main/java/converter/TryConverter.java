@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.TryStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class TryConverter implements BaseConverter {
     private TryStatementNode node;
     private CompilerInfo info;
@@ -15,55 +12,36 @@ public final class TryConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
-        List<Byte> bytes = new ArrayList<>();
-        bytes.add(Bytecode.ENTER_TRY.value);
-        var jump0 = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getBody(), info));
-        bytes.add(Bytecode.JUMP.value);
-        var jump1 = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        Util.emplace(bytes, Util.intToBytes(bytes.size()), jump0);
+    public void convert(@NotNull BytecodeWriter bytes) {
+        var exceptLabel = new Label();
+        var endLabel = new Label();
+        bytes.emitJump(Bytecode.ENTER_TRY, exceptLabel);
+        BaseConverter.convert(bytes, node.getBody(), info);
+        bytes.emitJump(Bytecode.JUMP, endLabel);
+        bytes.bind(exceptLabel);
         for (var except : node.getExcepted()) {
-            bytes.add(Bytecode.EXCEPT_N.value);
             var constIndex = info.constIndex(info.getType(except).name());
-            bytes.addAll(Util.shortToBytes(constIndex));
+            bytes.emit(Bytecode.EXCEPT_N, constIndex);
         }
         if (!node.getAsVar().isEmpty()) {
             info.addVariable(node.getAsVar().getName(), TypeObject.union(info.typesOf(node.getExcepted())));
-            bytes.add(Bytecode.STORE.value);
-            bytes.addAll(Util.shortToBytes(info.varIndex(node.getAsVar().getName())));
+            bytes.emit(Bytecode.STORE, info.varIndex(node.getAsVar().getName()));
         } else {
-            bytes.add(Bytecode.POP_TOP.value);
+            bytes.emit(Bytecode.POP_TOP);
         }
-        bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getExcept(), info));
-        bytes.add(Bytecode.JUMP.value);
-        var jump2 = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
+        BaseConverter.convert(bytes, node.getExcept(), info);
+        bytes.emitJump(Bytecode.JUMP, endLabel);
         if (!node.getFinallyStmt().isEmpty()) {
-            int jump3;
             if (node.getExcepted().length > 0) {
-                bytes.add(Bytecode.JUMP.value);
-                jump3 = bytes.size();
-                bytes.addAll(Util.zeroToBytes());
-            } else {
-                jump3 = -1;
-            }
-            bytes.add(Bytecode.FINALLY.value);
-            bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getFinallyStmt(), info));
-            if (jump3 != -1) {
-                Util.emplace(bytes, Util.intToBytes(bytes.size()), jump2);
+                bytes.emitJump(Bytecode.JUMP, new Label());
             }
+            bytes.emit(Bytecode.FINALLY);
+            BaseConverter.convert(bytes, node.getFinallyStmt(), info);
             // Work out some kinks first
             throw new UnsupportedOperationException("Finally not implemented yet");
         }
-        Util.emplace(bytes, Util.intToBytes(bytes.size()), jump1);
-        Util.emplace(bytes, Util.intToBytes(bytes.size()), jump2);
-        bytes.add(Bytecode.END_TRY.value);
-        bytes.addAll(Util.intToBytes(node.getExcepted().length));
-        return bytes;
+        bytes.bind(endLabel);
+        bytes.emit(Bytecode.END_TRY, node.getExcepted().length);
     }
 }
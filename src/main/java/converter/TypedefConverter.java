@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.TypedefStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
-import java.util.List;
-
 public final class TypedefConverter implements BaseConverter {
     private TypedefStatementNode node;
     private CompilerInfo info;
@@ -15,12 +12,10 @@ public final class TypedefConverter implements BaseConverter {
         this.info = info;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {  // TODO: Recursive references in typedef
+    public void convert(@NotNull BytecodeWriter bytes) {  // TODO: Recursive references in typedef
         var type = new TypedefType(node.getName().strName(), info.getType(node.getType()));
         info.addType(type);
         info.addVariable(type.name(), type);
-        return Collections.emptyList();
     }
 }
@@ -24,27 +24,6 @@ public final class Util {
         );
     }
 
-    private static final List<Byte> ZERO_INT_BYTES = List.of((byte) 0, (byte) 0, (byte) 0, (byte) 0);
-
-    static List<Byte> zeroToBytes() {
-        return ZERO_INT_BYTES;
-    }
-
-    private static final List<Byte> ZERO_SHORT_BYTES = List.of((byte) 0, (byte) 0);
-
-    static List<Byte> shortZeroBytes() {
-        return ZERO_SHORT_BYTES;
-    }
-
-    @NotNull
-    @Contract(pure = true)
-    static List<Byte> shortToBytes(short value) {
-        return List.of(
-                (byte) (value >>> 8),
-                (byte) value
-        );
-    }
-
     @NotNull
     @Contract(value = "_ -> new", pure = true)
     static byte[] toByteArray(int value) {
@@ -73,10 +52,4 @@ public final class Util {
         }
         return bytes;
     }
-
-    static void emplace(List<Byte> original, @NotNull List<Byte> toInsert, int start) {
-        for (int i = 0; i < toInsert.size(); i++) {
-            original.set(start + i, toInsert.get(i));
-        }
-    }
 }
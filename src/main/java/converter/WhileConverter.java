@@ -3,9 +3,6 @@ package main.java.converter;
 import main.java.parser.WhileStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class WhileConverter extends LoopConverter {
     private WhileStatementNode node;
 
@@ -14,26 +11,20 @@ public final class WhileConverter extends LoopConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    protected List<Byte> trueConvert(int start) {
-        List<Byte> bytes = new ArrayList<>();
+    protected void trueConvert(@NotNull BytecodeWriter bytes) {
         // While loop starts by jumping to condition, use the fact that a
         // continue statement does the same
-        bytes.add(Bytecode.JUMP.value);
-        info.addContinue(start + 1);
-        bytes.addAll(Util.zeroToBytes());
-        var body = BaseConverter.bytes(start + bytes.size(), node.getBody(), info);
-        bytes.addAll(body);
-        info.setContinuePoint(start + bytes.size());
-        var cond = TestConverter.bytes(start + bytes.size(), node.getCond(), info, 1);
-        bytes.addAll(cond);
-        bytes.add(Bytecode.JUMP_TRUE.value);
-        bytes.addAll(Util.intToBytes(start + Bytecode.JUMP.size()));
+        var continueLabel = info.continueLabel();
+        bytes.emitJump(Bytecode.JUMP, continueLabel);
+        var bodyStart = new Label();
+        bytes.bind(bodyStart);
+        BaseConverter.convert(bytes, node.getBody(), info);
+        bytes.bind(continueLabel);
+        TestConverter.convert(bytes, node.getCond(), info, 1);
+        bytes.emitJump(Bytecode.JUMP_TRUE, bodyStart);
         if (!node.getNobreak().isEmpty()) {
-            var nobreak = BaseConverter.bytes(start + bytes.size(), node.getNobreak(), info);
-            bytes.addAll(nobreak);
+            BaseConverter.convert(bytes, node.getNobreak(), info);
         }
-        return bytes;
     }
 }
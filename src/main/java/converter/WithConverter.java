@@ -4,9 +4,6 @@ import main.java.parser.OpSpTypeNode;
 import main.java.parser.WithStatementNode;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class WithConverter implements BaseConverter {
     private WithStatementNode node;
     private CompilerInfo info;
@@ -16,16 +13,16 @@ public final class WithConverter implements BaseConverter {
         this.node = node;
     }
 
-    @NotNull
     @Override
-    public List<Byte> convert(int start) {
+    public void convert(@NotNull BytecodeWriter bytes) {
         assert node.getManaged().size() == 1;
         assert node.getVars().length == 1;
         info.addStackFrame();
         var contextConverter = TestConverter.of(info, node.getManaged().get(0), 1);
         var variable = node.getVars()[0];
         var valueType = node.getVars()[0].getType();
-        var returnType = contextConverter.returnType()[0].operatorReturnType(OpSpTypeNode.ENTER)[0];
+        var contextType = TestConverter.returnType(node.getManaged().get(0), info, 1)[0];
+        var returnType = contextType.operatorReturnType(OpSpTypeNode.ENTER)[0];
         var trueType = valueType.isDecided() ? info.getType(valueType) : returnType;
         if (!trueType.isSuperclass(returnType)) {
             throw CompilerException.format(
@@ -34,25 +31,17 @@ public final class WithConverter implements BaseConverter {
                     node, returnType.name(), trueType.name()
             );
         }
-        List<Byte> bytes = new ArrayList<>(contextConverter.convert(start));
+        contextConverter.convert(bytes);
         info.addVariable(variable.getVariable().getName(), trueType);
-        bytes.add(Bytecode.DUP_TOP.value);
-        bytes.add(Bytecode.CALL_OP.value);
-        bytes.addAll(Util.shortToBytes((short) OpSpTypeNode.ENTER.ordinal()));
-        bytes.addAll(Util.shortZeroBytes());
-        bytes.add(Bytecode.STORE.value);
-        bytes.addAll(Util.shortToBytes(info.varIndex(variable.getVariable().getName())));
-        bytes.add(Bytecode.ENTER_TRY.value);
-        var tryJump = bytes.size();
-        bytes.addAll(Util.zeroToBytes());
-        bytes.addAll(BaseConverter.bytes(start + bytes.size(), node.getBody(), info));
-        Util.emplace(bytes, Util.intToBytes(start + bytes.size()), tryJump);
-        bytes.add(Bytecode.FINALLY.value);
-        bytes.add(Bytecode.CALL_OP.value);
-        bytes.addAll(Util.shortToBytes((short) OpSpTypeNode.EXIT.ordinal()));
-        bytes.addAll(Util.shortZeroBytes());
-        bytes.add(Bytecode.END_TRY.value);
-        bytes.addAll(Util.shortZeroBytes());
-        return bytes;
+        bytes.emit(Bytecode.DUP_TOP);
+        bytes.emit(Bytecode.CALL_OP, OpSpTypeNode.ENTER.ordinal(), 0);
+        bytes.emit(Bytecode.STORE, info.varIndex(variable.getVariable().getName()));
+        var finallyLabel = new Label();
+        bytes.emitJump(Bytecode.ENTER_TRY, finallyLabel);
+        BaseConverter.convert(bytes, node.getBody(), info);
+        bytes.bind(finallyLabel);
+        bytes.emit(Bytecode.FINALLY);
+        bytes.emit(Bytecode.CALL_OP, OpSpTypeNode.EXIT.ordinal(), 0);
+        bytes.emit(Bytecode.END_TRY, 0);
     }
 }
@@ -0,0 +1,169 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The nodes of a parsed file packed into a flat array of bytes, for keeping
+ * many files in memory at once.
+ * <p>
+ *     Each top-level statement is encoded on its own by {@link NodeCodec},
+ *     so that it can be recreated without any of the others. Strings and
+ *     line info are stored in place, rather than as objects of their own,
+ *     and there are no objects per node at all.
+ * </p>
+ * <p>
+ *     Statements are recreated as ordinary nodes, through their
+ *     constructors, when the file is {@link #iterator() iterated over}, so
+ *     the converter sees no difference. A recreated statement is held, and
+ *     handed out again on the next pass, until the arena is {@link #release
+ *     released}, which the compiler does once it has converted the file;
+ *     after that, each statement is recreated whenever it is reached and
+ *     nothing keeps it, so only the files being converted are ever in
+ *     memory as objects.
+ * </p>
+ * <p>
+ *     The same trees can be packed as can be {@link AstCache cached}: those
+ *     holding anything else, such as a kind of node with no encoding, or
+ *     too large to fit in an array, are {@link #compact left alone}.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see TopNode
+ */
+public final class AstArena implements Iterable<IndependentNode> {
+    private final SourceFile source;
+    private final byte[] data;
+    private final int[] starts;
+    private IndependentNode[] held;
+
+    private AstArena(SourceFile source, byte[] data, int[] starts) {
+        this.source = source;
+        this.data = data;
+        this.starts = starts;
+        this.held = new IndependentNode[starts.length - 1];
+    }
+
+    /**
+     * Pack a parsed file into an arena.
+     * <p>
+     *     The result iterates over the same statements as the original, but
+     *     recreates each one when it is needed; see {@link AstArena}. If the
+     *     tree holds anything which cannot be packed, the original is
+     *     returned as it is.
+     * </p>
+     *
+     * @param node The parsed file
+     * @return The packed file, or the original
+     */
+    @NotNull
+    public static TopNode compact(@NotNull TopNode node) {
+        if (node.isCompact()) {
+            return node;
+        }
+        List<IndependentNode> statements = node.getNodes();
+        SourceFile source = mainSource(statements);
+        NodeCodec.Writer writer = new NodeCodec.Writer(source);
+        int[] starts = new int[statements.size() + 1];
+        int i = 0;
+        try {
+            for (IndependentNode statement : statements) {
+                writer.forgetShared();
+                writer.node(statement);
+                starts[++i] = writer.size();
+            }
+        } catch (NodeCodec.UnencodableException e) {
+            return node;
+        }
+        return new TopNode(node.getPath(), new AstArena(source, writer.toByteArray(), starts));
+    }
+
+    /**
+     * The number of top-level statements in the file.
+     *
+     * @return The number of statements
+     */
+    public int size() {
+        return starts.length - 1;
+    }
+
+    /**
+     * A top-level statement of the file, recreated unless it is held.
+     *
+     * @param index The index of the statement
+     * @return The statement
+     */
+    @NotNull
+    public IndependentNode statement(int index) {
+        IndependentNode statement = held == null ? null : held[index];
+        if (statement == null) {
+            NodeCodec.Reader reader = new NodeCodec.Reader(data, starts[index], starts[index + 1], source);
+            statement = reader.node(IndependentNode.class);
+            assert statement != null && reader.atEnd();
+            if (held != null) {
+                held[index] = statement;
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Stop holding the statements recreated so far, and any recreated from
+     * now on, so that they take up no memory once nothing else refers to
+     * them.
+     */
+    public void release() {
+        held = null;
+    }
+
+    /**
+     * The number of bytes taken up by the arrays of the arena, not counting
+     * the statements held after being recreated, or the text of the file.
+     *
+     * @return The size of the arena
+     */
+    public long byteSize() {
+        return data.length + Integer.BYTES * (long) starts.length;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<IndependentNode> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size();
+            }
+
+            @Override
+            public IndependentNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return statement(next++);
+            }
+        };
+    }
+
+    /**
+     * The source of the file the statements were parsed from, which the
+     * line info of nearly every node refers to, and so is not stored with
+     * each.
+     */
+    @Nullable
+    private static SourceFile mainSource(@NotNull List<IndependentNode> statements) {
+        for (IndependentNode statement : statements) {
+            LineInfo info = statement.getLineInfo();
+            if (info != null && info != LineInfo.empty()) {
+                return info.getSource();
+            }
+        }
+        return null;
+    }
+}
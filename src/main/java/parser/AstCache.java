@@ -0,0 +1,365 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A cache of parsed files on disk, so that files which have not changed
+ * since they were last compiled are not tokenized and parsed again.
+ * <p>
+ *     Each entry is the {@link TopNode} of a file in a compact binary form,
+ *     in a file named after a hash of the text of the file and of the
+ *     version of the parser, so that editing either one misses the cache.
+ *     Entries are read back through a memory map.
+ * </p>
+ * <p>
+ *     The tree is encoded by {@link NodeCodec}, and read back through the
+ *     constructors of its nodes. The table of lines of the file is stored,
+ *     but not its text, which the file itself provides. A tree which cannot
+ *     be encoded, such as one holding a kind of node with no encoding, is
+ *     simply not cached.
+ * </p>
+ * <p>
+ *     The cache is bounded in size. When it grows past its bound, the
+ *     entries used least recently are removed, going by the time each was
+ *     last modified, which is updated whenever it is used.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see Parser
+ */
+public final class AstCache {
+    private static final int MAGIC = 0x4e415354;  // "NAST"
+    private static final int FORMAT = 2;
+    private static final String EXTENSION = ".nast";
+    private static final int KEY_LENGTH = 32;
+
+    private final Path directory;
+    private final long maxSize;
+    private final byte[] version;
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private AstCache(Path directory, long maxSize, byte[] version) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.version = version;
+    }
+
+    /**
+     * Open the cache in a directory, which is created once there is
+     * something to put in it.
+     *
+     * @param directory The directory of the cache
+     * @param maxSize The number of bytes the entries may take up in total
+     * @return The cache
+     * @throws IOException If the version of the parser, which entries are
+     *                     keyed by, could not be determined
+     */
+    @NotNull
+    public static AstCache open(@NotNull Path directory, long maxSize) throws IOException {
+        AstCache cache = new AstCache(directory, maxSize, version());
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            long[] times = new long[files.length];
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < files.length; i++) {
+                times[i] = files[i].lastModified();
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+            for (int i : order) {
+                cache.add(files[i].getName(), files[i].length());
+            }
+            cache.evict();
+        }
+        return cache;
+    }
+
+    /**
+     * Parse a file, or load it from the cache if it has already been parsed
+     * in its current form.
+     * <p>
+     *     Errors are thrown exactly as by {@link Parser#parse(File)}, and a
+     *     file which fails to parse is not cached.
+     * </p>
+     *
+     * @param f The file to parse
+     * @return The parsed file
+     */
+    @NotNull
+    public TopNode parse(@NotNull File f) {
+        return parse(f, false);
+    }
+
+    /**
+     * Parse a file, optionally tokenizing it on a separate thread, or load
+     * it from the cache if it has already been parsed in its current form.
+     * @param f The file to parse
+     * @param pipelined Whether or not to tokenize on a separate thread
+     * @return The parsed file
+     * @see #parse(File)
+     */
+    @NotNull
+    public TopNode parse(@NotNull File f, boolean pipelined) {
+        Path path = f.toPath();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (FileSystemException e) {
+            throw new ParserException("File not found", e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        String text = new String(bytes, Charset.defaultCharset());
+        byte[] key = key(bytes);
+        String name = name(key);
+        TopNode node = load(name, key, path, text);
+        if (node != null) {
+            return node;
+        }
+        TokenList tokens = Tokenizer.tokens(text, path, pipelined);
+        node = Parser.parse(path, tokens);
+        store(name, key, node, tokens.source());
+        return node;
+    }
+
+    @Nullable
+    private TopNode load(String name, byte[] key, Path path, String text) {
+        Path file = directory.resolve(name);
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return null;  // Most likely not cached yet
+        }
+        TopNode result;
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new IllegalStateException("Not a cache entry");
+            }
+            byte[] stored = new byte[KEY_LENGTH];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, key)) {
+                throw new IllegalStateException("Wrong key");
+            }
+            // Decoding a byte at a time from the map is much slower than
+            // copying it out in one go
+            byte[] bytes = new byte[buffer.remaining() - Integer.BYTES];
+            buffer.get(bytes);
+            if (buffer.getInt() != checksum(bytes, 0, bytes.length)) {
+                throw new IllegalStateException("Damaged cache entry");
+            }
+            result = decode(bytes, path, text);
+        } catch (RuntimeException e) {
+            remove(name);
+            return null;
+        }
+        touch(name);
+        return result;
+    }
+
+    private void store(String name, byte[] key, TopNode node, SourceFile source) {
+        NodeCodec.Writer writer = new NodeCodec.Writer(source);
+        try {
+            writer.writeInt(MAGIC);
+            writer.writeInt(FORMAT);
+            writer.write(key);
+            int start = writer.size();
+            encode(writer, node, source);
+            writer.writeInt(checksum(writer.bytes(), start, writer.size() - start));
+        } catch (NodeCodec.UnencodableException e) {
+            return;  // Holds something which cannot be cached
+        }
+        Path file = directory.resolve(name);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, name, ".tmp");
+            try {
+                Files.write(temp, writer.toByteArray());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            return;  // The cache is only an optimization
+        }
+        add(name, writer.size());
+        evict();
+    }
+
+    /**
+     * Encode a tree as the table of lines of its file followed by each of
+     * its statements.
+     */
+    private static void encode(@NotNull NodeCodec.Writer writer, @NotNull TopNode node, @NotNull SourceFile source)
+            throws NodeCodec.UnencodableException {
+        writer.lines(source);
+        List<IndependentNode> statements = node.getNodes();
+        writer.writeVarInt(statements.size());
+        for (IndependentNode statement : statements) {
+            writer.node(statement);
+        }
+    }
+
+    @NotNull
+    private static TopNode decode(@NotNull byte[] bytes, Path path, String text) {
+        SourceFile source = new SourceFile(path, text);
+        NodeCodec.Reader reader = new NodeCodec.Reader(bytes, 0, bytes.length, source);
+        reader.lines(source);
+        TopNode node = new TopNode(path);
+        int count = reader.readVarInt();
+        for (int i = 0; i < count; i++) {
+            IndependentNode statement = reader.node(IndependentNode.class);
+            if (statement == null) {
+                throw new IllegalStateException("Malformed cache entry");
+            }
+            node.add(statement);
+        }
+        if (!reader.atEnd()) {
+            throw new IllegalStateException("Malformed cache entry");
+        }
+        return node;
+    }
+
+    private synchronized void add(String name, long entrySize) {
+        Long old = entries.put(name, entrySize);
+        size += entrySize - (old == null ? 0 : old);
+    }
+
+    private synchronized void touch(String name) {
+        entries.get(name);
+        try {
+            Files.setLastModifiedTime(directory.resolve(name), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Only makes it likelier to be evicted
+        }
+    }
+
+    private synchronized void remove(String name) {
+        Long old = entries.remove(name);
+        if (old != null) {
+            size -= old;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(name));
+        } catch (IOException ignored) {
+            // Will be evicted eventually
+        }
+    }
+
+    /**
+     * Remove the least recently used entries until the cache fits in its
+     * bound.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException ignored) {
+                // Will be tried again on the next eviction
+            }
+        }
+    }
+
+    @NotNull
+    private byte[] key(byte[] bytes) {
+        MessageDigest digest = sha256();
+        digest.update(version);
+        digest.update(bytes);
+        return digest.digest();
+    }
+
+    private static int checksum(@NotNull byte[] bytes, int start, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, start, length);
+        return (int) crc.getValue();
+    }
+
+    @NotNull
+    private static String name(@NotNull byte[] key) {
+        StringBuilder sb = new StringBuilder(2 * 16 + EXTENSION.length());
+        for (int i = 0; i < 16; i++) {
+            sb.append(Character.forDigit((key[i] >> 4) & 0xf, 16)).append(Character.forDigit(key[i] & 0xf, 16));
+        }
+        return sb.append(EXTENSION).toString();
+    }
+
+    /**
+     * A hash of the parser itself, so that entries made by any other build
+     * of it are never used.
+     * <p>
+     *     This goes by the name, size and modification time of each class
+     *     file of the parser, or of the archive they are in, rather than by
+     *     their contents, which would take longer to hash than it saves on a
+     *     small project. Any rebuild therefore empties the cache, even if
+     *     nothing changed.
+     * </p>
+     *
+     * @return The hash
+     * @throws IOException If the class files of the parser could not be found
+     */
+    @NotNull
+    private static byte[] version() throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer stamp = ByteBuffer.allocate(2 * Long.BYTES);
+        try {
+            CodeSource code = AstCache.class.getProtectionDomain().getCodeSource();
+            if (code == null) {
+                throw new IOException("No location for the class files of the parser");
+            }
+            File location = new File(code.getLocation().toURI());
+            File[] files = location.isDirectory()
+                    ? new File(location, AstCache.class.getPackageName().replace('.', '/')).listFiles()
+                    : new File[] {location};
+            if (files == null) {
+                throw new IOException("Could not list " + location);
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update(stamp.clear().putLong(file.length()).putLong(file.lastModified()).array());
+            }
+        } catch (URISyntaxException | RuntimeException e) {
+            throw new IOException("Could not determine the version of the parser", e);
+        }
+        return digest.digest();
+    }
+
+    @NotNull
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
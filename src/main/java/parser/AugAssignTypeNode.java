@@ -60,8 +60,11 @@ public enum AugAssignTypeNode {
 
     public static AugAssignTypeNode parse(@NotNull TokenList tokens) {
         assert tokens.tokenIs(TokenType.AUG_ASSIGN);
-        String sequence = tokens.tokenSequence();
-        AugAssignTypeNode operator = find(sequence.substring(0, sequence.length() - 1));
+        AugAssignTypeNode operator = tokens.getFirst().augAssign();
+        if (operator == null) {
+            String sequence = tokens.tokenSequence();
+            operator = find(sequence.substring(0, sequence.length() - 1));
+        }
         tokens.nextToken();
         return operator;
     }
@@ -42,6 +42,10 @@ public class BreakStatementNode implements SimpleFlowNode {
         return cond;
     }
 
+    public TestNode getAs() {
+        return as;
+    }
+
     /**
      * Parse BreakStatementNode from list of tokens.
      * <p>
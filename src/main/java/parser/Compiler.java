@@ -2,36 +2,375 @@ package main.java.parser;
 
 import main.java.converter.Converter;
 import main.java.converter.Util;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
+/**
+ * The command-line entry point of the compiler.
+ * <p>
+ *     Usage: {@code Compiler [--jobs N] [--ast-cache] [--compact-ast] [--stream] [--pipeline] <path>}
+ * </p>
+ * <p>
+ *     Every file under the path is tokenized and parsed on a pool of {@code
+ *     N} threads, which defaults to the number of processors. Conversion
+ *     shares global state, so it stays on the main thread, and runs in a
+ *     fixed order: files are taken in order of their paths, each after the
+ *     files it imports. Errors are thrown when the file they occur in is
+ *     reached in that order, so the output, and the first error, are the
+ *     same for any number of jobs.
+ * </p>
+ * <p>
+ *     With {@code --ast-cache}, parsed files are kept in an {@link AstCache}
+ *     in the {@code __ncache__} directory at the root of the path, so that
+ *     files which have not changed since the last compile are not parsed
+ *     again. If the cache cannot be opened, a warning is printed and files
+ *     are parsed as usual. Files in {@code __ncache__} directories are never
+ *     compiled.
+ * </p>
+ * <p>
+ *     Every parsed file is kept in memory until the end, as any of them may
+ *     be imported by a later one. With {@code --compact-ast}, each is {@link
+ *     AstArena packed} as soon as it is parsed, and is only held as nodes
+ *     from when it is first reached until it has been converted. This takes
+ *     up about a sixth of the memory, at the cost of recreating each
+ *     statement when it is first reached, and again whenever another file
+ *     imports it afterwards.
+ * </p>
+ * <p>
+ *     With {@code --stream}, nothing is parsed up front: each file is
+ *     instead parsed and converted a statement at a time on the main thread,
+ *     so that no more than one statement of it is held at once, and the files
+ *     an import statement imports from are converted when it is reached. This
+ *     is for huge modules, whose top level must not refer to anything before
+ *     it is declared; see {@link Converter#convertToFile(File, Path, Iterator)}.
+ * </p>
+ * <p>
+ *     With {@code --pipeline}, each file is tokenized on a thread of its own
+ *     while it is parsed, in a {@link TokenPipeline}. This costs a thread per
+ *     file being parsed, but can make the parsing of a large file quicker.
+ * </p>
+ *
+ * @author Patrick Norton
+ */
 public class Compiler {
+    private static final String CACHE_DIRECTORY = "__ncache__";
+    private static final long AST_CACHE_SIZE = 64L << 20;
+
     public static void main(String[] args) {
-//        TopNode[] nodes = new TopNode[args.length];
-//        for (int i = 0; i < args.length; i++) {
-//            nodes[i] = main.java.Parser.parse(new File(args[i]));
-//        }
-        List<File> nodes;
-        try {
-            nodes = Files.walk(Paths.get(args[0]))
-                    .filter(Files::isRegularFile)
+        int jobs = Runtime.getRuntime().availableProcessors();
+        boolean useCache = false;
+        boolean compact = false;
+        boolean streaming = false;
+        boolean pipelined = false;
+        String root = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--jobs") || args[i].equals("-j")) {
+                if (++i == args.length) {
+                    throw new IllegalArgumentException("Expected a number of jobs after " + args[i - 1]);
+                }
+                jobs = parseJobs(args[i]);
+            } else if (args[i].startsWith("--jobs=")) {
+                jobs = parseJobs(args[i].substring("--jobs=".length()));
+            } else if (args[i].equals("--ast-cache")) {
+                useCache = true;
+            } else if (args[i].equals("--compact-ast")) {
+                compact = true;
+            } else if (args[i].equals("--stream")) {
+                streaming = true;
+            } else if (args[i].equals("--pipeline")) {
+                pipelined = true;
+            } else if (root == null) {
+                root = args[i];
+            } else {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+        }
+        if (root == null) {
+            throw new IllegalArgumentException(
+                    "Usage: Compiler [--jobs N] [--ast-cache] [--compact-ast] [--stream] [--pipeline] <path>");
+        }
+        var rootPath = Paths.get(root);
+        List<File> files;
+        try (var walker = Files.walk(rootPath)) {
+            files = walker.filter(Files::isRegularFile)
+                    .filter(path -> !isCached(path))
+                    .sorted()
                     .map(Path::toFile)
                     .collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        for (File file : nodes) {
-            TopNode node = Parser.parse(file);
+        if (streaming) {
+            new Compiler(files, pipelined).compile();
+            return;
+        }
+        var cache = useCache ? openCache(rootPath) : null;
+        var pool = new ForkJoinPool(jobs);
+        try {
+            new Compiler(files, pool, cache, compact, pipelined).compile();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private final List<File> files;
+    private final boolean streaming;
+    private final boolean pipelined;
+    private final Set<Path> keys = new HashSet<>();
+    private final Map<Path, ForkJoinTask<TopNode>> parsed = new HashMap<>();
+    private final Set<Path> visited = new HashSet<>();
+
+    private Compiler(@NotNull List<File> files, @NotNull ForkJoinPool pool,
+                     @Nullable AstCache cache, boolean compact, boolean pipelined) {
+        this.files = files;
+        this.streaming = false;
+        this.pipelined = pipelined;
+        for (var file : files) {
+            keys.add(key(file));
+            parsed.put(key(file), pool.submit(() -> {
+                var node = cache == null ? Parser.parse(file, pipelined) : cache.parse(file, pipelined);
+                return compact ? AstArena.compact(node) : node;
+            }));
+        }
+    }
+
+    private Compiler(@NotNull List<File> files, boolean pipelined) {
+        this.files = files;
+        this.streaming = true;
+        this.pipelined = pipelined;
+        for (var file : files) {
+            keys.add(key(file));
+        }
+    }
+
+    private void compile() {
+        for (var file : files) {
+            visit(file);
+        }
+    }
+
+    /**
+     * Convert a file, after converting the files it imports.
+     * <p>
+     *     Files which import each other are converted in the order they are
+     *     first reached.
+     * </p>
+     *
+     * @param file The file to convert
+     */
+    private void visit(@NotNull File file) {
+        var key = key(file);
+        if (!visited.add(key)) {
+            return;
+        }
+        if (streaming) {
+            stream(file);
+            return;
+        }
+        TopNode node = join(parsed.get(key));
+        for (var stmt : node) {
+            for (var dependency : dependencies(file, stmt)) {
+                visit(dependency);
+            }
+        }
+        Converter.addParsed(key, node);
+        Converter.convertToFile(destFile(file), node);
+        if (node.isCompact()) {
+            node.getArena().release();
+        }
+    }
+
+    /**
+     * Convert a file a statement at a time, as it is parsed, converting the
+     * files each import statement imports from when it is reached.
+     *
+     * @param file The file to convert
+     */
+    private void stream(@NotNull File file) {
+        var statements = Parser.parseStatements(file, pipelined);
+        Converter.convertToFile(destFile(file), file.toPath(), new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return statements.hasNext();
+            }
+
+            @Override
+            public IndependentNode next() {
+                var stmt = statements.next();
+                for (var dependency : dependencies(file, stmt)) {
+                    visit(dependency);
+                }
+                return stmt;
+            }
+        });
+    }
+
+    @NotNull
+    private static File destFile(@NotNull File file) {
+        var destFolder = file.toPath().resolveSibling(CACHE_DIRECTORY);
+        return destFolder.resolve(file.getName().replaceFirst("\\.newlang$", Util.BYTECODE_EXTENSION)).toFile();
+    }
+
+    /**
+     * The files being compiled which a statement of a file imports from, in
+     * the order of its imports.
+     * <p>
+     *     Relative imports are looked for next to the file, and other imports
+     *     anywhere in the files being compiled. Modules from elsewhere are
+     *     left for the converter to find.
+     * </p>
+     *
+     * @param file The file
+     * @param stmt The statement
+     * @return The files it imports from
+     */
+    @NotNull
+    private List<File> dependencies(@NotNull File file, @NotNull IndependentNode stmt) {
+        if (!(stmt instanceof ImportExportNode)) {
+            return List.of();
+        }
+        var ieNode = (ImportExportNode) stmt;
+        if (ieNode.getType() != ImportExportNode.IMPORT) {
+            return List.of();
+        }
+        List<File> result = new ArrayList<>();
+        for (var moduleName : moduleNames(ieNode)) {
+            var dependency = ieNode.getPreDots() > 0
+                    ? localModule(file, moduleName)
+                    : module(moduleName);
+            if (dependency != null) {
+                result.add(dependency);
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static List<String> moduleNames(@NotNull ImportExportNode node) {
+        if (!node.getFrom().isEmpty()) {
+            return node.getFrom().getPreDot() instanceof VariableNode
+                    ? List.of(((VariableNode) node.getFrom().getPreDot()).getName())
+                    : List.of();
+        }
+        List<String> result = new ArrayList<>();
+        for (var value : node.getValues()) {
+            if (value.getPreDot() instanceof VariableNode) {
+                result.add(((VariableNode) value.getPreDot()).getName());
+            }
+        }
+        return result;
+    }
+
+    private File localModule(@NotNull File file, String name) {
+        var sibling = file.toPath().resolveSibling(name + Util.FILE_EXTENSION).toFile();
+        return keys.contains(key(sibling)) ? sibling : null;
+    }
+
+    private File module(String name) {
+        for (var file : files) {
             var fileName = file.getName();
-            var destFolder = file.toPath().resolveSibling("__ncache__");
-            var destFile = destFolder.resolve(fileName.replaceFirst("\\.newlang$", Util.BYTECODE_EXTENSION));
-            Converter.convertToFile(destFile.toFile(), node);
+            var parentName = file.getParentFile() == null ? "" : file.getParentFile().getName();
+            if (fileName.equals(name + Util.FILE_EXTENSION)
+                    || (fileName.equals(Util.EXPORTS_FILENAME) && parentName.equals(name))) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait for a file to be parsed, throwing whatever the parser threw.
+     */
+    private static TopNode join(@NotNull ForkJoinTask<TopNode> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
         }
     }
+
+    private static int parseJobs(String value) {
+        try {
+            int jobs = Integer.parseInt(value);
+            if (jobs > 0) {
+                return jobs;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Invalid number of jobs: " + value);
+    }
+
+    /**
+     * Open the {@link AstCache} for a path being compiled, or warn and go
+     * without one if it cannot be opened.
+     *
+     * @param root The path being compiled
+     * @return The cache, or null if there is none
+     */
+    @Nullable
+    private static AstCache openCache(@NotNull Path root) {
+        try {
+            return AstCache.open(cacheDirectory(root), AST_CACHE_SIZE);
+        } catch (IOException e) {
+            System.err.printf("Warning - AST cache disabled: %s%n", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The directory of the {@link AstCache} for a path being compiled.
+     *
+     * @param root The path being compiled
+     * @return The directory
+     */
+    @NotNull
+    private static Path cacheDirectory(@NotNull Path root) {
+        var absolute = root.toAbsolutePath().normalize();
+        var base = Files.isDirectory(absolute) ? absolute : absolute.getParent();
+        return base.resolve(CACHE_DIRECTORY).resolve("ast");
+    }
+
+    /**
+     * Whether or not a path is inside a directory of compiler output.
+     */
+    private static boolean isCached(@NotNull Path path) {
+        for (var part : path) {
+            if (part.toString().equals(CACHE_DIRECTORY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static Path key(@NotNull File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
 }
@@ -112,7 +112,10 @@ public enum DescriptorNode implements AtomicNode {
     @NotNull
     public static DescriptorNode parse(@NotNull TokenList tokens) {
         assert tokens.tokenIs(TokenType.DESCRIPTOR);
-        DescriptorNode descriptor = find(tokens.tokenSequence());
+        DescriptorNode descriptor = tokens.getFirst().descriptor();
+        if (descriptor == null) {
+            descriptor = find(tokens.tokenSequence());
+        }
         if (descriptor == null) {
             throw tokens.internalError("Unknown descriptor " + tokens.getFirst());
         }
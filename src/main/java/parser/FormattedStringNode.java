@@ -47,6 +47,10 @@ public class FormattedStringNode extends StringLikeNode {
         return tests;
     }
 
+    FormatInfo[] getFormats() {
+        return formats;
+    }
+
     /**
      * Parse a FormattedStringNode from a {@link String} representing its
      * contents.
@@ -57,11 +61,15 @@ public class FormattedStringNode extends StringLikeNode {
     @NotNull
     @Contract("_ -> new")
     static FormattedStringNode parse(@NotNull Token token) {
-        LineInfo info = token.lineInfo;
+        LineInfo info = token.lineInfo();
         String inside = getContents(token);
         Set<StringPrefix> prefixes = getPrefixes(token);
         assert prefixes.contains(StringPrefix.FORMATTED);
         boolean isRaw = prefixes.contains(StringPrefix.RAW);
+        String line = lineOf(token);
+        int offset = line == null ? 0
+                : SourceFile.offset(token.position()) + token.sequence.length() - 1 - inside.length();
+        TokenList section = null;  // Shared by the interpolations, if they are in place
         List<String> strings = new ArrayList<>();
         List<TestNode> tests = new ArrayList<>();
         List<FormatInfo> formats = new ArrayList<>();
@@ -81,7 +89,17 @@ public class FormattedStringNode extends StringLikeNode {
             }
             formats.add(FormatInfo.parse(inside, newStart, newEnd - 1));
             int end = newEnd - formats.get(formats.size() - 1).size();
-            tests.add(parseTest(info, inside.substring(newStart + 1, end - 1)));
+            TokenList tokens;
+            if (line == null) {
+                tokens = Tokenizer.parse(inside.substring(newStart + 1, end - 1));
+            } else if (section == null) {
+                tokens = section = new TokenList(Tokenizer.section(token.source(),
+                        SourceFile.lineIndex(token.position()), line, offset + newStart + 1, offset + end - 1));
+            } else {
+                section.moveSection(offset + newStart + 1, offset + end - 1);
+                tokens = section;
+            }
+            tests.add(parseTest(info, tokens));
         }
         if (newEnd < inside.length()) {
             strings.add(maybeProcessEscapes(isRaw, inside.substring(newEnd), info));
@@ -90,15 +108,41 @@ public class FormattedStringNode extends StringLikeNode {
                 formats.toArray(new FormatInfo[0]), prefixes);
     }
 
+    /**
+     * The text of the line of its file which a string token lies within.
+     * <p>
+     *     Interpolations in such a string are tokenized in place in the line,
+     *     so that their tokens have their real positions in the file. Those
+     *     in a string spanning several lines, whose text is not that of any
+     *     one line, are tokenized on their own.
+     * </p>
+     *
+     * @param token The token for the string
+     * @return The text of the line, or null if the token is not within one
+     */
+    @Nullable
+    private static String lineOf(@NotNull Token token) {
+        SourceFile source = token.source();
+        String sequence = token.sequence;
+        if (source == null || sequence.indexOf('\n') >= 0 || sequence.indexOf('\r') >= 0) {
+            return null;
+        }
+        int index = SourceFile.lineIndex(token.position());
+        if (index >= source.lineCount()) {
+            return null;
+        }
+        String line = source.line(index);
+        return line.startsWith(sequence, SourceFile.offset(token.position())) ? line : null;
+    }
+
     /**
      * Parse the section of the string inside braces into a {@link TestNode}.
      *
      * @param info The line info for the string
-     * @param section The section to parse
+     * @param tokens The tokens of the section to parse
      * @return The freshly parsed TestNode
      */
-    private static TestNode parseTest(LineInfo info, String section) {
-        TokenList tokens = Tokenizer.parse(section);
+    private static TestNode parseTest(LineInfo info, TokenList tokens) {
         TestNode test;
         try {
             test = TestNode.parse(tokens);
@@ -181,7 +225,7 @@ public class FormattedStringNode extends StringLikeNode {
      * @author Patrick Norton
      * @see FormattedStringNode
      */
-    private static class FormatInfo {
+    static class FormatInfo {
         private static final Set<Character> FORMAT_INVALID = Set.of(
             '"', '\'', '[', ']', '(', ')', '{', '}');
 
@@ -192,6 +236,10 @@ public class FormattedStringNode extends StringLikeNode {
             this.specifier = specifier;
         }
 
+        String getSpecifier() {
+            return specifier;
+        }
+
         @Contract(pure = true)
         int size() {
             return specifier == null ? 0 : specifier.length() + 1;
@@ -126,7 +126,10 @@ public enum Keyword {
     @NotNull
     static Keyword find(@NotNull Token value) {
         assert value.is(TokenType.KEYWORD);
-        Keyword val = values.get(value.sequence);
+        Keyword val = value.keyword();
+        if (val == null) {
+            val = values.get(value.sequence);
+        }
         if (val == null) {
             throw ParserInternalError.of("Unknown keyword " + value, value);
         } else {
@@ -5,41 +5,55 @@ import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
 
+/**
+ * The position of a token or node in its source file.
+ * <p>
+ *     This does not hold the text of the line or even the line number
+ *     itself, only its packed position in the {@link SourceFile} it came
+ *     from. Those are looked up in the file when asked for.
+ * </p>
+ */
 public class LineInfo {
-    private final Path path;
-    private final int lineNumber;
-    private final String line;
-    private final int startingPoint;
+    private static final LineInfo EMPTY = new LineInfo(SourceFile.EMPTY, SourceFile.position(0, 0));
+
+    private final SourceFile source;
+    private final long position;
 
     @Contract(pure = true)
-    public LineInfo(Path path, int lineNumber, String line, int startingPoint) {
-        this.path = path;
-        this.lineNumber = lineNumber;
-        this.line = line;
-        this.startingPoint = startingPoint;
+    LineInfo(SourceFile source, long position) {
+        this.source = source;
+        this.position = position;
     }
 
     public Path getPath() {
-        return path;
+        return source.getPath();
     }
 
     public int getLineNumber() {
-        return lineNumber;
+        return source.lineNumber(position);
+    }
+
+    SourceFile getSource() {
+        return source;
+    }
+
+    long getPosition() {
+        return position;
     }
 
     public String infoString() {
-        int numSpaces = startingPoint + String.valueOf(lineNumber).length() + 2;
+        int lineNumber = getLineNumber();
+        if (lineNumber < 0) {
+            return "Line info not available";
+        }
+        String line = source.line(SourceFile.lineIndex(position));
+        int numSpaces = source.column(position) + String.valueOf(lineNumber).length() + 2;
         return String.format("%d: %s%n%s^", lineNumber, line, " ".repeat(numSpaces));
     }
 
     @NotNull
-    @Contract(value = " -> new", pure = true)
+    @Contract(pure = true)
     public static LineInfo empty() {
-        return new LineInfo(Path.of(""), -1, "", 0) {
-            @Override
-            public String infoString() {
-                return "Line info not available";
-            }
-        };
+        return EMPTY;
     }
 }
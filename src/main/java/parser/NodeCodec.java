@@ -0,0 +1,1715 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * The encoding of parsed trees as bytes, for keeping them in some form
+ * other than objects and recreating them later.
+ * <p>
+ *     Each kind of node is written as a tag followed by the arguments of one
+ *     of its constructors, in order, and is read back by calling that
+ *     constructor, along with whichever of {@link
+ *     DescribableNode#addDescriptor}, {@link AnnotatableNode#addAnnotations},
+ *     {@link DecoratableNode#addDecorators} and {@link
+ *     GeneralizableNode#addGenerics} the parser calls on it. A node which is
+ *     referred to more than once is written once and referred to by index
+ *     afterwards, as is each string.
+ * </p>
+ * <p>
+ *     Line info is written as its position in the source it is from, and,
+ *     like nodes, only once however many nodes share it. The
+ *     source of the file being encoded is not written, as whoever reads the
+ *     tree already has it; any other source, such as that of an expression
+ *     in an f-string, is written in full the first time it is referred to.
+ * </p>
+ * <p>
+ *     Any kind of node with no encoding here, or one which its constructor
+ *     would not recreate as it is, cannot be encoded, and neither can any
+ *     tree containing one: see {@link UnencodableException}. A node must therefore be given an encoding
+ *     here when it is added to the parser, or when its constructor changes.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see AstCache
+ * @see AstArena
+ */
+final class NodeCodec {
+    private static final byte NULL = 0;
+    private static final byte REF = 1;
+    private static final byte ARGUMENT = 2;
+    private static final byte ASSERT = 3;
+    private static final byte ASSIGNMENT = 4;
+    private static final byte AUGMENTED_ASSIGNMENT = 5;
+    private static final byte BREAK = 6;
+    private static final byte CASE = 7;
+    private static final byte CLASS_BODY = 8;
+    private static final byte CLASS_DEFINITION = 9;
+    private static final byte COMPREHENSION = 10;
+    private static final byte CONTEXT_DEFINITION = 11;
+    private static final byte CONTINUE = 12;
+    private static final byte DECLARATION = 13;
+    private static final byte DECLARED_ASSIGNMENT = 14;
+    private static final byte DECREMENT = 15;
+    private static final byte DEFAULT = 16;
+    private static final byte DEFER = 17;
+    private static final byte DELETE = 18;
+    private static final byte DESCRIPTOR = 19;
+    private static final byte DICT_COMPREHENSION = 20;
+    private static final byte DICT_LITERAL = 21;
+    private static final byte DO = 22;
+    private static final byte DOTIMES = 23;
+    private static final byte DOTTED_VAR = 24;
+    private static final byte DOTTED_VARIABLE = 25;
+    private static final byte ELIF = 26;
+    private static final byte EMPTY_TEST = 27;
+    private static final byte ENUM_DEFINITION = 28;
+    private static final byte ESCAPED_OPERATOR = 29;
+    private static final byte FOR = 30;
+    private static final byte FORMATTED_STRING = 31;
+    private static final byte FUNCTION_CALL = 32;
+    private static final byte FUNCTION_DEFINITION = 33;
+    private static final byte GENERIC_FUNCTION = 34;
+    private static final byte GENERIC_OPERATOR = 35;
+    private static final byte IF = 36;
+    private static final byte IMPORT_EXPORT = 37;
+    private static final byte INCREMENT = 38;
+    private static final byte INDEX = 39;
+    private static final byte INTERFACE_BODY = 40;
+    private static final byte INTERFACE_DEFINITION = 41;
+    private static final byte LAMBDA = 42;
+    private static final byte LITERAL = 43;
+    private static final byte METHOD_DEFINITION = 44;
+    private static final byte NUMBER = 45;
+    private static final byte OPERATOR = 46;
+    private static final byte OPERATOR_DEFINITION = 47;
+    private static final byte OPERATOR_TYPE = 48;
+    private static final byte PROPERTY_DEFINITION = 49;
+    private static final byte RAISE = 50;
+    private static final byte RANGE_LITERAL = 51;
+    private static final byte RETURN = 52;
+    private static final byte SLICE = 53;
+    private static final byte SOME = 54;
+    private static final byte SPECIAL_OP_ASSIGNMENT = 55;
+    private static final byte SPECIAL_OP_NAME = 56;
+    private static final byte STATEMENT_BODY = 57;
+    private static final byte STATIC_BLOCK = 58;
+    private static final byte STRING = 59;
+    private static final byte SWITCH = 60;
+    private static final byte SYNCHRONIZED = 61;
+    private static final byte TERNARY = 62;
+    private static final byte TEST_LIST = 63;
+    private static final byte TRY = 64;
+    private static final byte TYPE = 65;
+    private static final byte TYPE_UNION = 66;
+    private static final byte TYPED_ARGUMENT = 67;
+    private static final byte TYPED_ARGUMENT_LIST = 68;
+    private static final byte TYPED_VARIABLE = 69;
+    private static final byte TYPEDEF = 70;
+    private static final byte TYPEWISE_AND = 71;
+    private static final byte VAR_TYPE = 72;
+    private static final byte VARIABLE = 73;
+    private static final byte WHILE = 74;
+    private static final byte WITH = 75;
+    private static final byte YIELD = 76;
+
+    private static final byte NO_LINE_INFO = 0;
+    private static final byte EMPTY_LINE_INFO = 1;
+    private static final byte MAIN_LINE_INFO = 2;
+    private static final byte OTHER_LINE_INFO = 3;
+    private static final byte SHARED_LINE_INFO = 4;
+
+    private static final Map<Class<?>, Byte> TAGS = Map.ofEntries(
+            Map.entry(ArgumentNode.class, ARGUMENT),
+            Map.entry(AssertStatementNode.class, ASSERT),
+            Map.entry(AssignmentNode.class, ASSIGNMENT),
+            Map.entry(AugmentedAssignmentNode.class, AUGMENTED_ASSIGNMENT),
+            Map.entry(BreakStatementNode.class, BREAK),
+            Map.entry(CaseStatementNode.class, CASE),
+            Map.entry(ClassBodyNode.class, CLASS_BODY),
+            Map.entry(ClassDefinitionNode.class, CLASS_DEFINITION),
+            Map.entry(ComprehensionNode.class, COMPREHENSION),
+            Map.entry(ContextDefinitionNode.class, CONTEXT_DEFINITION),
+            Map.entry(ContinueStatementNode.class, CONTINUE),
+            Map.entry(DeclarationNode.class, DECLARATION),
+            Map.entry(DeclaredAssignmentNode.class, DECLARED_ASSIGNMENT),
+            Map.entry(DecrementNode.class, DECREMENT),
+            Map.entry(DefaultStatementNode.class, DEFAULT),
+            Map.entry(DeferStatementNode.class, DEFER),
+            Map.entry(DeleteStatementNode.class, DELETE),
+            Map.entry(DescriptorNode.class, DESCRIPTOR),
+            Map.entry(DictComprehensionNode.class, DICT_COMPREHENSION),
+            Map.entry(DictLiteralNode.class, DICT_LITERAL),
+            Map.entry(DoStatementNode.class, DO),
+            Map.entry(DotimesStatementNode.class, DOTIMES),
+            Map.entry(DottedVar.class, DOTTED_VAR),
+            Map.entry(DottedVariableNode.class, DOTTED_VARIABLE),
+            Map.entry(ElifStatementNode.class, ELIF),
+            Map.entry(EmptyTestNode.class, EMPTY_TEST),
+            Map.entry(EnumDefinitionNode.class, ENUM_DEFINITION),
+            Map.entry(EscapedOperatorNode.class, ESCAPED_OPERATOR),
+            Map.entry(ForStatementNode.class, FOR),
+            Map.entry(FormattedStringNode.class, FORMATTED_STRING),
+            Map.entry(FunctionCallNode.class, FUNCTION_CALL),
+            Map.entry(FunctionDefinitionNode.class, FUNCTION_DEFINITION),
+            Map.entry(GenericFunctionNode.class, GENERIC_FUNCTION),
+            Map.entry(GenericOperatorNode.class, GENERIC_OPERATOR),
+            Map.entry(IfStatementNode.class, IF),
+            Map.entry(ImportExportNode.class, IMPORT_EXPORT),
+            Map.entry(IncrementNode.class, INCREMENT),
+            Map.entry(IndexNode.class, INDEX),
+            Map.entry(InterfaceBodyNode.class, INTERFACE_BODY),
+            Map.entry(InterfaceDefinitionNode.class, INTERFACE_DEFINITION),
+            Map.entry(LambdaNode.class, LAMBDA),
+            Map.entry(LiteralNode.class, LITERAL),
+            Map.entry(MethodDefinitionNode.class, METHOD_DEFINITION),
+            Map.entry(NumberNode.class, NUMBER),
+            Map.entry(OperatorNode.class, OPERATOR),
+            Map.entry(OperatorDefinitionNode.class, OPERATOR_DEFINITION),
+            Map.entry(OperatorTypeNode.class, OPERATOR_TYPE),
+            Map.entry(PropertyDefinitionNode.class, PROPERTY_DEFINITION),
+            Map.entry(RaiseStatementNode.class, RAISE),
+            Map.entry(RangeLiteralNode.class, RANGE_LITERAL),
+            Map.entry(ReturnStatementNode.class, RETURN),
+            Map.entry(SliceNode.class, SLICE),
+            Map.entry(SomeStatementNode.class, SOME),
+            Map.entry(SpecialOpAssignmentNode.class, SPECIAL_OP_ASSIGNMENT),
+            Map.entry(SpecialOpNameNode.class, SPECIAL_OP_NAME),
+            Map.entry(StatementBodyNode.class, STATEMENT_BODY),
+            Map.entry(StaticBlockNode.class, STATIC_BLOCK),
+            Map.entry(StringNode.class, STRING),
+            Map.entry(SwitchStatementNode.class, SWITCH),
+            Map.entry(SynchronizedStatementNode.class, SYNCHRONIZED),
+            Map.entry(TernaryNode.class, TERNARY),
+            Map.entry(TestListNode.class, TEST_LIST),
+            Map.entry(TryStatementNode.class, TRY),
+            Map.entry(TypeNode.class, TYPE),
+            Map.entry(TypeNode.var().getClass(), VAR_TYPE),
+            Map.entry(TypeUnionNode.class, TYPE_UNION),
+            Map.entry(TypedArgumentNode.class, TYPED_ARGUMENT),
+            Map.entry(TypedArgumentListNode.class, TYPED_ARGUMENT_LIST),
+            Map.entry(TypedVariableNode.class, TYPED_VARIABLE),
+            Map.entry(TypedefStatementNode.class, TYPEDEF),
+            Map.entry(TypewiseAndNode.class, TYPEWISE_AND),
+            Map.entry(VariableNode.class, VARIABLE),
+            Map.entry(WhileStatementNode.class, WHILE),
+            Map.entry(WithStatementNode.class, WITH),
+            Map.entry(YieldStatementNode.class, YIELD)
+    );
+
+    private static final AugAssignTypeNode[] AUG_ASSIGNS = AugAssignTypeNode.values();
+    private static final DescriptorNode[] DESCRIPTORS = DescriptorNode.values();
+    private static final ImportExportNode.Type[] PORT_TYPES = ImportExportNode.Type.values();
+    private static final OpFuncTypeNode[] OP_FUNCS = OpFuncTypeNode.values();
+    private static final OpSpTypeNode[] OPERATOR_SPS = OpSpTypeNode.values();
+    private static final OperatorTypeNode[] OPERATORS = OperatorTypeNode.values();
+    private static final StringPrefix[] PREFIXES = StringPrefix.values();
+
+    private NodeCodec() {}
+
+    /**
+     * Thrown when a tree holds something which cannot be encoded, or is too
+     * large to encode.
+     */
+    static final class UnencodableException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnencodableException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * The encoder of trees.
+     */
+    static final class Writer {
+        private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+        private final SourceFile main;
+        private final Map<BaseNode, Integer> nodes = new IdentityHashMap<>();
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<SourceFile, Integer> sources = new IdentityHashMap<>();
+        private final Map<LineInfo, Integer> lineInfos = new IdentityHashMap<>();
+        private byte[] bytes = new byte[1 << 12];
+        private int size;
+
+        /**
+         * Create a writer for the nodes of a file.
+         *
+         * @param main The source of the file, which line info from is
+         *             written without it
+         */
+        Writer(@Nullable SourceFile main) {
+            this.main = main;
+        }
+
+        /**
+         * Forget every node, string and source written so far, so that what
+         * is written next can be read back without them.
+         */
+        void forgetShared() {
+            nodes.clear();
+            strings.clear();
+            sources.clear();
+            lineInfos.clear();
+        }
+
+        /**
+         * Write the table of lines of a source, but not its path or text.
+         *
+         * @param source The source
+         */
+        void lines(@NotNull SourceFile source) throws UnencodableException {
+            int count = source.lineCount();
+            writeVarInt(count);
+            for (int i = 0; i < count; i++) {
+                writeVarInt(source.startLineNumber(i));
+                String line = source.storedLine(i);
+                string(line);
+                if (line == null) {
+                    writeVarInt(source.lineStart(i));
+                    writeVarInt(source.lineEnd(i));
+                }
+                int[] breaks = source.breaks(i);
+                writeVarInt(breaks == null ? -1 : breaks.length);
+                if (breaks != null) {
+                    for (int lineBreak : breaks) {
+                        writeVarInt(lineBreak);
+                    }
+                }
+            }
+        }
+
+        void node(@Nullable BaseNode node) throws UnencodableException {
+            if (node == null) {
+                writeByte(NULL);
+                return;
+            }
+            Integer id = nodes.get(node);
+            if (id != null) {
+                writeByte(REF);
+                writeVarInt(id);
+                return;
+            }
+            Byte tag = TAGS.get(node.getClass());
+            if (tag == null) {
+                throw new UnencodableException("No encoding for " + node.getClass().getName());
+            }
+            writeByte(tag);
+            fields(tag, node);
+            nodes.put(node, nodes.size());
+        }
+
+        private void fields(byte tag, @NotNull BaseNode value) throws UnencodableException {
+            switch (tag) {
+                case ARGUMENT: {
+                    ArgumentNode node = (ArgumentNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getVariable());
+                    string(node.getVararg());
+                    node(node.getArgument());
+                    break;
+                }
+                case ASSERT: {
+                    AssertStatementNode node = (AssertStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getAssertion());
+                    break;
+                }
+                case ASSIGNMENT: {
+                    AssignmentNode node = (AssignmentNode) value;
+                    lineInfo(node.getLineInfo());
+                    bool(node.isColon());
+                    nodes(node.getNames());
+                    node(node.getValues());
+                    break;
+                }
+                case AUGMENTED_ASSIGNMENT: {
+                    AugmentedAssignmentNode node = (AugmentedAssignmentNode) value;
+                    lineInfo(node.getLineInfo());
+                    constant(node.getOperator());
+                    node(node.getName());
+                    node(node.getValue());
+                    break;
+                }
+                case BREAK: {
+                    BreakStatementNode node = (BreakStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    writeVarInt(node.getLoops());
+                    node(node.getCond());
+                    node(node.getAs());
+                    break;
+                }
+                case CASE: {
+                    CaseStatementNode node = (CaseStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getLabel());
+                    node(node.getBody());
+                    bool(node.isArrow());
+                    break;
+                }
+                case CLASS_BODY: {
+                    ClassBodyNode node = (ClassBodyNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getStatements());
+                    break;
+                }
+                case CLASS_DEFINITION: {
+                    ClassDefinitionNode node = (ClassDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    nodes(node.getSuperclasses());
+                    node(node.getBody());
+                    constants(node.getDescriptors());
+                    nodes(node.getDecorators());
+                    nodes(node.getAnnotations());
+                    break;
+                }
+                case COMPREHENSION: {
+                    ComprehensionNode node = (ComprehensionNode) value;
+                    lineInfo(node.getLineInfo());
+                    string(node.getBrace());
+                    nodes(node.getVariables());
+                    nodes(node.getBuilder());
+                    node(node.getLooped());
+                    node(node.getCondition());
+                    node(node.getWhileCond());
+                    break;
+                }
+                case CONTEXT_DEFINITION: {
+                    ContextDefinitionNode node = (ContextDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getArgs());
+                    node(node.getEnter());
+                    node(node.getExit());
+                    nodes(node.getExitArgs());
+                    node(node.getOthers());
+                    constants(node.getDescriptors());
+                    nodes(node.getAnnotations());
+                    nodes(node.getDecorators());
+                    break;
+                }
+                case CONTINUE: {
+                    ContinueStatementNode node = (ContinueStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getCond());
+                    break;
+                }
+                case DECLARATION: {
+                    DeclarationNode node = (DeclarationNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getType());
+                    node(node.getName());
+                    constants(node.getDescriptors());
+                    nodes(node.getAnnotations());
+                    break;
+                }
+                case DECLARED_ASSIGNMENT: {
+                    DeclaredAssignmentNode node = (DeclaredAssignmentNode) value;
+                    lineInfo(node.getLineInfo());
+                    bool(node.isColon());
+                    nodes(node.getTypes());
+                    node(node.getValues());
+                    constants(node.getDescriptors());
+                    nodes(node.getAnnotations());
+                    break;
+                }
+                case DECREMENT: {
+                    DecrementNode node = (DecrementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getVariable());
+                    break;
+                }
+                case DEFAULT: {
+                    DefaultStatementNode node = (DefaultStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getBody());
+                    bool(node.isArrow());
+                    break;
+                }
+                case DEFER: {
+                    DeferStatementNode node = (DeferStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getBody());
+                    break;
+                }
+                case DELETE: {
+                    DeleteStatementNode node = (DeleteStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getDeleted());
+                    break;
+                }
+                case DESCRIPTOR:
+                    constant((DescriptorNode) value);
+                    break;
+                case DICT_COMPREHENSION: {
+                    DictComprehensionNode node = (DictComprehensionNode) value;
+                    ArgumentNode[] builder = node.getBuilder();
+                    if (builder.length != 1) {
+                        throw new UnencodableException("Dict comprehension with " + builder.length + " values");
+                    }
+                    lineInfo(node.getLineInfo());
+                    node(node.getKey());
+                    node(builder[0].getArgument());
+                    nodes(node.getVariables());
+                    node(node.getLooped());
+                    node(node.getCondition());
+                    node(node.getWhileCond());
+                    break;
+                }
+                case DICT_LITERAL: {
+                    DictLiteralNode node = (DictLiteralNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getKeys());
+                    nodes(node.getValues());
+                    break;
+                }
+                case DO: {
+                    DoStatementNode node = (DoStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getBody());
+                    node(node.getConditional());
+                    break;
+                }
+                case DOTIMES: {
+                    DotimesStatementNode node = (DotimesStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getIterations());
+                    node(node.getBody());
+                    node(node.getNobreak());
+                    break;
+                }
+                case DOTTED_VAR: {
+                    DottedVar node = (DottedVar) value;
+                    lineInfo(node.getLineInfo());
+                    string(node.getDotPrefix());
+                    node(node.getPostDot());
+                    break;
+                }
+                case DOTTED_VARIABLE: {
+                    DottedVariableNode node = (DottedVariableNode) value;
+                    node(node.getPreDot());
+                    nodes(node.getPostDots());
+                    break;
+                }
+                case ELIF: {
+                    ElifStatementNode node = (ElifStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getTest());
+                    node(node.getBody());
+                    break;
+                }
+                case EMPTY_TEST:
+                    if (value != TestNode.empty()) {
+                        throw new UnencodableException("Empty test which is not TestNode.EMPTY");
+                    }
+                    break;
+                case ENUM_DEFINITION: {
+                    EnumDefinitionNode node = (EnumDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    nodes(node.getSuperclasses());
+                    nodes(node.getNames());
+                    node(node.getBody());
+                    constants(node.getDescriptors());
+                    nodes(node.getDecorators());
+                    nodes(node.getAnnotations());
+                    break;
+                }
+                case ESCAPED_OPERATOR: {
+                    EscapedOperatorNode node = (EscapedOperatorNode) value;
+                    lineInfo(node.getLineInfo());
+                    constant(node.getOperator());
+                    break;
+                }
+                case FOR: {
+                    ForStatementNode node = (ForStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getVars());
+                    node(node.getIterables());
+                    node(node.getBody());
+                    node(node.getNobreak());
+                    break;
+                }
+                case FORMATTED_STRING: {
+                    FormattedStringNode node = (FormattedStringNode) value;
+                    lineInfo(node.getLineInfo());
+                    strings(node.getStrings());
+                    nodes(node.getTests());
+                    FormattedStringNode.FormatInfo[] formats = node.getFormats();
+                    writeVarInt(formats.length);
+                    for (FormattedStringNode.FormatInfo format : formats) {
+                        string(format.getSpecifier());
+                    }
+                    constants(node.getPrefixes());
+                    break;
+                }
+                case FUNCTION_CALL: {
+                    FunctionCallNode node = (FunctionCallNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getCaller());
+                    nodes(node.getParameters());
+                    break;
+                }
+                case FUNCTION_DEFINITION: {
+                    FunctionDefinitionNode node = (FunctionDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getArgs());
+                    nodes(node.getRetval());
+                    node(node.getBody());
+                    constants(node.getDescriptors());
+                    nodes(node.getDecorators());
+                    nodes(node.getAnnotations());
+                    nodes(node.getGenerics());
+                    break;
+                }
+                case GENERIC_FUNCTION: {
+                    GenericFunctionNode node = (GenericFunctionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getArgs());
+                    nodes(node.getRetvals());
+                    constants(node.getDescriptors());
+                    break;
+                }
+                case GENERIC_OPERATOR: {
+                    GenericOperatorNode node = (GenericOperatorNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getOpCode());
+                    node(node.getArgs());
+                    nodes(node.getRetvals());
+                    constants(node.getDescriptors());
+                    break;
+                }
+                case IF: {
+                    IfStatementNode node = (IfStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getConditional());
+                    node(node.getBody());
+                    nodes(node.getElifs());
+                    node(node.getElseStmt());
+                    break;
+                }
+                case IMPORT_EXPORT: {
+                    ImportExportNode node = (ImportExportNode) value;
+                    constant(node.getType());
+                    lineInfo(node.getLineInfo());
+                    bool(node.isWildcard());
+                    if (node.isWildcard()) {
+                        if (node.getValues().length != 0 || node.getAs().length != 0) {
+                            throw new UnencodableException("Wildcard import of named values");
+                        }
+                    } else {
+                        nodes(node.getValues());
+                    }
+                    node(node.getFrom());
+                    if (!node.isWildcard()) {
+                        nodes(node.getAs());
+                    }
+                    writeVarInt(node.getPreDots());
+                    break;
+                }
+                case INCREMENT: {
+                    IncrementNode node = (IncrementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getVariable());
+                    break;
+                }
+                case INDEX: {
+                    IndexNode node = (IndexNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getVar());
+                    nodes(node.getIndices());
+                    break;
+                }
+                case INTERFACE_BODY: {
+                    InterfaceBodyNode node = (InterfaceBodyNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getStatements());
+                    break;
+                }
+                case INTERFACE_DEFINITION: {
+                    InterfaceDefinitionNode node = (InterfaceDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    nodes(node.getSuperclasses());
+                    node(node.getBody());
+                    constants(node.getDescriptors());
+                    nodes(node.getDecorators());
+                    nodes(node.getAnnotations());
+                    break;
+                }
+                case LAMBDA: {
+                    LambdaNode node = (LambdaNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getArgs());
+                    nodes(node.getReturns());
+                    bool(node.isArrow());
+                    node(node.getBody());
+                    break;
+                }
+                case LITERAL: {
+                    LiteralNode node = (LiteralNode) value;
+                    lineInfo(node.getLineInfo());
+                    string(node.getBraceType());
+                    nodes(node.getBuilders());
+                    strings(node.getIsSplats());
+                    break;
+                }
+                case METHOD_DEFINITION: {
+                    MethodDefinitionNode node = (MethodDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getArgs());
+                    nodes(node.getRetval());
+                    node(node.getBody());
+                    constants(node.getDescriptors());
+                    nodes(node.getAnnotations());
+                    nodes(node.getDecorators());
+                    nodes(node.getGenerics());
+                    break;
+                }
+                case NUMBER: {
+                    NumberNode node = (NumberNode) value;
+                    lineInfo(node.getLineInfo());
+                    string(node.getValue().toString());
+                    break;
+                }
+                case OPERATOR: {
+                    OperatorNode node = (OperatorNode) value;
+                    lineInfo(node.getLineInfo());
+                    constant(node.getOperator());
+                    nodes(node.getOperands());
+                    break;
+                }
+                case OPERATOR_DEFINITION: {
+                    OperatorDefinitionNode node = (OperatorDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getOpCode());
+                    nodes(node.getRetType());
+                    node(node.getArgs());
+                    node(node.getBody());
+                    constants(node.getDescriptors());
+                    nodes(node.getAnnotations());
+                    nodes(node.getDecorators());
+                    nodes(node.getGenerics());
+                    break;
+                }
+                case OPERATOR_TYPE:
+                    constant((OperatorTypeNode) value);
+                    break;
+                case PROPERTY_DEFINITION: {
+                    PropertyDefinitionNode node = (PropertyDefinitionNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getType());
+                    node(node.getGet());
+                    node(node.getSetArgs());
+                    node(node.getSet());
+                    constants(node.getDescriptors());
+                    nodes(node.getAnnotations());
+                    nodes(node.getDecorators());
+                    break;
+                }
+                case RAISE: {
+                    RaiseStatementNode node = (RaiseStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getRaised());
+                    node(node.getCond());
+                    node(node.getFrom());
+                    break;
+                }
+                case RANGE_LITERAL: {
+                    RangeLiteralNode node = (RangeLiteralNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getStart());
+                    node(node.getEnd());
+                    node(node.getStep());
+                    break;
+                }
+                case RETURN: {
+                    ReturnStatementNode node = (ReturnStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getReturned());
+                    node(node.getCond());
+                    break;
+                }
+                case SLICE: {
+                    SliceNode node = (SliceNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getStart());
+                    node(node.getEnd());
+                    node(node.getStep());
+                    break;
+                }
+                case SOME: {
+                    SomeStatementNode node = (SomeStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getContained());
+                    node(node.getContainer());
+                    break;
+                }
+                case SPECIAL_OP_ASSIGNMENT: {
+                    SpecialOpAssignmentNode node = (SpecialOpAssignmentNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getAssignment());
+                    bool(node.isColon());
+                    constants(node.getDescriptors());
+                    break;
+                }
+                case SPECIAL_OP_NAME: {
+                    SpecialOpNameNode node = (SpecialOpNameNode) value;
+                    lineInfo(node.getLineInfo());
+                    constant(node.getOperator());
+                    break;
+                }
+                case STATEMENT_BODY: {
+                    StatementBodyNode node = (StatementBodyNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getStatements());
+                    break;
+                }
+                case STATIC_BLOCK: {
+                    StaticBlockNode node = (StaticBlockNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getBody());
+                    break;
+                }
+                case STRING: {
+                    StringNode node = (StringNode) value;
+                    lineInfo(node.getLineInfo());
+                    string(node.getContents());
+                    constants(node.getPrefixes());
+                    break;
+                }
+                case SWITCH: {
+                    SwitchStatementNode node = (SwitchStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getSwitched());
+                    nodes(node.getCases());
+                    break;
+                }
+                case SYNCHRONIZED: {
+                    SynchronizedStatementNode node = (SynchronizedStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getValue());
+                    node(node.getBody());
+                    break;
+                }
+                case TERNARY: {
+                    TernaryNode node = (TernaryNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getIfTrue());
+                    node(node.getStatement());
+                    node(node.getIfFalse());
+                    break;
+                }
+                case TEST_LIST: {
+                    TestListNode node = (TestListNode) value;
+                    writeVarInt(node.size());
+                    for (int i = 0; i < node.size(); i++) {
+                        node(node.get(i));
+                        string(node.getVararg(i));
+                    }
+                    break;
+                }
+                case TRY: {
+                    TryStatementNode node = (TryStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getBody());
+                    node(node.getExcept());
+                    nodes(node.getExcepted());
+                    node(node.getAsVar());
+                    node(node.getElseStmt());
+                    node(node.getFinallyStmt());
+                    break;
+                }
+                case TYPE: {
+                    TypeNode node = (TypeNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    nodes(node.getSubtypes());
+                    bool(node.isVararg());
+                    bool(node.isOptional());
+                    break;
+                }
+                case TYPE_UNION: {
+                    TypeUnionNode node = (TypeUnionNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getSubtypes());
+                    break;
+                }
+                case TYPED_ARGUMENT: {
+                    TypedArgumentNode node = (TypedArgumentNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getType());
+                    node(node.getName());
+                    node(node.getDefaultVal());
+                    bool(node.getVararg());
+                    string(node.getVarargType());
+                    break;
+                }
+                case TYPED_ARGUMENT_LIST: {
+                    TypedArgumentListNode node = (TypedArgumentListNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getPositionArgs());
+                    nodes(node.getArgs());
+                    nodes(node.getNameArgs());
+                    break;
+                }
+                case TYPED_VARIABLE: {
+                    TypedVariableNode node = (TypedVariableNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getType());
+                    node(node.getVariable());
+                    break;
+                }
+                case TYPEDEF: {
+                    TypedefStatementNode node = (TypedefStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getName());
+                    node(node.getType());
+                    break;
+                }
+                case TYPEWISE_AND: {
+                    TypewiseAndNode node = (TypewiseAndNode) value;
+                    lineInfo(node.getLineInfo());
+                    nodes(node.getSubtypes());
+                    break;
+                }
+                case VAR_TYPE:
+                    break;
+                case VARIABLE: {
+                    VariableNode node = (VariableNode) value;
+                    lineInfo(node.getLineInfo());
+                    string(node.getName());
+                    break;
+                }
+                case WHILE: {
+                    WhileStatementNode node = (WhileStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getCond());
+                    node(node.getBody());
+                    node(node.getNobreak());
+                    break;
+                }
+                case WITH: {
+                    WithStatementNode node = (WithStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    node(node.getManaged());
+                    nodes(node.getVars());
+                    node(node.getBody());
+                    break;
+                }
+                case YIELD: {
+                    YieldStatementNode node = (YieldStatementNode) value;
+                    lineInfo(node.getLineInfo());
+                    bool(node.isFrom());
+                    node(node.getYielded());
+                    node(node.getCond());
+                    break;
+                }
+                default:
+                    throw new AssertionError("Unknown tag " + tag);
+            }
+        }
+
+        private void nodes(@Nullable BaseNode[] values) throws UnencodableException {
+            writeVarInt(values == null ? -1 : values.length);
+            if (values != null) {
+                for (BaseNode value : values) {
+                    node(value);
+                }
+            }
+        }
+
+        /**
+         * Write line info, as its position alone if it is from the main
+         * source, or as its index if it has already been written.
+         */
+        private void lineInfo(@Nullable LineInfo info) throws UnencodableException {
+            if (info == null) {
+                writeByte(NO_LINE_INFO);
+                return;
+            } else if (info == LineInfo.empty()) {
+                writeByte(EMPTY_LINE_INFO);
+                return;
+            }
+            Integer id = lineInfos.get(info);
+            if (id != null) {
+                writeByte(SHARED_LINE_INFO);
+                writeVarInt(id);
+                return;
+            }
+            lineInfos.put(info, lineInfos.size());
+            SourceFile source = info.getSource();
+            if (source == main) {
+                writeByte(MAIN_LINE_INFO);
+            } else {
+                writeByte(OTHER_LINE_INFO);
+                source(source);
+            }
+            writeVarInt(SourceFile.lineIndex(info.getPosition()));
+            writeVarInt(SourceFile.offset(info.getPosition()));
+        }
+
+        private void source(@NotNull SourceFile source) throws UnencodableException {
+            Integer id = sources.get(source);
+            if (id != null) {
+                writeVarInt(id);
+                return;
+            }
+            writeVarInt(sources.size());
+            sources.put(source, sources.size());
+            string(source.getPath().toString());
+            string(source.getText().toString());
+            lines(source);
+        }
+
+        private void constant(@NotNull Enum<?> value) throws UnencodableException {
+            writeVarInt(value.ordinal());
+        }
+
+        private void constants(@NotNull Set<? extends Enum<?>> values) throws UnencodableException {
+            writeVarInt(values.size());
+            for (Enum<?> value : values) {
+                constant(value);
+            }
+        }
+
+        private void bool(boolean value) throws UnencodableException {
+            writeByte(value ? 1 : 0);
+        }
+
+        private void strings(@Nullable String[] values) throws UnencodableException {
+            writeVarInt(values == null ? -1 : values.length);
+            if (values != null) {
+                for (String value : values) {
+                    string(value);
+                }
+            }
+        }
+
+        /**
+         * Write a string, or the index of the same string if it has already
+         * been written.
+         * <p>
+         *     The index is one more than the index of the string, zero being
+         *     null. New strings are written with their length, and whether
+         *     all of their characters fit in a byte, in which case each is
+         *     one byte.
+         * </p>
+         */
+        private void string(@Nullable String value) throws UnencodableException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer id = strings.get(value);
+            if (id != null) {
+                writeVarInt(id + 1);
+                return;
+            }
+            writeVarInt(strings.size() + 1);
+            strings.put(value, strings.size());
+            int length = value.length();
+            boolean latin1 = true;
+            for (int i = 0; i < length && latin1; i++) {
+                latin1 = value.charAt(i) < 0x100;
+            }
+            writeVarInt(length << 1 | (latin1 ? 1 : 0));
+            for (int i = 0; i < length; i++) {
+                if (latin1) {
+                    writeByte(value.charAt(i));
+                } else {
+                    writeVarInt(value.charAt(i));
+                }
+            }
+        }
+
+        void writeByte(int value) throws UnencodableException {
+            if (size == bytes.length) {
+                if (size == MAX_SIZE) {
+                    throw new UnencodableException("Tree too large to encode");
+                }
+                bytes = Arrays.copyOf(bytes, (int) Math.min(2L * size, MAX_SIZE));
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) throws UnencodableException {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        void write(@NotNull byte[] values) throws UnencodableException {
+            for (byte value : values) {
+                writeByte(value);
+            }
+        }
+
+        void writeVarInt(int value) throws UnencodableException {
+            writeVarLong(value);
+        }
+
+        /**
+         * Write a number in as few bytes as it needs, seven bits to a byte,
+         * zigzag-encoded so that small negative numbers are short as well.
+         */
+        private void writeVarLong(long value) throws UnencodableException {
+            long bits = (value << 1) ^ (value >> 63);
+            while ((bits & ~0x7fL) != 0) {
+                writeByte((int) (bits & 0x7f) | 0x80);
+                bits >>>= 7;
+            }
+            writeByte((int) bits);
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * The bytes written so far, which are only valid until the next
+         * write.
+         */
+        @NotNull
+        byte[] bytes() {
+            return bytes;
+        }
+
+        @NotNull
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /**
+     * The decoder of trees.
+     * <p>
+     *     Anything that does not decode to what a {@link Writer} could have
+     *     written throws an unchecked exception, whether it is an unknown tag
+     *     or a node of the wrong type, so damaged bytes can never produce
+     *     anything but a well-formed tree.
+     * </p>
+     */
+    static final class Reader {
+        private final byte[] bytes;
+        private final int end;
+        private final SourceFile main;
+        private final List<BaseNode> nodes = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<SourceFile> sources = new ArrayList<>();
+        private final List<LineInfo> lineInfos = new ArrayList<>();
+        private int index;
+
+        /**
+         * Create a reader of a range of bytes.
+         *
+         * @param bytes The bytes
+         * @param start The index of the first byte to read
+         * @param end The index after the last byte to read
+         * @param main The source the line info written without one is from
+         */
+        Reader(@NotNull byte[] bytes, int start, int end, @Nullable SourceFile main) {
+            this.bytes = bytes;
+            this.index = start;
+            this.end = end;
+            this.main = main;
+        }
+
+        boolean atEnd() {
+            return index == end;
+        }
+
+        /**
+         * Read a table of lines into a source with none yet.
+         *
+         * @param source The source to add the lines to
+         */
+        void lines(@NotNull SourceFile source) {
+            int count = readLength();
+            for (int i = 0; i < count; i++) {
+                int lineNumber = readVarInt();
+                String line = string();
+                int index = line == null
+                        ? source.addLine(readVarInt(), readVarInt(), lineNumber)
+                        : source.addLine(line, lineNumber);
+                int breakCount = readVarInt();
+                if (breakCount >= 0) {
+                    int[] breaks = new int[checkLength(breakCount)];
+                    for (int j = 0; j < breakCount; j++) {
+                        breaks[j] = readVarInt();
+                    }
+                    source.setLineBreaks(index, breaks);
+                }
+            }
+            source.finish();
+        }
+
+        /**
+         * Read a node, checking that it is of the given type.
+         *
+         * @param type The type the node must be
+         * @return The node
+         */
+        @Nullable
+        <T> T node(@NotNull Class<T> type) {
+            return type.cast(node());
+        }
+
+        @Nullable
+        private BaseNode node() {
+            byte tag = readByte();
+            if (tag == NULL) {
+                return null;
+            } else if (tag == REF) {
+                return nodes.get(readVarInt());
+            }
+            BaseNode node = create(tag);
+            nodes.add(node);
+            return node;
+        }
+
+        @NotNull
+        private BaseNode create(byte tag) {
+            switch (tag) {
+                case ARGUMENT:
+                    return new ArgumentNode(lineInfo(), node(VariableNode.class), string(), node(TestNode.class));
+                case ASSERT:
+                    return new AssertStatementNode(lineInfo(), node(TestNode.class));
+                case ASSIGNMENT:
+                    return new AssignmentNode(
+                            lineInfo(), bool(), nodes(AssignableNode[]::new), node(TestListNode.class)
+                    );
+                case AUGMENTED_ASSIGNMENT:
+                    return new AugmentedAssignmentNode(
+                            lineInfo(), constant(AUG_ASSIGNS), node(NameNode.class), node(TestNode.class)
+                    );
+                case BREAK:
+                    return new BreakStatementNode(lineInfo(), readVarInt(), node(TestNode.class), node(TestNode.class));
+                case CASE:
+                    return new CaseStatementNode(
+                            lineInfo(), nodes(TestNode[]::new), node(StatementBodyNode.class), bool()
+                    );
+                case CLASS_BODY:
+                    return new ClassBodyNode(lineInfo(), nodes(ClassStatementNode[]::new));
+                case CLASS_DEFINITION: {
+                    ClassDefinitionNode node = new ClassDefinitionNode(
+                            lineInfo(), node(TypeNode.class), nodes(TypeLikeNode[]::new), node(ClassBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addDecorators(nodes(NameNode[]::new));
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    return node;
+                }
+                case COMPREHENSION:
+                    return new ComprehensionNode(
+                            lineInfo(), string(), nodes(VarLikeNode[]::new), nodes(ArgumentNode[]::new),
+                            node(TestListNode.class), node(TestNode.class), node(TestNode.class)
+                    );
+                case CONTEXT_DEFINITION: {
+                    ContextDefinitionNode node = new ContextDefinitionNode(
+                            lineInfo(), node(VariableNode.class), node(TypedArgumentListNode.class),
+                            node(StatementBodyNode.class), node(StatementBodyNode.class),
+                            nodes(ArgumentNode[]::new), node(ClassBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    node.addDecorators(nodes(NameNode[]::new));
+                    return node;
+                }
+                case CONTINUE:
+                    return new ContinueStatementNode(lineInfo(), node(TestNode.class));
+                case DECLARATION: {
+                    DeclarationNode node = new DeclarationNode(
+                            lineInfo(), node(TypeLikeNode.class), node(VariableNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    return node;
+                }
+                case DECLARED_ASSIGNMENT: {
+                    DeclaredAssignmentNode node = new DeclaredAssignmentNode(
+                            lineInfo(), bool(), nodes(TypedVariableNode[]::new), node(TestListNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    return node;
+                }
+                case DECREMENT:
+                    return new DecrementNode(lineInfo(), node(NameNode.class));
+                case DEFAULT:
+                    return new DefaultStatementNode(lineInfo(), node(StatementBodyNode.class), bool());
+                case DEFER:
+                    return new DeferStatementNode(lineInfo(), node(StatementBodyNode.class));
+                case DELETE:
+                    return new DeleteStatementNode(lineInfo(), node(TestNode.class));
+                case DESCRIPTOR:
+                    return constant(DESCRIPTORS);
+                case DICT_COMPREHENSION:
+                    return new DictComprehensionNode(
+                            lineInfo(), node(TestNode.class), node(TestNode.class), nodes(VarLikeNode[]::new),
+                            node(TestListNode.class), node(TestNode.class), node(TestNode.class)
+                    );
+                case DICT_LITERAL:
+                    return new DictLiteralNode(lineInfo(), nodes(TestNode[]::new), nodes(TestNode[]::new));
+                case DO:
+                    return new DoStatementNode(lineInfo(), node(StatementBodyNode.class), node(TestNode.class));
+                case DOTIMES:
+                    return new DotimesStatementNode(
+                            lineInfo(), node(TestNode.class),
+                            node(StatementBodyNode.class), node(StatementBodyNode.class)
+                    );
+                case DOTTED_VAR:
+                    return new DottedVar(lineInfo(), string(), node(NameNode.class));
+                case DOTTED_VARIABLE:
+                    return new DottedVariableNode(nonNull(node(TestNode.class)), nodes(DottedVar[]::new));
+                case ELIF:
+                    return new ElifStatementNode(lineInfo(), node(TestNode.class), node(StatementBodyNode.class));
+                case EMPTY_TEST:
+                    return (BaseNode) TestNode.empty();
+                case ENUM_DEFINITION: {
+                    EnumDefinitionNode node = new EnumDefinitionNode(
+                            lineInfo(), node(TypeNode.class), nodes(TypeLikeNode[]::new),
+                            nodes(EnumKeywordNode[]::new), node(ClassBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addDecorators(nodes(NameNode[]::new));
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    return node;
+                }
+                case ESCAPED_OPERATOR:
+                    return new EscapedOperatorNode(lineInfo(), constant(OP_FUNCS));
+                case FOR:
+                    return new ForStatementNode(
+                            lineInfo(), nodes(VarLikeNode[]::new), node(TestListNode.class),
+                            node(StatementBodyNode.class), node(StatementBodyNode.class)
+                    );
+                case FORMATTED_STRING:
+                    return new FormattedStringNode(
+                            lineInfo(), strings(), nodes(TestNode[]::new), formats(), prefixes()
+                    );
+                case FUNCTION_CALL:
+                    return new FunctionCallNode(lineInfo(), node(TestNode.class), nodes(ArgumentNode[]::new));
+                case FUNCTION_DEFINITION: {
+                    FunctionDefinitionNode node = new FunctionDefinitionNode(
+                            lineInfo(), node(VariableNode.class), node(TypedArgumentListNode.class),
+                            nodes(TypeLikeNode[]::new), node(StatementBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addDecorators(nodes(NameNode[]::new));
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    node.addGenerics(nodes(TypeLikeNode[]::new));
+                    return node;
+                }
+                case GENERIC_FUNCTION: {
+                    GenericFunctionNode node = new GenericFunctionNode(
+                            lineInfo(), node(VariableNode.class), node(TypedArgumentListNode.class),
+                            nodes(TypeLikeNode[]::new)
+                    );
+                    node.addDescriptor(descriptors());
+                    return node;
+                }
+                case GENERIC_OPERATOR: {
+                    GenericOperatorNode node = new GenericOperatorNode(
+                            lineInfo(), node(SpecialOpNameNode.class), node(TypedArgumentListNode.class),
+                            nodes(TypeLikeNode[]::new)
+                    );
+                    node.addDescriptor(descriptors());
+                    return node;
+                }
+                case IF:
+                    return new IfStatementNode(
+                            lineInfo(), node(TestNode.class), node(StatementBodyNode.class),
+                            nodes(ElifStatementNode[]::new), node(StatementBodyNode.class)
+                    );
+                case IMPORT_EXPORT:
+                    return importExport();
+                case INCREMENT:
+                    return new IncrementNode(lineInfo(), node(NameNode.class));
+                case INDEX:
+                    return new IndexNode(lineInfo(), node(TestNode.class), nodes(TestNode[]::new));
+                case INTERFACE_BODY:
+                    return new InterfaceBodyNode(lineInfo(), nodes(InterfaceStatementNode[]::new));
+                case INTERFACE_DEFINITION: {
+                    InterfaceDefinitionNode node = new InterfaceDefinitionNode(
+                            lineInfo(), node(TypeNode.class), nodes(TypeLikeNode[]::new),
+                            node(InterfaceBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addDecorators(nodes(NameNode[]::new));
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    return node;
+                }
+                case LAMBDA:
+                    return new LambdaNode(
+                            lineInfo(), node(TypedArgumentListNode.class), nodes(TypeLikeNode[]::new),
+                            bool(), node(StatementBodyNode.class)
+                    );
+                case LITERAL:
+                    return new LiteralNode(lineInfo(), string(), nodes(TestNode[]::new), strings());
+                case METHOD_DEFINITION: {
+                    MethodDefinitionNode node = new MethodDefinitionNode(
+                            lineInfo(), node(VariableNode.class), node(TypedArgumentListNode.class),
+                            nodes(TypeLikeNode[]::new), node(StatementBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    node.addDecorators(nodes(NameNode[]::new));
+                    node.addGenerics(nodes(TypeLikeNode[]::new));
+                    return node;
+                }
+                case NUMBER:
+                    return new NumberNode(lineInfo(), new BigDecimal(nonNull(string())));
+                case OPERATOR:
+                    return new OperatorNode(lineInfo(), constant(OPERATORS), nodes(ArgumentNode[]::new));
+                case OPERATOR_DEFINITION: {
+                    OperatorDefinitionNode node = new OperatorDefinitionNode(
+                            lineInfo(), nonNull(node(SpecialOpNameNode.class)), nonNull(nodes(TypeLikeNode[]::new)),
+                            nonNull(node(TypedArgumentListNode.class)), nonNull(node(StatementBodyNode.class))
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    node.addDecorators(nodes(NameNode[]::new));
+                    node.addGenerics(nodes(TypeLikeNode[]::new));
+                    return node;
+                }
+                case OPERATOR_TYPE:
+                    return constant(OPERATORS);
+                case PROPERTY_DEFINITION: {
+                    PropertyDefinitionNode node = new PropertyDefinitionNode(
+                            lineInfo(), node(VariableNode.class), node(TypeLikeNode.class),
+                            node(StatementBodyNode.class), node(TypedArgumentListNode.class),
+                            node(StatementBodyNode.class)
+                    );
+                    node.addDescriptor(descriptors());
+                    node.addAnnotations(nodes(NameNode[]::new));
+                    node.addDecorators(nodes(NameNode[]::new));
+                    return node;
+                }
+                case RAISE:
+                    return new RaiseStatementNode(
+                            lineInfo(), node(TestNode.class), node(TestNode.class), node(TestNode.class)
+                    );
+                case RANGE_LITERAL:
+                    return new RangeLiteralNode(
+                            lineInfo(), node(TestNode.class), node(TestNode.class), node(TestNode.class)
+                    );
+                case RETURN:
+                    return new ReturnStatementNode(lineInfo(), node(TestListNode.class), node(TestNode.class));
+                case SLICE:
+                    return new SliceNode(lineInfo(), node(TestNode.class), node(TestNode.class), node(TestNode.class));
+                case SOME:
+                    return new SomeStatementNode(lineInfo(), node(TestNode.class), node(TestNode.class));
+                case SPECIAL_OP_ASSIGNMENT: {
+                    SpecialOpAssignmentNode node = new SpecialOpAssignmentNode(
+                            lineInfo(), node(SpecialOpNameNode.class), node(TestNode.class), bool()
+                    );
+                    node.addDescriptor(descriptors());
+                    return node;
+                }
+                case SPECIAL_OP_NAME:
+                    return new SpecialOpNameNode(lineInfo(), constant(OPERATOR_SPS));
+                case STATEMENT_BODY:
+                    return new StatementBodyNode(lineInfo(), nodes(IndependentNode[]::new));
+                case STATIC_BLOCK:
+                    return new StaticBlockNode(lineInfo(), nonNull(node(StatementBodyNode.class)));
+                case STRING:
+                    return new StringNode(lineInfo(), string(), prefixes());
+                case SWITCH:
+                    return new SwitchStatementNode(lineInfo(), node(TestNode.class), nodes(CaseStatementNode[]::new));
+                case SYNCHRONIZED:
+                    return new SynchronizedStatementNode(
+                            lineInfo(), node(TestNode.class), node(StatementBodyNode.class)
+                    );
+                case TERNARY:
+                    return new TernaryNode(
+                            lineInfo(), node(TestNode.class), node(TestNode.class), node(TestNode.class)
+                    );
+                case TEST_LIST:
+                    return testList();
+                case TRY:
+                    return new TryStatementNode(
+                            lineInfo(), node(StatementBodyNode.class), node(StatementBodyNode.class),
+                            nodes(TypeLikeNode[]::new), node(VariableNode.class),
+                            node(StatementBodyNode.class), node(StatementBodyNode.class)
+                    );
+                case TYPE:
+                    return new TypeNode(
+                            lineInfo(), node(DottedVariableNode.class), nodes(TypeLikeNode[]::new), bool(), bool()
+                    );
+                case TYPE_UNION:
+                    return new TypeUnionNode(lineInfo(), nodes(TypeLikeNode[]::new));
+                case TYPED_ARGUMENT:
+                    return new TypedArgumentNode(
+                            lineInfo(), node(TypeLikeNode.class), node(VariableNode.class),
+                            node(TestNode.class), bool(), string()
+                    );
+                case TYPED_ARGUMENT_LIST:
+                    return new TypedArgumentListNode(
+                            lineInfo(), nodes(TypedArgumentNode[]::new),
+                            nodes(TypedArgumentNode[]::new), nodes(TypedArgumentNode[]::new)
+                    );
+                case TYPED_VARIABLE:
+                    return new TypedVariableNode(lineInfo(), node(TypeLikeNode.class), node(VariableNode.class));
+                case TYPEDEF:
+                    return new TypedefStatementNode(lineInfo(), node(TypeNode.class), node(TypeLikeNode.class));
+                case TYPEWISE_AND:
+                    return new TypewiseAndNode(lineInfo(), nodes(TypeLikeNode[]::new));
+                case VAR_TYPE:
+                    return TypeNode.var();
+                case VARIABLE:
+                    return new VariableNode(lineInfo(), string());
+                case WHILE:
+                    return new WhileStatementNode(
+                            lineInfo(), node(TestNode.class),
+                            node(StatementBodyNode.class), node(StatementBodyNode.class)
+                    );
+                case WITH:
+                    return new WithStatementNode(
+                            lineInfo(), node(TestListNode.class),
+                            nodes(TypedVariableNode[]::new), node(StatementBodyNode.class)
+                    );
+                case YIELD:
+                    return new YieldStatementNode(lineInfo(), bool(), node(TestListNode.class), node(TestNode.class));
+                default:
+                    throw new IllegalStateException("Unknown tag " + tag);
+            }
+        }
+
+        @NotNull
+        private ImportExportNode importExport() {
+            ImportExportNode.Type type = constant(PORT_TYPES);
+            LineInfo info = lineInfo();
+            if (bool()) {
+                return new ImportExportNode(type, info, node(DottedVariableNode.class), readVarInt(), true);
+            }
+            return new ImportExportNode(
+                    type, info, nodes(DottedVariableNode[]::new), node(DottedVariableNode.class),
+                    nodes(DottedVariableNode[]::new), readVarInt()
+            );
+        }
+
+        @NotNull
+        private TestListNode testList() {
+            int count = readLength();
+            TestNode[] tests = new TestNode[count];
+            String[] varargs = new String[count];
+            for (int i = 0; i < count; i++) {
+                tests[i] = node(TestNode.class);
+                varargs[i] = string();
+            }
+            return new TestListNode(tests, varargs);
+        }
+
+        @NotNull
+        private FormattedStringNode.FormatInfo[] formats() {
+            FormattedStringNode.FormatInfo[] formats = new FormattedStringNode.FormatInfo[readLength()];
+            for (int i = 0; i < formats.length; i++) {
+                formats[i] = new FormattedStringNode.FormatInfo(string());
+            }
+            return formats;
+        }
+
+        /**
+         * Read an array of nodes, each of which must fit in the array.
+         */
+        @Nullable
+        private <T> T[] nodes(@NotNull IntFunction<T[]> array) {
+            int length = readVarInt();
+            if (length < 0) {
+                return null;
+            }
+            T[] result = array.apply(checkLength(length));
+            Object[] values = result;
+            for (int i = 0; i < length; i++) {
+                values[i] = node();
+            }
+            return result;
+        }
+
+        @Nullable
+        private LineInfo lineInfo() {
+            byte kind = readByte();
+            SourceFile source;
+            switch (kind) {
+                case NO_LINE_INFO:
+                    return null;
+                case EMPTY_LINE_INFO:
+                    return LineInfo.empty();
+                case MAIN_LINE_INFO:
+                    source = nonNull(main);
+                    break;
+                case OTHER_LINE_INFO:
+                    source = source();
+                    break;
+                case SHARED_LINE_INFO:
+                    return lineInfos.get(readVarInt());
+                default:
+                    throw new IllegalStateException("Unknown line info " + kind);
+            }
+            int line = readVarInt();
+            LineInfo info = new LineInfo(source, SourceFile.position(line, readVarInt()));
+            lineInfos.add(info);
+            return info;
+        }
+
+        @NotNull
+        private SourceFile source() {
+            int id = readVarInt();
+            if (id < sources.size()) {
+                return sources.get(id);
+            } else if (id != sources.size()) {
+                throw new IllegalStateException("Unknown source " + id);
+            }
+            String path = nonNull(string());
+            SourceFile source = new SourceFile(Path.of(path), nonNull(string()));
+            lines(source);
+            sources.add(source);
+            return source;
+        }
+
+        @NotNull
+        private <E extends Enum<E>> E constant(@NotNull E[] values) {
+            return values[readVarInt()];
+        }
+
+        @NotNull
+        private EnumSet<DescriptorNode> descriptors() {
+            EnumSet<DescriptorNode> result = EnumSet.noneOf(DescriptorNode.class);
+            int count = readLength();
+            for (int i = 0; i < count; i++) {
+                result.add(constant(DESCRIPTORS));
+            }
+            return result;
+        }
+
+        @NotNull
+        private EnumSet<StringPrefix> prefixes() {
+            EnumSet<StringPrefix> result = EnumSet.noneOf(StringPrefix.class);
+            int count = readLength();
+            for (int i = 0; i < count; i++) {
+                result.add(constant(PREFIXES));
+            }
+            return result;
+        }
+
+        private boolean bool() {
+            return readByte() != 0;
+        }
+
+        @Nullable
+        private String[] strings() {
+            int length = readVarInt();
+            if (length < 0) {
+                return null;
+            }
+            String[] result = new String[checkLength(length)];
+            for (int i = 0; i < length; i++) {
+                result[i] = string();
+            }
+            return result;
+        }
+
+        @Nullable
+        private String string() {
+            int id = readVarInt() - 1;
+            if (id < 0) {
+                return null;
+            } else if (id < strings.size()) {
+                return strings.get(id);
+            } else if (id != strings.size()) {
+                throw new IllegalStateException("Unknown string " + id);
+            }
+            int header = readVarInt();
+            int length = checkLength(header >>> 1);
+            String value;
+            if ((header & 1) != 0) {
+                value = new String(bytes, index, length, StandardCharsets.ISO_8859_1);
+                index += length;
+            } else {
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = (char) readVarInt();
+                }
+                value = new String(chars);
+            }
+            strings.add(value);
+            return value;
+        }
+
+        @Contract(value = "null -> fail; !null -> param1", pure = true)
+        @NotNull
+        private static <T> T nonNull(@Nullable T value) {
+            if (value == null) {
+                throw new IllegalStateException("Unexpected null");
+            }
+            return value;
+        }
+
+        private byte readByte() {
+            if (index >= end) {
+                throw new IllegalStateException("Unexpected end of tree");
+            }
+            return bytes[index++];
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = value << 8 | readByte() & 0xff;
+            }
+            return value;
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        /**
+         * Read the number of elements of something, each of which takes at
+         * least one byte, so that bad bytes cannot make this allocate more
+         * than there are bytes left.
+         */
+        private int readLength() {
+            return checkLength(readVarInt());
+        }
+
+        private int checkLength(int length) {
+            if (length < 0 || length > end - index) {
+                throw new IllegalStateException("Bad length " + length);
+            }
+            return length;
+        }
+
+        private long readVarLong() {
+            long bits = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = readByte();
+                bits |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return (bits >>> 1) ^ -(bits & 1);
+                }
+            }
+        }
+    }
+}
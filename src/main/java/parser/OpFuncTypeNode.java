@@ -72,7 +72,10 @@ public enum OpFuncTypeNode {
     }
 
     public static OpFuncTypeNode parse(@NotNull TokenList tokens) {
-        OpFuncTypeNode operator = find(tokens.tokenSequence().replaceFirst("^\\\\", ""));
+        OpFuncTypeNode operator = tokens.getFirst().opFunc();
+        if (operator == null) {
+            operator = find(tokens.tokenSequence().replaceFirst("^\\\\", ""));
+        }
         tokens.nextToken();
         return operator;
     }
@@ -101,7 +101,10 @@ public enum OpSpTypeNode {
     }
 
     public static OpSpTypeNode parse(@NotNull TokenList tokens) {
-        OpSpTypeNode operator = find(tokens.tokenSequence().replaceFirst("operator *", ""));
+        OpSpTypeNode operator = tokens.getFirst().operatorSp();
+        if (operator == null) {
+            operator = find(tokens.tokenSequence().replaceFirst("operator *", ""));
+        }
         tokens.nextToken();
         return operator;
     }
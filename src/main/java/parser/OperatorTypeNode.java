@@ -152,7 +152,8 @@ public enum OperatorTypeNode implements AtomicNode {
     @NotNull
     static OperatorTypeNode fromToken(@NotNull Token token) {
         assert token.is(TokenType.OPERATOR, TokenType.KEYWORD);
-        return findOp(token.sequence);
+        OperatorTypeNode op = token.operator();
+        return op != null ? op : findOp(token.sequence);
     }
 
     @Contract(pure = true)
@@ -8,6 +8,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class Parser {
     private final TokenList tokens;
@@ -48,6 +50,60 @@ public class Parser {
 
     @NotNull
     public static TopNode parse(@NotNull File f) {
-        return parse(f.toPath(), Tokenizer.parse(f));
+        return parse(f, false);
+    }
+
+    @NotNull
+    public static TopNode parse(@NotNull File f, boolean pipelined) {
+        return parse(f.toPath(), Tokenizer.parse(f, pipelined));
+    }
+
+    /**
+     * Parse a file one top-level statement at a time.
+     * <p>
+     *     Each statement is only parsed when it is asked for, and nothing
+     *     keeps it or the tokens it was parsed from afterwards, so a caller
+     *     which is done with each statement before asking for the next never
+     *     holds more than one of them. Errors are thrown from {@link
+     *     Iterator#next()} when the statement they are in is reached.
+     * </p>
+     * @param f The file to parse
+     * @return The statements of the file
+     */
+    @NotNull
+    public static Iterator<IndependentNode> parseStatements(@NotNull File f) {
+        return parseStatements(f, false);
+    }
+
+    /**
+     * Parse a file one top-level statement at a time, optionally tokenizing
+     * it on a separate thread.
+     * @param f The file to parse
+     * @param pipelined Whether or not to tokenize on a separate thread
+     * @return The statements of the file
+     * @see #parseStatements(File)
+     */
+    @NotNull
+    public static Iterator<IndependentNode> parseStatements(@NotNull File f, boolean pipelined) {
+        TokenList tokens = Tokenizer.parse(f, pipelined);
+        tokens.passNewlines();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !tokens.tokenIs(TokenType.EPSILON);
+            }
+
+            @Override
+            public IndependentNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                IndependentNode statement = IndependentNode.parse(tokens);
+                if (!tokens.tokenIs(TokenType.EPSILON)) {
+                    tokens.Newline();
+                }
+                return statement;
+            }
+        };
     }
 }
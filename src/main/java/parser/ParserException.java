@@ -42,7 +42,7 @@ public class ParserException extends RuntimeException {
     @NotNull
     @Contract("_, _ -> new")
     public static ParserException of(String message, @NotNull Token token) {
-        return  ParserException.of(message, token.lineInfo);
+        return  ParserException.of(message, token.lineInfo());
     }
 
     @NotNull
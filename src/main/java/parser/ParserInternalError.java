@@ -46,7 +46,7 @@ public class ParserInternalError extends RuntimeException {
 
     @NotNull
     public static ParserInternalError of(String message, @NotNull Token info) {
-        return of(message, info.lineInfo);
+        return of(message, info.lineInfo());
     }
 
     @NotNull
@@ -0,0 +1,411 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The text of a source file, along with the table of its lines.
+ * <p>
+ *     One of these is shared between every {@link Token} and {@link
+ *     LineInfo} from the same file, which refer to their place in it by a
+ *     {@link #position(int, int) packed position}: the index of the line in
+ *     the table and the offset within that line. Line numbers and columns
+ *     are worked out from the table when asked for.
+ * </p>
+ * <p>
+ *     Most lines are stored only as a pair of offsets into the source text,
+ *     so the text of a line is only created when it is needed for a
+ *     diagnostic. Lines which differ from the source text, such as those
+ *     joined with a backslash or changed by normalization, are kept as
+ *     strings instead.
+ * </p>
+ * <p>
+ *     When tokenized by a {@link TokenPipeline}, lines are added on one
+ *     thread while the parser reads them on another. Each line is added
+ *     before any token on it is handed over, and the arrays are volatile so
+ *     that the parser always sees them as they were when they were replaced.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see LineInfo
+ */
+final class SourceFile {
+    static final SourceFile EMPTY = new SourceFile(Path.of(""), "");
+
+    static {
+        EMPTY.addLine(0, 0, -1);
+    }
+
+    private final Path path;
+    private volatile CharSequence text;
+    private int size;
+    private volatile int[] bounds = new int[32];
+    private volatile int[] lineNumbers = new int[16];
+    private volatile String[] lines;
+    private volatile int[][] lineBreaks;
+
+    @Contract(pure = true)
+    SourceFile(Path path, @NotNull CharSequence text) {
+        this.path = path;
+        this.text = text;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * Add a line which is exactly the given range of the source text.
+     *
+     * @param start The start of the line in the source
+     * @param end The end of the line in the source
+     * @param lineNumber The line number of the start of the line
+     * @return The index of the new line
+     */
+    int addLine(int start, int end, int lineNumber) {
+        ensureCapacity();
+        bounds[2 * size] = start;
+        bounds[2 * size + 1] = end;
+        lineNumbers[size] = lineNumber;
+        return size++;
+    }
+
+    /**
+     * Add a line which was derived from the given range of the source text.
+     * <p>
+     *     If the line is still the same as the source, only its offsets are
+     *     stored.
+     * </p>
+     *
+     * @param line The text of the line
+     * @param start The start of the range in the source
+     * @param end The end of the range in the source
+     * @param lineNumber The line number of the start of the line
+     * @return The index of the new line
+     */
+    int addLine(@NotNull String line, int start, int end, int lineNumber) {
+        if (line.length() == end - start && TokenScanner.regionMatches(text, start, end, line)) {
+            return addLine(start, end, lineNumber);
+        } else {
+            return addLine(line, lineNumber);
+        }
+    }
+
+    /**
+     * Add a line which is not present verbatim in the source text.
+     *
+     * @param line The text of the line
+     * @param lineNumber The line number of the start of the line
+     * @return The index of the new line
+     */
+    int addLine(@NotNull String line, int lineNumber) {
+        int index = addLine(0, 0, lineNumber);
+        if (lines == null) {
+            lines = new String[lineNumbers.length];
+        } else if (lines.length <= index) {
+            lines = Arrays.copyOf(lines, lineNumbers.length);
+        }
+        lines[index] = line;
+        return index;
+    }
+
+    /**
+     * Create the table for an edited version of the file, beginning with the
+     * lines of this file before the edit.
+     *
+     * @param text The edited text of the file
+     * @param lines The number of lines to keep
+     * @return The new table
+     */
+    @NotNull
+    SourceFile withPrefix(@NotNull CharSequence text, int lines) {
+        SourceFile result = new SourceFile(path, text);
+        result.copyLines(this, 0, lines, 0, 0);
+        return result;
+    }
+
+    /**
+     * Append the lines of another version of the file from a certain line
+     * onwards, moved to where they now are.
+     *
+     * @param from The other version of the file
+     * @param start The index of the first line to append
+     * @param offsetDelta The distance the text of the lines has moved
+     * @param lineNumberDelta The number of lines the lines have moved by
+     */
+    void appendLines(@NotNull SourceFile from, int start, int offsetDelta, int lineNumberDelta) {
+        copyLines(from, start, from.size, offsetDelta, lineNumberDelta);
+    }
+
+    /**
+     * Append a range of the lines of another table of the same text.
+     *
+     * @param from The other table
+     * @param start The index of the first line to append
+     * @param end The index after the last line to append
+     */
+    void appendLines(@NotNull SourceFile from, int start, int end) {
+        copyLines(from, start, end, 0, 0);
+    }
+
+    /**
+     * The number of lines in the table.
+     *
+     * @return The number of lines
+     */
+    int lineCount() {
+        return size;
+    }
+
+    /**
+     * The offset in the source text of the start of a line.
+     *
+     * @param index The index of the line
+     * @return The start of the line
+     */
+    int lineStart(int index) {
+        return bounds[2 * index];
+    }
+
+    /**
+     * The offset in the source text of the end of a line.
+     *
+     * @param index The index of the line
+     * @return The end of the line
+     */
+    int lineEnd(int index) {
+        return bounds[2 * index + 1];
+    }
+
+    /**
+     * The line number of the start of a line.
+     *
+     * @param index The index of the line
+     * @return The line number
+     */
+    int startLineNumber(int index) {
+        return lineNumbers[index];
+    }
+
+    /**
+     * The text of a line, if it differs from the source text and so is kept
+     * as a string of its own.
+     *
+     * @param index The index of the line
+     * @return The text of the line, or null if it is a range of the source
+     */
+    @Nullable
+    String storedLine(int index) {
+        return lines != null && index < lines.length ? lines[index] : null;
+    }
+
+    /**
+     * Remove every line from a certain index onwards.
+     *
+     * @param lines The number of lines to keep
+     */
+    void truncate(int lines) {
+        assert lines <= size;
+        for (int i = lines; i < size; i++) {
+            if (this.lines != null && i < this.lines.length) {
+                this.lines[i] = null;
+            }
+            if (lineBreaks != null && i < lineBreaks.length) {
+                lineBreaks[i] = null;
+            }
+        }
+        size = lines;
+    }
+
+    private void copyLines(@NotNull SourceFile from, int start, int end, int offsetDelta, int lineNumberDelta) {
+        for (int i = start; i < end; i++) {
+            int lineNumber = from.lineNumbers[i] + lineNumberDelta;
+            int index;
+            if (from.lines != null && i < from.lines.length && from.lines[i] != null) {
+                index = addLine(from.lines[i], lineNumber);
+            } else {
+                index = addLine(from.bounds[2 * i] + offsetDelta, from.bounds[2 * i + 1] + offsetDelta, lineNumber);
+            }
+            int[] breaks = from.breaks(i);
+            if (breaks != null) {
+                setLineBreaks(index, breaks);
+            }
+        }
+    }
+
+    /**
+     * Set the offsets in a line at which the line number is advanced,
+     * because a backslash-escaped line was joined onto it.
+     *
+     * @param index The index of the line
+     * @param breaks The sorted offsets of the breaks
+     */
+    void setLineBreaks(int index, @NotNull int[] breaks) {
+        if (lineBreaks == null) {
+            lineBreaks = new int[lineNumbers.length][];
+        } else if (lineBreaks.length <= index) {
+            lineBreaks = Arrays.copyOf(lineBreaks, lineNumbers.length);
+        }
+        lineBreaks[index] = breaks;
+    }
+
+    /**
+     * Get the text of a line.
+     *
+     * @param index The index of the line
+     * @return The text of the line
+     */
+    @NotNull
+    String line(int index) {
+        if (lines != null && index < lines.length && lines[index] != null) {
+            return lines[index];
+        }
+        return text.subSequence(bounds[2 * index], bounds[2 * index + 1]).toString();
+    }
+
+    /**
+     * Get the text of the given length starting at a position.
+     *
+     * @param position The packed position of the start of the text
+     * @param length The length of the text
+     * @return The text
+     */
+    @NotNull
+    String text(long position, int length) {
+        int line = lineIndex(position);
+        int offset = offset(position);
+        if (lines != null && line < lines.length && lines[line] != null) {
+            return lines[line].substring(offset, offset + length);
+        }
+        int start = bounds[2 * line] + offset;
+        return text.subSequence(start, start + length).toString();
+    }
+
+    /**
+     * Test whether the text of the given length starting at a position is
+     * equal to a string, without creating the text.
+     *
+     * @param position The packed position of the start of the text
+     * @param length The length of the text
+     * @param value The string to compare against
+     * @return Whether or not the text is equal to the string
+     */
+    boolean regionMatches(long position, int length, @NotNull String value) {
+        if (value.length() != length) {
+            return false;
+        }
+        int line = lineIndex(position);
+        int offset = offset(position);
+        if (lines != null && line < lines.length && lines[line] != null) {
+            return lines[line].regionMatches(offset, value, 0, length);
+        }
+        int start = bounds[2 * line] + offset;
+        return TokenScanner.regionMatches(text, start, start + length, value);
+    }
+
+    /**
+     * The line number of a position.
+     *
+     * @param position The packed position
+     * @return The line number
+     */
+    int lineNumber(long position) {
+        int line = lineIndex(position);
+        int[] breaks = breaks(line);
+        int offset = offset(position);
+        return lineNumbers[line] + (breaks == null ? 0 : breaksThrough(breaks, offset));
+    }
+
+    /**
+     * The column of a position, counted from the last line break before it.
+     *
+     * @param position The packed position
+     * @return The column
+     */
+    int column(long position) {
+        int[] breaks = breaks(lineIndex(position));
+        int offset = offset(position);
+        if (breaks == null) {
+            return offset;
+        }
+        int before = breaksThrough(breaks, offset - 1);
+        return offset - (before == 0 ? 0 : breaks[before - 1]);
+    }
+
+    /**
+     * Compact the source once the file has been completely tokenized.
+     * <p>
+     *     A source which was decoded into a buffer is copied into a string,
+     *     which is stored more compactly, and the line table is trimmed.
+     * </p>
+     */
+    void finish() {
+        if (!(text instanceof String)) {
+            text = text.toString();
+        }
+        bounds = Arrays.copyOf(bounds, 2 * size);
+        lineNumbers = Arrays.copyOf(lineNumbers, size);
+    }
+
+    /**
+     * The offsets in a line at which the line number is advanced.
+     *
+     * @param line The index of the line
+     * @return The sorted offsets of the breaks, or null if there are none
+     */
+    @Nullable
+    int[] breaks(int line) {
+        return lineBreaks != null && line < lineBreaks.length ? lineBreaks[line] : null;
+    }
+
+    private void ensureCapacity() {
+        if (size == lineNumbers.length) {
+            int newLength = Math.max(16, size * 2);
+            bounds = Arrays.copyOf(bounds, 2 * newLength);
+            lineNumbers = Arrays.copyOf(lineNumbers, newLength);
+        }
+    }
+
+    /**
+     * The number of breaks in the sorted array at or before the given offset.
+     *
+     * @param breaks The array of breaks
+     * @param offset The offset to check
+     * @return The number of breaks
+     */
+    @Contract(pure = true)
+    static int breaksThrough(@NotNull int[] breaks, int offset) {
+        int position = Arrays.binarySearch(breaks, offset);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    /**
+     * Pack a line index and offset into a single position.
+     *
+     * @param line The index of the line in the table
+     * @param offset The offset within the line
+     * @return The packed position
+     */
+    @Contract(pure = true)
+    static long position(int line, int offset) {
+        return ((long) line << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    @Contract(pure = true)
+    static int lineIndex(long position) {
+        return (int) (position >>> 32);
+    }
+
+    @Contract(pure = true)
+    static int offset(long position) {
+        return (int) position;
+    }
+}
@@ -41,7 +41,7 @@ public class StringNode extends StringLikeNode {
     @Contract("_ -> new")
     static StringNode parse(@NotNull Token token) {
         assert token.is(TokenType.STRING);
-        LineInfo lineInfo = token.lineInfo;
+        LineInfo lineInfo = token.lineInfo();
         String inside = getContents(token);
         Set<StringPrefix> prefixes = getPrefixes(token);
         assert !prefixes.contains(StringPrefix.FORMATTED);
@@ -41,6 +41,10 @@ public class TestListNode implements BaseNode {
         return tests[index];
     }
 
+    public String getVararg(int index) {
+        return varargs[index];
+    }
+
     /**
      * Parse a list of TestNodes from a list of tokens.
      * @param tokens The list of tokens to be destructively parsed
@@ -5,14 +5,11 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Queue;
 import java.util.Set;
 import java.util.StringJoiner;
 
@@ -163,41 +160,37 @@ public interface TestNode extends IndependentNode, EmptiableNode {
         }
     }
 
-    class DummyOp implements TestNode {
-        public final OperatorTypeNode op;
-        public final LineInfo lineInfo;
-        public final int precedence;
-
-        @Contract(pure = true)
-        public DummyOp(@NotNull OperatorTypeNode op, LineInfo lineInfo) {
-            this.op = op;
-            this.lineInfo = lineInfo;
-            this.precedence = op.precedence;
-        }
-
-        @Override
-        public LineInfo getLineInfo() {
-            return lineInfo;
-        }
-
-        @Override
-        public String toString() {
-            return op.toString();
-        }
-    }
-
     /**
      * Parse an expression from a list of tokens.
+     * <p>
+     *     Operators are combined by precedence as they are parsed, with a
+     *     stack of the operators still waiting for their right-hand side and
+     *     one of the operands built so far; each operator is turned into its
+     *     {@link OperatorNode} as soon as nothing after it can bind more
+     *     tightly. Both stacks are plain arrays, only allocated once an
+     *     operator is reached, so an expression without operators allocates
+     *     nothing here.
+     * </p>
+     * <p>
+     *     Operators of equal precedence associate to the left, including
+     *     prefix operators, so that something like {@code 1 == not 2} is
+     *     rejected rather than reordered. As with the rest of the expression
+     *     parser, an operator which is short of operands is only reported
+     *     once the whole expression has been read.
+     * </p>
      *
      * @param tokens The list of tokens to be destructively parsed
      * @param ignoreNewlines Whether or not to ignore newlines
      * @return The freshly parsed expression
-     *
-     * @implNote This is essentially an RPN calculator
      */
     private static TestNode parseExpression(@NotNull TokenList tokens, boolean ignoreNewlines) {
-        Queue<TestNode> queue = new ArrayDeque<>();
-        Deque<DummyOp> stack = new ArrayDeque<>();
+        TestNode single = null;  // The only operand, until there is an operator
+        TestNode[] operands = null;
+        int operandCount = 0;
+        OperatorTypeNode[] operators = null;
+        LineInfo[] operatorInfos = null;
+        int operatorCount = 0;
+        LineInfo failure = null;  // The first operator short of operands
         boolean parseCurly = true;
         while (true) {
             LineInfo lineInfo = tokens.lineInfo();
@@ -213,62 +206,101 @@ public interface TestNode extends IndependentNode, EmptiableNode {
                 if (parseCurly ^ (operator.isUnary() && !operator.isPostfix())) {
                     throw tokens.defaultError();
                 }
-                // Push all operators that bind more tightly onto the queue
-                while (!stack.isEmpty() && operator.precedence >= stack.peek().precedence) {
-                    queue.add(stack.pop());
+                if (operators == null) {
+                    operators = new OperatorTypeNode[4];
+                    operatorInfos = new LineInfo[4];
+                    operands = new TestNode[4];
+                    if (single != null) {
+                        operands[operandCount++] = single;
+                    }
+                }
+                // Combine all operators that bind more tightly
+                while (operatorCount > 0 && operator.precedence >= operators[operatorCount - 1].precedence) {
+                    operatorCount--;
+                    if (failure == null) {
+                        operandCount = combine(operands, operandCount,
+                                operators[operatorCount], operatorInfos[operatorCount]);
+                        if (operandCount < 0) {
+                            failure = operatorInfos[operatorCount];
+                        }
+                    }
                 }
                 // Postfix operators don't go on the stack, as they have no
                 // arguments left to be parsed
                 if (operator.isPostfix()) {
-                    queue.add(new DummyOp(operator, lineInfo));
+                    if (failure == null) {
+                        operandCount = combine(operands, operandCount, operator, lineInfo);
+                        if (operandCount < 0) {
+                            failure = lineInfo;
+                        }
+                    }
                 } else {
-                    stack.push(new DummyOp(operator, lineInfo));
+                    if (operatorCount == operators.length) {
+                        operators = Arrays.copyOf(operators, 2 * operatorCount);
+                        operatorInfos = Arrays.copyOf(operatorInfos, 2 * operatorCount);
+                    }
+                    operators[operatorCount] = operator;
+                    operatorInfos[operatorCount++] = lineInfo;
                 }
                 parseCurly = !operator.isPostfix();
             } else {
                 if (!parseCurly) {
                     throw tokens.defaultError();
                 }
-                // Non-operators just get pushed onto the stack
-                queue.add(node);
+                if (operands == null) {
+                    single = node;
+                } else if (failure == null) {
+                    if (operandCount == operands.length) {
+                        operands = Arrays.copyOf(operands, 2 * operandCount);
+                    }
+                    operands[operandCount++] = node;
+                }
                 parseCurly = false;
             }
         }
-        while (!stack.isEmpty()) {
-            queue.add(stack.pop());
+        if (operators == null) {
+            if (single == null) {
+                throw tokens.error("Illegal empty statement");
+            }
+            return single;
+        }
+        while (operatorCount > 0 && failure == null) {
+            operatorCount--;
+            operandCount = combine(operands, operandCount, operators[operatorCount], operatorInfos[operatorCount]);
+            if (operandCount < 0) {
+                failure = operatorInfos[operatorCount];
+            }
+        }
+        if (failure != null) {
+            throw ParserException.of("Illegal node combination", failure);
         }
-        if (queue.isEmpty()) {
-            throw tokens.error("Illegal empty statement");
+        if (operandCount > 1) {
+            throw ParserException.of("Invalid node", operands[operandCount - 2]);
         }
-        return convertQueueToNode(queue);
+        return operands[0];
     }
 
-    private static TestNode convertQueueToNode(@NotNull Queue<TestNode> queue) {
-        Deque<TestNode> temp = new ArrayDeque<>();
-        for (TestNode t : queue) {
-            if (t instanceof DummyOp) {
-                LineInfo info = t.getLineInfo();
-                OperatorTypeNode op = ((DummyOp) t).op;
-                int nodeCount = op.isUnary() ? 1 : 2;
-                TestNode[] nodes = new TestNode[nodeCount];
-                try {
-                    // Nodes need to be reversed, as they get popped backwards
-                    for (int i = nodeCount - 1; i >= 0; i--) {
-                        nodes[i] = temp.pop();
-                    }
-                } catch (NoSuchElementException e) {
-                    throw ParserException.of("Illegal node combination", t);
-                }
-                temp.push(new OperatorNode(info, op, nodes));
-            } else {
-                temp.push(t);
-            }
-        }
-        TestNode node = temp.pop();
-        if (!temp.isEmpty()) {
-            throw ParserException.of("Invalid node", temp.peek());
+    /**
+     * Replace the operands an operator takes from the top of a stack with the
+     * operator's node.
+     *
+     * @param operands The stack of operands
+     * @param operandCount The number of operands on the stack
+     * @param operator The operator
+     * @param info The line info of the operator
+     * @return The new number of operands, or -1 if there were too few
+     */
+    private static int combine(
+            @NotNull TestNode[] operands, int operandCount, @NotNull OperatorTypeNode operator, LineInfo info
+    ) {
+        int nodeCount = operator.isUnary() ? 1 : 2;
+        if (operandCount < nodeCount) {
+            return -1;
         }
-        return node;
+        int start = operandCount - nodeCount;
+        TestNode[] nodes = Arrays.copyOfRange(operands, start, operandCount);
+        operands[start] = new OperatorNode(info, operator, nodes);
+        return start + 1;
     }
 
     @Nullable
@@ -2,6 +2,7 @@ package main.java.parser;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Set;
 
@@ -12,7 +13,10 @@ import java.util.Set;
 public class Token {
     public final TokenType token;
     public final String sequence;
-    public final LineInfo lineInfo;
+    private final Enum<?> value;
+    private final SourceFile source;
+    private final long position;
+    private LineInfo lineInfo;
 
     /**
      * Create a new instance of Token.
@@ -20,10 +24,126 @@ public class Token {
      * @param sequence The sequence of text the token belongs to
      */
     @Contract(pure = true)
-    public Token(@NotNull TokenType token, @NotNull String sequence, LineInfo lineInfo) {
+    public Token(@NotNull TokenType token, @NotNull String sequence, @NotNull LineInfo lineInfo) {
+        this(token, sequence, null, lineInfo.getSource(), lineInfo.getPosition());
+        this.lineInfo = lineInfo;
+    }
+
+    /**
+     * Create a new instance of Token from its position in the source.
+     * @param token The type of token which this is
+     * @param sequence The sequence of text the token belongs to
+     * @param value The keyword, operator or other enum constant which the
+     *              lexer resolved the token to
+     * @param source The file the token is from
+     * @param position The {@link SourceFile#position(int, int) packed
+     *                 position} of the token in the file
+     */
+    @Contract(pure = true)
+    Token(@NotNull TokenType token, @NotNull String sequence, @Nullable Enum<?> value, SourceFile source, long position) {
         this.token = token;
         this.sequence = sequence;
-        this.lineInfo = lineInfo;
+        this.value = value;
+        this.source = source;
+        this.position = position;
+    }
+
+    /**
+     * Create a copy of the token at a new position.
+     * @param source The file the copy is from
+     * @param position The packed position of the copy
+     * @return The copy
+     */
+    @NotNull
+    @Contract("_, _ -> new")
+    Token moveTo(SourceFile source, long position) {
+        return new Token(token, sequence, value, source, position);
+    }
+
+    /**
+     * The file the token is from.
+     * @return The file, or null if the token was not lexed from one
+     */
+    @Nullable
+    SourceFile source() {
+        return source;
+    }
+
+    /**
+     * The packed position of the token in its file.
+     * @return The position
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * The position of the token in its file.
+     * <p>
+     *     This is created the first time it is needed, and is then shared.
+     * </p>
+     * @return The position of the token
+     */
+    @NotNull
+    public LineInfo lineInfo() {
+        if (lineInfo == null) {
+            lineInfo = new LineInfo(source, position);
+        }
+        return lineInfo;
+    }
+
+    /**
+     * The keyword the token was resolved to by the lexer.
+     * @return The keyword, or null if it was not resolved to one
+     */
+    @Nullable
+    Keyword keyword() {
+        return token == TokenType.KEYWORD ? (Keyword) value : null;
+    }
+
+    /**
+     * The descriptor the token was resolved to by the lexer.
+     * @return The descriptor, or null if it was not resolved to one
+     */
+    @Nullable
+    DescriptorNode descriptor() {
+        return token == TokenType.DESCRIPTOR ? (DescriptorNode) value : null;
+    }
+
+    /**
+     * The operator the token was resolved to by the lexer.
+     * @return The operator, or null if it was not resolved to one
+     */
+    @Nullable
+    OperatorTypeNode operator() {
+        return token == TokenType.OPERATOR ? (OperatorTypeNode) value : null;
+    }
+
+    /**
+     * The special operator the token was resolved to by the lexer.
+     * @return The operator, or null if it was not resolved to one
+     */
+    @Nullable
+    OpSpTypeNode operatorSp() {
+        return token == TokenType.OPERATOR_SP ? (OpSpTypeNode) value : null;
+    }
+
+    /**
+     * The augmented assignment the token was resolved to by the lexer.
+     * @return The operator, or null if it was not resolved to one
+     */
+    @Nullable
+    AugAssignTypeNode augAssign() {
+        return token == TokenType.AUG_ASSIGN ? (AugAssignTypeNode) value : null;
+    }
+
+    /**
+     * The operator function the token was resolved to by the lexer.
+     * @return The operator, or null if it was not resolved to one
+     */
+    @Nullable
+    OpFuncTypeNode opFunc() {
+        return token == TokenType.OP_FUNC ? (OpFuncTypeNode) value : null;
     }
 
     /**
@@ -0,0 +1,332 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The queue of tokens which have been lexed but not yet consumed.
+ * <p>
+ *     Tokens are kept as parallel arrays of their fields rather than as
+ *     {@link Token} objects: the type, the {@link SourceFile#position(int,
+ *     int) packed position} and the length of the token's text in its file,
+ *     along with the ordinal of the keyword, operator or other enum constant
+ *     the lexer resolved the token to, if any. This means that lookahead
+ *     only reads from a few arrays, and a token's text and {@link Token}
+ *     object are only created when they are asked for. Tokens whose text
+ *     is not a part of a line, such as newlines and strings spanning
+ *     multiple lines, carry their text with them.
+ * </p>
+ * <p>
+ *     As tokens are added, each brace is matched with its partner, so that
+ *     lookahead can skip over a bracketed group without looking at the
+ *     tokens inside it. Braces are matched by count alone, as {@link
+ *     TokenList} always has, so a {@code (} may be closed by a {@code ]}.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see TokenList
+ */
+final class TokenBuffer implements TokenSink {
+    static final TokenType[] TYPES = TokenType.values();
+    private static final Keyword[] KEYWORDS = Keyword.values();
+    private static final DescriptorNode[] DESCRIPTORS = DescriptorNode.values();
+    private static final OperatorTypeNode[] OPERATORS = OperatorTypeNode.values();
+    private static final OpSpTypeNode[] OPERATOR_SPS = OpSpTypeNode.values();
+    private static final AugAssignTypeNode[] AUG_ASSIGNS = AugAssignTypeNode.values();
+    private static final OpFuncTypeNode[] OP_FUNCS = OpFuncTypeNode.values();
+
+    private final SourceFile source;
+    private byte[] types = new byte[16];
+    private byte[] values = new byte[16];
+    private long[] positions = new long[16];
+    private int[] lengths = new int[16];
+    private String[] sequences = new String[16];
+    private Token[] tokens = new Token[16];
+    private int[] matches = new int[16];
+    private int[] lastNames = new int[16];
+    private int start;
+    private int size;
+    private int removed;
+    private int[] openBraces = new int[16];
+    private int openCount;
+    private int lastName = -1;
+
+    @Contract(pure = true)
+    TokenBuffer(SourceFile source) {
+        this.source = source;
+    }
+
+    /**
+     * Create a buffer with room for at least a number of tokens before it
+     * has to grow.
+     *
+     * @param source The file the tokens are from
+     * @param capacity The number of tokens to make room for
+     */
+    TokenBuffer(SourceFile source, int capacity) {
+        this(source);
+        int length = Math.max(16, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        types = new byte[length];
+        values = new byte[length];
+        positions = new long[length];
+        lengths = new int[length];
+        sequences = new String[length];
+        tokens = new Token[length];
+        matches = new int[length];
+        lastNames = new int[length];
+    }
+
+    SourceFile source() {
+        return source;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Add a token to the end of the buffer.
+     *
+     * @param type The type of the token
+     * @param value The ordinal of the constant the token names, or -1
+     * @param position The packed position of the token
+     * @param length The length of the token's text in the file
+     * @param sequence The text of the token, if it is not the text at its
+     *                 position
+     */
+    @Override
+    public void add(@NotNull TokenType type, int value, long position, int length, @Nullable String sequence) {
+        if (size == types.length) {
+            grow();
+        }
+        int index = (start + size) & (types.length - 1);
+        types[index] = (byte) type.ordinal();
+        values[index] = (byte) value;
+        positions[index] = position;
+        lengths[index] = length;
+        sequences[index] = sequence;
+        matches[index] = -1;
+        int absolute = removed + size;
+        if (type == TokenType.OPEN_BRACE) {
+            if (openCount == openBraces.length) {
+                openBraces = Arrays.copyOf(openBraces, 2 * openCount);
+            }
+            openBraces[openCount++] = absolute;
+        } else if (type == TokenType.CLOSE_BRACE && openCount > 0) {
+            int open = openBraces[--openCount];
+            matches[index] = open;
+            if (open >= removed) {
+                matches[slot(open - removed)] = absolute;
+            }
+        } else if (type == TokenType.NAME || type == TokenType.DOT) {
+            lastName = absolute;
+        }
+        lastNames[index] = lastName;
+        size++;
+    }
+
+    /**
+     * Remove every token from the buffer, and forget any unmatched braces.
+     */
+    void clear() {
+        while (size > 0) {
+            pop();
+        }
+        openCount = 0;
+        lastName = -1;
+    }
+
+    /**
+     * Remove the first token from the buffer.
+     */
+    void pop() {
+        assert size > 0;
+        sequences[start] = null;
+        tokens[start] = null;
+        start = (start + 1) & (types.length - 1);
+        size--;
+        removed++;
+    }
+
+    /**
+     * The type of the token at an index.
+     *
+     * @param index The index of the token
+     * @return The type of the token
+     */
+    @NotNull
+    TokenType type(int index) {
+        return TYPES[types[slot(index)]];
+    }
+
+    /**
+     * The enum constant the token at an index was resolved to by the lexer.
+     * <p>
+     *     Which enum this is depends on the type of the token, e.g. a {@link
+     *     Keyword} for {@link TokenType#KEYWORD keywords}.
+     * </p>
+     *
+     * @param index The index of the token
+     * @return The constant, or null if the token was not resolved to one
+     */
+    @Nullable
+    Enum<?> value(int index) {
+        int slot = slot(index);
+        return value(TYPES[types[slot]], values[slot]);
+    }
+
+    /**
+     * The packed position of the token at an index.
+     *
+     * @param index The index of the token
+     * @return The position of the token
+     */
+    long position(int index) {
+        return positions[slot(index)];
+    }
+
+    /**
+     * The index of the brace matching the open brace at an index.
+     *
+     * @param index The index of the open brace
+     * @return The index of the closing brace, or -1 if it has not been
+     *         added yet
+     */
+    int match(int index) {
+        assert type(index) == TokenType.OPEN_BRACE;
+        int match = matches[slot(index)];
+        return match < 0 ? -1 : match - removed;
+    }
+
+    /**
+     * The index of the last {@link TokenType#NAME name} or {@link
+     * TokenType#DOT dot} at or before an index.
+     *
+     * @param index The index to search back from
+     * @return The index of the token, which is negative if it has already
+     *         been removed or if there is none
+     */
+    int lastNameOrDot(int index) {
+        int last = lastNames[slot(index)];
+        return last < 0 ? -1 : last - removed;
+    }
+
+    /**
+     * Test if the token at an index has the given text, without creating the
+     * text of the token.
+     *
+     * @param index The index of the token
+     * @param sequence The text to test against
+     * @return Whether or not the token has that text
+     */
+    boolean is(int index, @NotNull String sequence) {
+        int slot = slot(index);
+        if (sequences[slot] != null) {
+            return sequences[slot].equals(sequence);
+        }
+        return source.regionMatches(positions[slot], lengths[slot], sequence);
+    }
+
+    /**
+     * The text of the token at an index.
+     *
+     * @param index The index of the token
+     * @return The text of the token
+     */
+    @NotNull
+    String sequence(int index) {
+        int slot = slot(index);
+        if (sequences[slot] == null) {
+            sequences[slot] = source.text(positions[slot], lengths[slot]);
+        }
+        return sequences[slot];
+    }
+
+    /**
+     * The token at an index.
+     * <p>
+     *     The token is created the first time it is asked for, and the same
+     *     object is returned until it is removed from the buffer.
+     * </p>
+     *
+     * @param index The index of the token
+     * @return The token
+     */
+    @NotNull
+    Token get(int index) {
+        int slot = slot(index);
+        if (tokens[slot] == null) {
+            TokenType type = TYPES[types[slot]];
+            tokens[slot] = new Token(type, sequence(index), value(type, values[slot]), source, positions[slot]);
+        }
+        return tokens[slot];
+    }
+
+    /**
+     * The enum constant with an ordinal, of the enum which the lexer
+     * resolves tokens of a type to.
+     *
+     * @param type The type of the token
+     * @param ordinal The ordinal of the constant, or -1
+     * @return The constant, or null if the ordinal is -1
+     */
+    @Nullable
+    static Enum<?> value(@NotNull TokenType type, byte ordinal) {
+        if (ordinal < 0) {
+            return null;
+        }
+        switch (type) {
+            case KEYWORD:
+                return KEYWORDS[ordinal];
+            case DESCRIPTOR:
+                return DESCRIPTORS[ordinal];
+            case OPERATOR:
+                return OPERATORS[ordinal];
+            case OPERATOR_SP:
+                return OPERATOR_SPS[ordinal];
+            case AUG_ASSIGN:
+                return AUG_ASSIGNS[ordinal];
+            case OP_FUNC:
+                return OP_FUNCS[ordinal];
+            default:
+                throw new RuntimeException("Unexpected resolved token of type " + type);
+        }
+    }
+
+    private int slot(int index) {
+        assert index >= 0 && index < size;
+        return (start + index) & (types.length - 1);
+    }
+
+    /**
+     * Double the capacity of the buffer, moving the first token back to the
+     * start of the arrays.
+     */
+    private void grow() {
+        int length = types.length;
+        types = unwrap(types, new byte[2 * length], length);
+        values = unwrap(values, new byte[2 * length], length);
+        positions = unwrap(positions, new long[2 * length], length);
+        lengths = unwrap(lengths, new int[2 * length], length);
+        sequences = unwrap(sequences, new String[2 * length], length);
+        tokens = unwrap(tokens, new Token[2 * length], length);
+        matches = unwrap(matches, new int[2 * length], length);
+        lastNames = unwrap(lastNames, new int[2 * length], length);
+        start = 0;
+    }
+
+    @NotNull
+    @Contract("_, _, _ -> param2")
+    private <T> T unwrap(T from, T to, int length) {
+        System.arraycopy(from, start, to, 0, length - start);
+        System.arraycopy(from, 0, to, length - start, start);
+        return to;
+    }
+}
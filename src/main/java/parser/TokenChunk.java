@@ -0,0 +1,322 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The tokens of one chunk of a text, lexed independently of the rest of it.
+ * <p>
+ *     A chunk is lexed from the start of a line as if the lexer had reached
+ *     it from the start of the text, until it reaches a line start at or
+ *     after the start of the next chunk. Whether or not the chunk really
+ *     begins outside any multiline string or comment can only be known once
+ *     the text before it has been lexed, so the chunk records where each of
+ *     its line starts is: those that the text before it reaches are exactly
+ *     as a sequential lexer would have produced them.
+ * </p>
+ * <p>
+ *     Tokens are kept as the parallel arrays of their fields that the lexer
+ *     produces, as in {@link TokenBuffer}, with positions in a {@link
+ *     SourceFile} of the chunk's own, until the chunk is joined onto the
+ *     rest of the stream.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see TokenStream#lexParallel(Path, String)
+ */
+final class TokenChunk implements TokenSink {
+    private static final int STRIDE = 4;
+
+    private final SourceFile source;
+    private byte[] types;
+    private byte[] values;
+    private long[] positions;
+    private int[] lengths;
+    private String[] sequences;
+    private int size;
+    private int[] lineStarts = new int[STRIDE * 16];
+    private int lineStartCount;
+    private int exitOffset = -1;
+    private int exitRow;
+    private int exitNumber;
+    private Throwable failure;
+
+    @Contract(pure = true)
+    private TokenChunk(SourceFile source, int capacity) {
+        this.source = source;
+        this.types = new byte[capacity];
+        this.values = new byte[capacity];
+        this.positions = new long[capacity];
+        this.lengths = new int[capacity];
+        this.sequences = new String[capacity];
+    }
+
+    /**
+     * Lex a chunk of a text.
+     * <p>
+     *     Errors are not thrown, but recorded, as they only matter if the
+     *     chunk turns out to be lexed correctly up to them.
+     * </p>
+     *
+     * @param path The path of the file the text is from
+     * @param text The text
+     * @param start The offset of the start of a line to start at
+     * @param lineNumber The line number of the line before the start
+     * @param end The offset at or after which to stop at the next line start
+     * @return The chunk
+     */
+    @NotNull
+    static TokenChunk lex(Path path, @NotNull String text, int start, int lineNumber, int end) {
+        Tokenizer tokenizer = start == 0
+                ? Tokenizer.of(text, path)
+                : Tokenizer.resume(text, new SourceFile(path, text), start, lineNumber);
+        int capacity = Math.max(16, Math.min(end, text.length()) - start >> 2);
+        TokenChunk chunk = new TokenChunk(tokenizer.sourceFile(), capacity);
+        try {
+            while (true) {
+                tokenizer.tokenizeNext(chunk);
+                if (tokenizer.atLineStart()) {
+                    int offset = tokenizer.lineStartOffset();
+                    if (offset >= end) {
+                        chunk.size--;
+                        chunk.exitOffset = offset;
+                        chunk.exitRow = tokenizer.lineStartRow();
+                        chunk.exitNumber = tokenizer.lineStartNumber();
+                        return chunk;
+                    }
+                    chunk.addLineStart(chunk.size - 1, offset, tokenizer.lineStartRow(), tokenizer.lineStartNumber());
+                } else if (chunk.types[chunk.size - 1] == TokenType.EPSILON.ordinal()) {
+                    return chunk;
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            chunk.failure = e;
+            return chunk;
+        }
+    }
+
+    /**
+     * Add the tokens of the chunk from an index onwards to a sink, as the
+     * lexer produced them, but moved down a number of rows.
+     *
+     * @param sink The sink to add the tokens to
+     * @param start The index of the first token to add
+     * @param rowDelta The number of rows to move the tokens down by
+     */
+    void moveTo(@NotNull TokenSink sink, int start, int rowDelta) {
+        for (int i = start; i < size; i++) {
+            long position = positions[i];
+            position = SourceFile.position(SourceFile.lineIndex(position) + rowDelta, SourceFile.offset(position));
+            sink.add(TokenBuffer.TYPES[types[i]], values[i], position, lengths[i], sequences[i]);
+        }
+    }
+
+    /**
+     * Find the places to split a text into chunks of about the given length.
+     * <p>
+     *     This only looks at line breaks, so it cannot tell whether a line
+     *     start is inside a multiline string or comment, only whether it is a
+     *     continuation of a line ending in a backslash. Any other bad split
+     *     is found when the chunks are joined.
+     * </p>
+     *
+     * @param text The text to split
+     * @param length The length to aim for
+     * @return Pairs of the offset of the start of each chunk and the number
+     *         of lines before it, the first of which is always the start of
+     *         the text
+     */
+    @NotNull
+    static int[] splits(@NotNull String text, int length) {
+        int[] result = new int[2 * Math.max(1, text.length() / length + 1)];
+        int count = 1;
+        int lines = 0;
+        int target = length;
+        int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            char c = text.charAt(i);
+            if (c != '\n' && c != '\r') {
+                continue;
+            }
+            boolean continued = endsInBackslash(text, i);
+            if (c == '\r' && i + 1 < textLength && text.charAt(i + 1) == '\n') {
+                i++;
+            }
+            lines++;
+            if (i + 1 >= target && i + 1 < textLength && !continued) {
+                if (2 * count == result.length) {
+                    result = Arrays.copyOf(result, 2 * result.length);
+                }
+                result[2 * count] = i + 1;
+                result[2 * count + 1] = lines;
+                count++;
+                target = i + 1 + length;
+            }
+        }
+        return Arrays.copyOf(result, 2 * count);
+    }
+
+    private static boolean endsInBackslash(@NotNull String text, int lineEnd) {
+        int i = lineEnd - 1;
+        while (i >= 0 && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i--;
+        }
+        return i >= 0 && text.charAt(i) == '\\';
+    }
+
+    @Override
+    public void add(@NotNull TokenType type, int value, long position, int length, @Nullable String sequence) {
+        if (size == types.length) {
+            int newLength = 2 * size;
+            types = Arrays.copyOf(types, newLength);
+            values = Arrays.copyOf(values, newLength);
+            positions = Arrays.copyOf(positions, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            sequences = Arrays.copyOf(sequences, newLength);
+        }
+        types[size] = (byte) type.ordinal();
+        values[size] = (byte) value;
+        positions[size] = position;
+        lengths[size] = length;
+        sequences[size] = sequence;
+        size++;
+    }
+
+    private void addLineStart(int tokenIndex, int offset, int row, int lineNumber) {
+        if (STRIDE * (lineStartCount + 1) > lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, 2 * lineStarts.length);
+        }
+        int index = STRIDE * lineStartCount++;
+        lineStarts[index] = tokenIndex;
+        lineStarts[index + 1] = offset;
+        lineStarts[index + 2] = row;
+        lineStarts[index + 3] = lineNumber;
+    }
+
+    /**
+     * Search for the line start at an offset.
+     *
+     * @param offset The offset
+     * @return The index of the line start, or -1 if the chunk has none there
+     */
+    int findLineStart(int offset) {
+        int low = 0;
+        int high = lineStartCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = lineOffset(mid);
+            if (value < offset) {
+                low = mid + 1;
+            } else if (value > offset) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    SourceFile source() {
+        return source;
+    }
+
+    int size() {
+        return size;
+    }
+
+    TokenType type(int index) {
+        return TokenBuffer.TYPES[types[index]];
+    }
+
+    Enum<?> value(int index) {
+        return TokenBuffer.value(type(index), values[index]);
+    }
+
+    long position(int index) {
+        return positions[index];
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+
+    @Nullable
+    String sequence(int index) {
+        return sequences[index];
+    }
+
+    int lineStartCount() {
+        return lineStartCount;
+    }
+
+    int tokenIndex(int lineStart) {
+        return lineStarts[STRIDE * lineStart];
+    }
+
+    int lineOffset(int lineStart) {
+        return lineStarts[STRIDE * lineStart + 1];
+    }
+
+    int row(int lineStart) {
+        return lineStarts[STRIDE * lineStart + 2];
+    }
+
+    int lineNumber(int lineStart) {
+        return lineStarts[STRIDE * lineStart + 3];
+    }
+
+    /**
+     * The offset of the line start the chunk stopped at.
+     *
+     * @return The offset, or -1 if the chunk reached the end of the text or
+     *         an error first
+     */
+    int exitOffset() {
+        return exitOffset;
+    }
+
+    /**
+     * The number of lines in the chunk's table before the line start it
+     * stopped at, or in the whole table if it did not stop at one.
+     *
+     * @return The number of lines
+     */
+    int exitRow() {
+        return exitOffset < 0 ? source.lineCount() : exitRow;
+    }
+
+    int exitNumber() {
+        return exitNumber;
+    }
+
+    /**
+     * The error the chunk stopped with, if any.
+     *
+     * @return The error, or null
+     */
+    @Nullable
+    Throwable failure() {
+        return failure;
+    }
+
+    /**
+     * Where the chunks of a text are joined, in order, once they have been
+     * lexed.
+     *
+     * @see TokenStream#lexChunks
+     */
+    interface Joiner {
+        /**
+         * Append the tokens of a chunk from one of its line starts onwards.
+         *
+         * @param chunk The chunk
+         * @param lineStart The index of the line start, or -1 to append the
+         *                  whole of the first chunk of the text
+         */
+        void append(@NotNull TokenChunk chunk, int lineStart);
+    }
+}
@@ -1,22 +1,30 @@
 package main.java.parser;
 
-import main.java.util.CircularBuffer;
-import main.java.util.IndexedDeque;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.file.Path;
 import java.util.Iterator;
-import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
 
 /**
  * The list of tokens.
+ * <p>
+ *     Tokens are buffered in a {@link TokenBuffer}, and lookahead works on
+ *     the indices of tokens in the buffer, so {@link Token} objects are only
+ *     created when they are asked for.
+ * </p>
  * @author Patrick Norton
  */
 public final class TokenList implements Iterable<Token> {
-    private final IndexedDeque<Token> buffer;
+    private final TokenBuffer buffer;
     private final Tokenizer tokenizer;
+    private final TokenPipeline pipeline;
+    private final long end;
+    private final Throwable failure;
 
     /**
      * Construct a new instance of TokenList.
@@ -28,8 +36,86 @@ public final class TokenList implements Iterable<Token> {
      */
     @Contract(pure = true)
     public TokenList(Tokenizer tokenizer) {
-        this.buffer = new CircularBuffer<>();
-        this.tokenizer = tokenizer;
+        this(tokenizer, false);
+    }
+
+    /**
+     * Construct a new instance of TokenList, optionally tokenizing on a
+     * thread of its own.
+     * <p>
+     *     When pipelined, the tokenizer runs ahead of the parser in a {@link
+     *     TokenPipeline}, and must not be used by anything else.
+     * </p>
+     * @param tokenizer The tokenizer to collect from
+     * @param pipelined Whether or not to tokenize on another thread
+     */
+    TokenList(Tokenizer tokenizer, boolean pipelined) {
+        this.buffer = new TokenBuffer(tokenizer.sourceFile());
+        this.tokenizer = pipelined ? null : tokenizer;
+        this.pipeline = pipelined ? TokenPipeline.start(tokenizer) : null;
+        this.end = 0;
+        this.failure = null;
+    }
+
+    /**
+     * Construct a new instance of TokenList from tokens which have already
+     * been lexed, possibly up to an error.
+     * <p>
+     *     Once the tokens have run out, the error is thrown, just as the
+     *     tokenizer would have thrown it on reaching that point; if there is
+     *     none, the list acts as if the file ended at the given position.
+     * </p>
+     * @param buffer The tokens, which should not be used by anything else
+     * @param end The packed position of the end of the tokens
+     * @param failure The error to throw after the tokens, or null to act
+     *                as if the file ended at {@code end}
+     */
+    private TokenList(TokenBuffer buffer, long end, Throwable failure) {
+        this.buffer = buffer;
+        this.tokenizer = null;
+        this.pipeline = null;
+        this.end = end;
+        this.failure = failure;
+    }
+
+    /**
+     * Lex the whole of a text up front, in chunks which are lexed in
+     * parallel on the common {@link ForkJoinPool}, and make a list of its
+     * tokens.
+     * <p>
+     *     The chunks are lexed and joined as in {@link
+     *     TokenStream#lexParallel(Path, String)}, but straight into the
+     *     buffer of the list, so no {@link Token} objects are created. Any
+     *     error the lexer stops with is only thrown once the parser reaches
+     *     it, so the result is exactly the same as if the text had been
+     *     tokenized lazily. Texts too small to split are tokenized lazily.
+     * </p>
+     * @param path The path of the file the text is from
+     * @param text The text to lex
+     * @return The list of tokens
+     */
+    @NotNull
+    @Contract("_, _ -> new")
+    public static TokenList lexParallel(Path path, @NotNull String text) {
+        if (text.length() <= TokenStream.MIN_CHUNK) {
+            return new TokenList(Tokenizer.of(text, path));
+        }
+        Joiner joiner = new Joiner(new SourceFile(path, text), text.length() / 4);
+        if (!TokenStream.lexChunks(path, text, ForkJoinPool.commonPool(), joiner)) {
+            return new TokenList(Tokenizer.of(text, path));
+        }
+        if (joiner.failure == null) {
+            joiner.source.finish();
+        }
+        return new TokenList(joiner.buffer, joiner.end, joiner.failure);
+    }
+
+    /**
+     * The file the tokens are from.
+     * @return The file
+     */
+    SourceFile source() {
+        return buffer.source();
     }
 
     /**
@@ -38,18 +124,59 @@ public final class TokenList implements Iterable<Token> {
      */
     private void ensureLength(int length) {
         while (buffer.size() <= length) {
-            buffer.add(tokenizer.tokenizeNext());
+            tokenizeNext();
         }
     }
 
     /**
-     * Test if a line contains a certain type of token.
-     * @param question The questions to test if the line contains
-     * @return If the line contains that token
+     * Add at least one more token to the buffer.
      */
-    boolean lineContains(TokenType... question) {
-        for (Token token : this.lineIterator()) {
-            if (token.is(question)) {
+    private void tokenizeNext() {
+        if (pipeline != null) {
+            pipeline.tokenizeNext(buffer);
+        } else if (tokenizer != null) {
+            tokenizer.tokenizeNext(buffer);
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw (Error) failure;
+        } else {
+            buffer.add(TokenType.EPSILON, -1, end, 0, "");
+        }
+    }
+
+    /**
+     * Discard the rest of the tokens, and start on another part of the line
+     * the list's {@link Tokenizer#section section} is from.
+     * @param start The offset in the line of the start of the part
+     * @param end The offset in the line of the end of the part
+     */
+    void moveSection(int start, int end) {
+        buffer.clear();
+        tokenizer.moveSection(start, end);
+    }
+
+    /**
+     * The type of the token at an index.
+     * @param index The index of the token
+     * @return The type of the token
+     */
+    @NotNull
+    private TokenType typeAt(int index) {
+        ensureLength(index);
+        return buffer.type(index);
+    }
+
+    /**
+     * Test if the buffered token at an index is one of a series of types.
+     * @param index The index of the token
+     * @param types The types to check against
+     * @return Whether the token is of those types
+     */
+    private boolean is(int index, @NotNull TokenType... types) {
+        TokenType type = buffer.type(index);
+        for (TokenType t : types) {
+            if (type == t) {
                 return true;
             }
         }
@@ -57,13 +184,14 @@ public final class TokenList implements Iterable<Token> {
     }
 
     /**
-     * Test if a line contains a certain type of token.
-     * @param question The questions to test if the line contains
-     * @return If the line contains that token
+     * Test if the buffered token at an index is one of a series of values.
+     * @param index The index of the token
+     * @param sequences The values to check against
+     * @return Whether the token is one of those values
      */
-    boolean lineContains(String... question) {
-        for (Token token : this.lineIterator()) {
-            if (token.is(question)) {
+    private boolean is(int index, @NotNull String... sequences) {
+        for (String sequence : sequences) {
+            if (buffer.is(index, sequence)) {
                 return true;
             }
         }
@@ -71,13 +199,18 @@ public final class TokenList implements Iterable<Token> {
     }
 
     /**
-     * Test if a line contains a certain type of token.
-     * @param question The questions to test if the line contains
-     * @return If the line contains that token
+     * Test if the buffered token at an index is one of a series of keywords.
+     * @param index The index of the token
+     * @param keywords The keywords to check against
+     * @return Whether the token is one of those keywords
      */
-    boolean lineContains(Keyword... question) {
-        for (Token token : this.lineIterator()) {
-            if (token.is(question)) {
+    private boolean is(int index, @NotNull Keyword... keywords) {
+        if (buffer.type(index) != TokenType.KEYWORD) {
+            return false;
+        }
+        Enum<?> value = buffer.value(index);
+        for (Keyword keyword : keywords) {
+            if (value == keyword) {
                 return true;
             }
         }
@@ -85,69 +218,65 @@ public final class TokenList implements Iterable<Token> {
     }
 
     /**
-     * Create an iterable for a line of the code.
-     * @return The iterable for the line
+     * Test if a line contains a certain type of token.
+     * @param question The questions to test if the line contains
+     * @return If the line contains that token
      */
-    @NotNull
-    @Contract(pure = true)
-    private Iterable<Token> lineIterator() {
-        return LineIterator::new;
+    boolean lineContains(TokenType... question) {
+        return lineContains(i -> is(i, question));
     }
 
-    private class LineIterator implements Iterator<Token> {
-        private Iterator<Token> iterator = TokenList.this.zerothLevel().iterator();
-        private boolean hasNext = iterator.hasNext();
-        private Token next = hasNext ? iterator.next() : null;
-        private Token previous = null;
-
-        @Override
-        public boolean hasNext() {
-            return next == null ? adjustNext() : hasNext;
-        }
-
-        @Override
-        public Token next() {
-            if (next == null) {
-                adjustNext();
-            }
-            if (!hasNext) {
-                throw new NoSuchElementException();
-            }
-            previous = next;
-            next = null;
-            return previous;
-        }
-
-        private boolean adjustNext() {
-            assert next == null;
-            if (!iterator.hasNext()) {
-                return hasNext = false;
-            } else {
-                next = iterator.next();
-            }
-            if (next.is("{") && !previous.is(TokenType.BRACE_IS_LITERAL)) {
-                hasNext = false;
-            } else if (previous.is(TokenType.NEWLINE)) {
-                hasNext = false;
-            }
-            return hasNext;
-        }
+    /**
+     * Test if a line contains a certain type of token.
+     * @param question The questions to test if the line contains
+     * @return If the line contains that token
+     */
+    boolean lineContains(String... question) {
+        return lineContains(i -> is(i, question));
     }
 
     /**
-     * The list of tokens within the first brace found
-     * @return The list of tokens
+     * Test if a line contains a certain type of token.
+     * @param question The questions to test if the line contains
+     * @return If the line contains that token
      */
-    @NotNull
-    @Contract(pure = true)
-    private Iterable<Token> firstLevel() {
-        return FirstLevelIterator::new;
+    boolean lineContains(Keyword... question) {
+        return lineContains(i -> is(i, question));
     }
 
-    @NotNull
-    @Contract(pure = true)
-    private Iterable<Token> zerothLevel() {
-        return ZerothLevelIterator::new;
+    /**
+     * Test if a token in the line matches a predicate.
+     * <p>
+     *     Bracketed groups are skipped over using their matching braces, and
+     *     only their closing brace is tested. The line ends after a newline,
+     *     or before an open brace which begins a block.
+     * </p>
+     * @param question The predicate on the index of each token
+     * @return If a token in the line matches
+     */
+    private boolean lineContains(IntPredicate question) {
+        for (int i = 0;; i++) {
+            TokenType type = typeAt(i);
+            if (type == TokenType.OPEN_BRACE) {
+                if (isBlockBrace(i)) {
+                    return false;
+                }
+                i = closingBrace(i);
+            }
+            if (question.test(i)) {
+                return true;
+            }
+            if (type == TokenType.NEWLINE) {
+                lexPast(i);
+                if (typeAt(i + 1) == TokenType.OPEN_BRACE && !isBlockBrace(i + 1)) {
+                    closingBrace(i + 1);
+                }
+                return false;
+            } else if (type == TokenType.EPSILON || type == TokenType.CLOSE_BRACE) {
+                lexPast(i);
+                return false;
+            }
+        }
     }
 
     /**
@@ -156,12 +285,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not that token is contained in the brace
      */
     boolean braceContains(TokenType... question) {
-        for (Token token : firstLevel()) {
-            if (token.is(question)) {
-                return true;
-            }
-        }
-        return false;
+        return braceContains(i -> is(i, question));
     }
 
     /**
@@ -170,12 +294,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not that token is contained in the brace
      */
     boolean braceContains(String... question) {
-        for (Token token : firstLevel()) {
-            if (token.is(question)) {
-                return true;
-            }
-        }
-        return false;
+        return braceContains(i -> is(i, question));
     }
 
     /**
@@ -184,12 +303,98 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not that token is contained in the brace
      */
     boolean braceContains(Keyword... question) {
-        for (Token token : firstLevel()) {
-            if (token.is(question)) {
+        return braceContains(i -> is(i, question));
+    }
+
+    /**
+     * Test if a token in the open brace at the start of the list matches a
+     * predicate.
+     * <p>
+     *     The braces themselves are tested, as are the closing braces of any
+     *     groups nested inside, which are otherwise skipped over.
+     * </p>
+     * @param question The predicate on the index of each token
+     * @return If a token in the brace matches
+     */
+    private boolean braceContains(IntPredicate question) {
+        if (question.test(0)) {
+            return true;
+        } else if (typeAt(0) != TokenType.OPEN_BRACE) {
+            lexPast(0);
+            return false;
+        }
+        for (int i = 1;; i++) {
+            switch (typeAt(i)) {
+                case OPEN_BRACE:
+                    i = closingBrace(i);
+                    break;
+                case CLOSE_BRACE:
+                    if (question.test(i)) {
+                        return true;
+                    }
+                    lexPast(i);
+                    return false;
+                case EPSILON:
+                    throw ParserException.of("Unmatched brace", buffer.get(i));
+            }
+            if (question.test(i)) {
                 return true;
             }
         }
-        return false;
+    }
+
+    /**
+     * Lex the token after the one a lookahead ended on, unless the file has
+     * ended.
+     * <p>
+     *     Lookahead has always read one token past the end of what it looks
+     *     at, so an invalid token there is reported before any error the
+     *     parser would find in the tokens before it.
+     * </p>
+     * @param index The index of the last token looked at
+     */
+    private void lexPast(int index) {
+        if (buffer.type(index) != TokenType.EPSILON) {
+            ensureLength(index + 1);
+        }
+    }
+
+    /**
+     * Whether or not the open brace at an index begins a block, rather than
+     * a literal or a group.
+     * @param index The index of the brace
+     * @return If the brace begins a block
+     */
+    private boolean isBlockBrace(int index) {
+        return index > 0 && buffer.is(index, "{") && !TokenType.BRACE_IS_LITERAL.contains(buffer.type(index - 1));
+    }
+
+    /**
+     * Find the brace matching the open brace at an index, buffering tokens
+     * until it is found.
+     * @param index The index of the open brace
+     * @return The index of the closing brace, or -1 if the file ends first
+     */
+    private int findClosingBrace(int index) {
+        int match;
+        while ((match = buffer.match(index)) < 0 && buffer.type(buffer.size() - 1) != TokenType.EPSILON) {
+            tokenizeNext();
+        }
+        return match;
+    }
+
+    /**
+     * Find the brace matching the open brace at an index.
+     * @param index The index of the open brace
+     * @return The index of the closing brace
+     * @throws ParserException If the file ends before the brace is closed
+     */
+    private int closingBrace(int index) {
+        int match = findClosingBrace(index);
+        if (match < 0) {
+            throw ParserException.of("Unmatched brace", buffer.get(buffer.size() - 1));
+        }
+        return match;
     }
 
     boolean braceIsEmpty() {
@@ -216,22 +421,20 @@ public final class TokenList implements Iterable<Token> {
      */
     int sizeOfVariable(int offset) {
         assert tokenIs(offset, TokenType.NAME, TokenType.OPEN_BRACE);
-        int netBraces = 0;
         boolean wasVar = false;
         for (int size = offset;; size++) {
-            Token token = getToken(size);
-            switch (token.token) {
+            switch (typeAt(size)) {
                 case OPEN_BRACE:
-                    netBraces++;
-                    break;
-                case CLOSE_BRACE:
-                    if (netBraces == 0) {
-                        return size;
+                    // Names and dots inside the braces still count
+                    int close = closingBrace(size);
+                    int last = buffer.lastNameOrDot(close);
+                    if (last > size) {
+                        wasVar = buffer.type(last) == TokenType.NAME;
                     }
-                    netBraces--;
+                    size = close;
                     break;
                 case NAME:
-                    if (wasVar && netBraces == 0) {
+                    if (wasVar) {
                         return size;
                     }
                     wasVar = true;
@@ -239,14 +442,8 @@ public final class TokenList implements Iterable<Token> {
                 case DOT:
                     wasVar = false;
                     break;
-                case EPSILON:
-                    if (netBraces > 0) {
-                        throw ParserException.of("Unmatched brace", token);
-                    }  // Intentional fallthrough here
                 default:
-                    if (netBraces == 0) {
-                        return size;
-                    }
+                    return size;
             }
         }
     }
@@ -257,12 +454,17 @@ public final class TokenList implements Iterable<Token> {
      * @return The size of the brace
      */
     int sizeOfBrace(int offset) {
+        if (typeAt(offset) == TokenType.OPEN_BRACE) {
+            int close = findClosingBrace(offset);
+            return close < 0 ? buffer.size() : close + 1;
+        }
         int netBraces = 0;
         int size = offset;
-        for (Token token : this.iteratorFrom(offset)) {
-            if (token.is(TokenType.OPEN_BRACE)) {
+        for (TokenIterator iterator = new TokenIterator(offset); iterator.hasNext();) {
+            TokenType type = buffer.type(iterator.nextIndex());
+            if (type == TokenType.OPEN_BRACE) {
                 netBraces++;
-            } else if (token.is(TokenType.CLOSE_BRACE)) {
+            } else if (type == TokenType.CLOSE_BRACE) {
                 netBraces--;
             }
             size++;
@@ -325,7 +527,7 @@ public final class TokenList implements Iterable<Token> {
      */
     public Token getFirst() {
         ensureLength(0);
-        return buffer.getFirst();
+        return buffer.get(0);
     }
 
     /**
@@ -334,7 +536,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is that type
      */
     public boolean tokenIs(TokenType type) {
-        return getFirst().is(type);
+        return typeAt(0) == type;
     }
 
     /**
@@ -343,7 +545,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not the token is of that type
      */
     public boolean tokenIs(TokenType... types) {
-        return getFirst().is(types);
+        return tokenIs(0, types);
     }
 
     /**
@@ -352,7 +554,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not the sequences match
      */
     public boolean tokenIs(String sequence) {
-        return getFirst().is(sequence);
+        return tokenIs(0, sequence);
     }
 
     /**
@@ -361,7 +563,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not the token is of that value
      */
     public boolean tokenIs(String... types) {
-        return getFirst().is(types);
+        return tokenIs(0, types);
     }
 
     /**
@@ -371,7 +573,7 @@ public final class TokenList implements Iterable<Token> {
      * @return If the token is of that type
      */
     public boolean tokenIs(int index, TokenType type) {
-        return getToken(index).is(type);
+        return typeAt(index) == type;
     }
 
     /**
@@ -381,7 +583,8 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those types
      */
     public boolean tokenIs(int index, TokenType... types) {
-        return getToken(index).is(types);
+        ensureLength(index);
+        return is(index, types);
     }
 
     /**
@@ -391,7 +594,8 @@ public final class TokenList implements Iterable<Token> {
      * @return If the token is of that type
      */
     public boolean tokenIs(int index, String sequence) {
-        return getToken(index).is(sequence);
+        ensureLength(index);
+        return buffer.is(index, sequence);
     }
 
     /**
@@ -401,7 +605,8 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those values
      */
     public boolean tokenIs(int index, String... types) {
-        return getToken(index).is(types);
+        ensureLength(index);
+        return is(index, types);
     }
 
     /**
@@ -411,7 +616,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those values
      */
     public boolean tokenIs(TokenType type1, String type2) {
-        return getFirst().is(type1) || getFirst().is(type2);
+        return tokenIs(0, type1, type2);
     }
 
     /**
@@ -421,7 +626,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those values
      */
     public boolean tokenIs(TokenType type1, Keyword type2) {
-        return getFirst().is(type1) || getFirst().is(type2);
+        return tokenIs(type1) || is(0, type2);
     }
 
     /**
@@ -431,7 +636,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those values
      */
     public boolean tokenIs(TokenType type1, Keyword... types) {
-        return getFirst().is(type1) || getFirst().is(types);
+        return tokenIs(type1) || is(0, types);
     }
 
     /**
@@ -441,7 +646,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those values
      */
     public boolean tokenIs(String type1, Keyword type2) {
-        return getFirst().is(type1) || getFirst().is(type2);
+        return tokenIs(type1) || is(0, type2);
     }
 
     /**
@@ -452,7 +657,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of those values
      */
     public boolean tokenIs(int index, TokenType type1, String type2) {
-        return getToken(index).is(type1) || getToken(index).is(type2);
+        return tokenIs(index, type1) || buffer.is(index, type2);
     }
 
     /**
@@ -461,7 +666,7 @@ public final class TokenList implements Iterable<Token> {
      * @return If the token is of that type
      */
     public boolean tokenIs(Keyword type) {
-        return getFirst().is(type);
+        return tokenIs(0, type);
     }
 
     /**
@@ -470,7 +675,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of that type
      */
     public boolean tokenIs(Keyword... types) {
-        return getFirst().is(types);
+        return tokenIs(0, types);
     }
 
     /**
@@ -481,7 +686,8 @@ public final class TokenList implements Iterable<Token> {
      * @return If the token is that keyword
      */
     public boolean tokenIs(int index, Keyword type) {
-        return getToken(index).is(type);
+        ensureLength(index);
+        return is(index, type);
     }
 
     /**
@@ -491,7 +697,8 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether the token is of that type
      */
     public boolean tokenIs(int index, Keyword... types) {
-        return getToken(index).is(types);
+        ensureLength(index);
+        return is(index, types);
     }
 
     /**
@@ -501,7 +708,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not it is one of those types
      */
     public boolean tokenIs(Set<TokenType> types) {
-        return getFirst().is(types);
+        return types.contains(typeAt(0));
     }
 
     /**
@@ -511,7 +718,7 @@ public final class TokenList implements Iterable<Token> {
      * @return Whether or not it is one of those keywords
      */
     public boolean tokenIsKeyword(Set<Keyword> types) {
-        return getFirst().isKeyword(types);
+        return tokenIs(TokenType.KEYWORD) && types.contains(buffer.value(0));
     }
 
     /**
@@ -520,7 +727,8 @@ public final class TokenList implements Iterable<Token> {
      * @return The sequence
      */
     public String tokenSequence() {
-        return getFirst().sequence;
+        ensureLength(0);
+        return buffer.sequence(0);
     }
 
     /**
@@ -529,7 +737,7 @@ public final class TokenList implements Iterable<Token> {
      * @return The type
      */
     public TokenType tokenType() {
-        return getFirst().token;
+        return typeAt(0);
     }
 
     /**
@@ -550,11 +758,8 @@ public final class TokenList implements Iterable<Token> {
      * Pop the first token and move on.
      */
     public void nextToken() {
-        if (!buffer.isEmpty()) {
-            buffer.pop();
-        } else {
-            tokenizer.tokenizeNext();
-        }
+        ensureLength(0);
+        buffer.pop();
     }
 
     /**
@@ -572,21 +777,21 @@ public final class TokenList implements Iterable<Token> {
      * The iterator for a TokenList.
      */
     private class TokenIterator implements Iterator<Token> {
-        private final ListIterator<Token> bufferIterator;
+        private int index;
         private boolean done = false;
 
         private TokenIterator() {
-            bufferIterator = buffer.listIterator();
+            index = 0;
         }
 
         private TokenIterator(int i) {
             ensureLength(i);
-            bufferIterator = buffer.listIterator(i);
+            index = i;
         }
 
         @Override
         public boolean hasNext() {
-            if (!bufferIterator.hasNext()) {
+            if (index == buffer.size()) {
                 if (done) {
                     return false;
                 }
@@ -597,10 +802,18 @@ public final class TokenList implements Iterable<Token> {
 
         @Override
         public Token next() {
+            return buffer.get(nextIndex());
+        }
+
+        /**
+         * Advance the iterator without creating the token.
+         * @return The index of the next token in the buffer
+         */
+        private int nextIndex() {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            return bufferIterator.next();
+            return index++;
         }
 
         /**
@@ -610,91 +823,13 @@ public final class TokenList implements Iterable<Token> {
             if (done) {
                 throw new NoSuchElementException();
             }
-            Token next = tokenizer.tokenizeNext();
-            bufferIterator.add(next);
-            bufferIterator.previous();
-            if (next.is(TokenType.EPSILON)) {
+            tokenizeNext();
+            if (buffer.type(index) == TokenType.EPSILON) {
                 done = true;
             }
         }
     }
 
-    private abstract class LevelIterator implements Iterator<Token> {
-        private int netBraces = 0;
-        private final int numBraces;
-        private int beginning;
-        private Token previous;
-        private final Iterator<Token> iterator = TokenList.this.iterator();
-
-        LevelIterator(int level) {
-            this.numBraces = level;
-            this.beginning = numBraces;
-        }
-
-        @Override
-        public boolean hasNext() {
-            return iterator.hasNext() && (beginning > 0 || netBraces >= numBraces);
-        }
-
-        @Override
-        public Token next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException();
-            }
-            if (beginning > 0) {
-                beginning--;
-            }
-            Token next;
-            do {
-                next = iterator.next();
-                adjustBraces(next);
-                previous = next;
-            } while (netBraces > numBraces);
-            return next;
-        }
-
-        /**
-         * Adjust the net number of braces to match the token given.
-         * @param token The token to adjust based on
-         */
-        private void adjustBraces(@NotNull Token token) {
-            switch (token.token) {
-                case OPEN_BRACE:
-                    if (nextIsBlockBrace(token)) {
-                        break;
-                    }
-                    netBraces++;
-                    break;
-                case CLOSE_BRACE:
-                    netBraces--;
-                    break;
-                case EPSILON:
-                    if (netBraces > 0) {
-                        throw ParserException.of("Unmatched brace", token);
-                    } else {
-                        netBraces--;
-                        break;
-                    }
-            }
-        }
-
-        private boolean nextIsBlockBrace(Token token) {
-            return netBraces == 0 && previous != null && token.is("{") && !previous.is(TokenType.BRACE_IS_LITERAL);
-        }
-    }
-
-    private class FirstLevelIterator extends LevelIterator {
-        FirstLevelIterator() {
-            super(1);
-        }
-    }
-
-    private class ZerothLevelIterator extends LevelIterator {
-        ZerothLevelIterator() {
-            super(0);
-        }
-    }
-
     @Contract(" -> new")
     @NotNull
     @Override
@@ -794,11 +929,11 @@ public final class TokenList implements Iterable<Token> {
     }
 
     public LineInfo lineInfo() {
-        return getFirst().lineInfo;
+        return getFirst().lineInfo();
     }
 
     public LineInfo lineInfo(int index) {
-        return getToken(index).lineInfo;
+        return getToken(index).lineInfo();
     }
 
     /**
@@ -820,4 +955,33 @@ public final class TokenList implements Iterable<Token> {
                 throw new RuntimeException("Unknown brace "+brace);
         }
     }
+
+    /**
+     * Joins the chunks of a text lexed in parallel straight into a buffer.
+     */
+    private static final class Joiner implements TokenChunk.Joiner {
+        private final SourceFile source;
+        private final TokenBuffer buffer;
+        private long end;
+        private Throwable failure;
+
+        Joiner(SourceFile source, int capacity) {
+            this.source = source;
+            this.buffer = new TokenBuffer(source, capacity);
+        }
+
+        @Override
+        public void append(@NotNull TokenChunk chunk, int lineStart) {
+            int firstToken = lineStart < 0 ? 0 : chunk.tokenIndex(lineStart);
+            int firstRow = lineStart < 0 ? 0 : chunk.row(lineStart);
+            int rowDelta = source.lineCount() - firstRow;
+            source.appendLines(chunk.source(), firstRow, chunk.exitRow());
+            chunk.moveTo(buffer, firstToken, rowDelta);
+            if (chunk.size() > firstToken) {
+                long last = chunk.position(chunk.size() - 1);
+                end = SourceFile.position(SourceFile.lineIndex(last) + rowDelta, SourceFile.offset(last));
+            }
+            failure = chunk.failure();
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Tokenizer} running ahead of the parser on a thread of its own.
+ * <p>
+ *     The tokenizer thread lexes into a bounded ring, which is shared with
+ *     the parsing thread without locks: each side only writes its own end of
+ *     the ring, and publishes it through a volatile field. When the ring is
+ *     full or empty the thread which cannot continue spins briefly and then
+ *     parks until the other side wakes it.
+ * </p>
+ * <p>
+ *     Errors from the tokenizer are not thrown when they happen, but when
+ *     the parser asks for the token which could not be lexed, so that they
+ *     are thrown in the same order, and from the same places, as when
+ *     tokenizing lazily. If the parser stops early, such as on an error of
+ *     its own, the tokenizer thread stops once this is unreachable.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see TokenList
+ */
+final class TokenPipeline {
+    private static final int CAPACITY = 1 << 12;
+    private static final int SPINS = 1 << 8;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Ring ring;
+    private long tail;
+
+    @Contract(pure = true)
+    private TokenPipeline(@NotNull Ring ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * Start tokenizing a file on a new thread.
+     *
+     * @param tokenizer The tokenizer of the file, which should not be used
+     *                  by anything else afterwards
+     * @return The pipeline to take tokens from
+     */
+    @NotNull
+    static TokenPipeline start(@NotNull Tokenizer tokenizer) {
+        Ring ring = new Ring(tokenizer);
+        TokenPipeline pipeline = new TokenPipeline(ring);
+        ring.owner = new WeakReference<>(pipeline);
+        Thread thread = new Thread(ring, "Tokenizer: " + tokenizer.sourceFile().getPath());
+        thread.setDaemon(true);
+        thread.start();
+        return pipeline;
+    }
+
+    /**
+     * Move at least one token onto the end of a buffer, waiting for it to be
+     * tokenized if need be.
+     * <p>
+     *     Every token that has already been tokenized is moved, up to the
+     *     token the tokenizer failed on, if any.
+     * </p>
+     *
+     * @param buffer The buffer to add the tokens to
+     */
+    void tokenizeNext(@NotNull TokenBuffer buffer) {
+        long head;
+        int spins = 0;
+        while ((head = ring.head) == tail) {
+            if (ring.finished) {
+                if (ring.head != tail) {
+                    continue;
+                }
+                finish(buffer);
+                return;
+            }
+            if (spins++ < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                ring.consumer = Thread.currentThread();
+                ring.consumerWaiting = true;
+                if (ring.head == tail && !ring.finished) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                ring.consumerWaiting = false;
+            }
+        }
+        for (long i = tail; i < head; i++) {
+            int slot = (int) i & (CAPACITY - 1);
+            buffer.add(Ring.TYPES[ring.types[slot]], ring.values[slot],
+                    ring.positions[slot], ring.lengths[slot], ring.sequences[slot]);
+            ring.sequences[slot] = null;
+        }
+        tail = head;
+        ring.tail = head;
+        if (ring.producerWaiting) {
+            LockSupport.unpark(ring.producer);
+        }
+    }
+
+    /**
+     * Add the token after the last one the tokenizer produced, once it has
+     * stopped.
+     * <p>
+     *     This is either the error it stopped with, or another {@link
+     *     TokenType#EPSILON epsilon}, as the tokenizer keeps producing at the
+     *     end of the file.
+     * </p>
+     *
+     * @param buffer The buffer to add the token to
+     */
+    private void finish(@NotNull TokenBuffer buffer) {
+        Throwable failure = ring.failure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        buffer.add(TokenType.EPSILON, -1, ring.lastPosition, 0, "");
+    }
+
+    /**
+     * The tokenizing side of the pipeline.
+     * <p>
+     *     This does not refer to the {@link TokenPipeline} except weakly, so
+     *     that it can tell when the parser no longer needs it.
+     * </p>
+     */
+    private static final class Ring implements Runnable, TokenSink {
+        private static final TokenType[] TYPES = TokenType.values();
+
+        private final Tokenizer tokenizer;
+        private final byte[] types = new byte[CAPACITY];
+        private final byte[] values = new byte[CAPACITY];
+        private final long[] positions = new long[CAPACITY];
+        private final int[] lengths = new int[CAPACITY];
+        private final String[] sequences = new String[CAPACITY];
+        private WeakReference<TokenPipeline> owner;
+        private long lastPosition;
+        private boolean atEnd;
+
+        private volatile long head;
+        private volatile long tail;
+        private volatile boolean finished;
+        private volatile Throwable failure;
+        private volatile Thread producer;
+        private volatile boolean producerWaiting;
+        private volatile Thread consumer;
+        private volatile boolean consumerWaiting;
+
+        @Contract(pure = true)
+        Ring(@NotNull Tokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+        }
+
+        @Override
+        public void run() {
+            producer = Thread.currentThread();
+            try {
+                while (!atEnd) {
+                    tokenizer.tokenizeNext(this);
+                }
+            } catch (Abandoned e) {
+                return;
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                finished = true;
+                Thread consumer = this.consumer;
+                if (consumerWaiting && consumer != null) {
+                    LockSupport.unpark(consumer);
+                }
+            }
+        }
+
+        @Override
+        public void add(@NotNull TokenType type, int value, long position, int length, @Nullable String sequence) {
+            long head = this.head;
+            awaitSpace(head);
+            int slot = (int) head & (CAPACITY - 1);
+            types[slot] = (byte) type.ordinal();
+            values[slot] = (byte) value;
+            positions[slot] = position;
+            lengths[slot] = length;
+            sequences[slot] = sequence;
+            this.head = head + 1;
+            if (type == TokenType.EPSILON) {
+                atEnd = true;
+                lastPosition = position;
+            }
+            Thread consumer = this.consumer;
+            if (consumerWaiting && consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+
+        private void awaitSpace(long head) {
+            int spins = 0;
+            while (head - tail >= CAPACITY) {
+                if (spins++ < SPINS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (owner.get() == null) {
+                    throw new Abandoned();
+                }
+                producerWaiting = true;
+                if (head - tail >= CAPACITY) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                producerWaiting = false;
+            }
+        }
+    }
+
+    /**
+     * Thrown on the tokenizer thread to stop it once nothing is left to take
+     * its tokens.
+     */
+    private static final class Abandoned extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Abandoned() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,749 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The scanner which classifies a single token at a time.
+ * <p>
+ *     Instead of trying the regex of every {@link TokenType} in order, this
+ *     dispatches on the first character of the token and consumes it in one
+ *     pass. Where more than one type may begin with the same character, the
+ *     candidates are tried in the declaration order of {@link TokenType}, so
+ *     the result is always the same as the first matching regex would give.
+ * </p>
+ * <p>
+ *     Tokens which name a constant of one of the parser's enums, such as
+ *     keywords and operators, are also resolved to that constant here, so
+ *     that the parser does not need to look them up by their text.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see Tokenizer
+ */
+final class TokenScanner {
+    private static final boolean[] ASCII_WORD = new boolean[0x80];
+
+    static {
+        for (char c = 0; c < 0x80; c++) {
+            ASCII_WORD[c] = isUnicodeWord(c);
+        }
+    }
+
+    private static final Alternation DESCRIPTORS = Alternation.words(
+            Arrays.stream(DescriptorNode.values()), Object::toString
+    );
+    private static final Alternation KEYWORDS = Alternation.words(
+            Arrays.stream(Keyword.values()), Object::toString
+    );
+    private static final Alternation AUG_ASSIGNS = Alternation.of(
+            Arrays.stream(AugAssignTypeNode.values()), Object::toString
+    );
+    private static final Alternation OPERATORS = Alternation.of(
+            Arrays.stream(OperatorTypeNode.values())
+                    .filter(t -> t != OperatorTypeNode.U_SUBTRACT),
+            Object::toString
+    );
+    private static final Alternation OPERATOR_SPS = Alternation.of(
+            Arrays.stream(OpSpTypeNode.values()), o -> o.name
+    );
+    private static final Alternation OP_FUNCS = Alternation.of(
+            Arrays.stream(OpFuncTypeNode.values())
+                    .filter(x -> x != OpFuncTypeNode.U_SUBTRACT),
+            o -> "\\" + o.name
+    );
+
+    private CharSequence text;
+    private int limit;
+    private TokenType type;
+    private int end;
+    private int value;
+
+    /**
+     * Scan the token beginning at the given index.
+     * <p>
+     *     The start of the token is treated as the start of the input, as it
+     *     was when each regex was matched against the remainder of the line.
+     * </p>
+     *
+     * @param text The text to scan
+     * @param start The index at which the token starts
+     * @param limit The index at which the line ends
+     * @return Whether or not a valid token was found
+     */
+    boolean scan(@NotNull CharSequence text, int start, int limit) {
+        assert start < limit;
+        this.text = text;
+        this.limit = limit;
+        this.value = -1;
+        char c = text.charAt(start);
+        switch (c) {
+            case ' ':
+            case '\t':
+                return accept(TokenType.WHITESPACE, skipBlanks(start));
+            case '#':
+                return accept(TokenType.WHITESPACE, comment(start));
+            case '\\':
+                return escape(start);
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+            case '\u0085':
+            case '\u2028':
+            case '\u2029':
+                return accept(TokenType.NEWLINE, newline(start));
+            case '(':
+            case '[':
+            case '{':
+                return accept(TokenType.OPEN_BRACE, start + 1);
+            case ')':
+            case ']':
+            case '}':
+                return accept(TokenType.CLOSE_BRACE, start + 1);
+            case ',':
+                return accept(TokenType.COMMA, start + 1);
+            case '"':
+            case '\'':
+                return accept(TokenType.STRING, string(start));
+            case ':':
+                return startsWith(start, ":=")
+                        ? accept(TokenType.ASSIGN, start + 2)
+                        : accept(TokenType.COLON, start + 1);
+            case '@':
+                return accept(TokenType.AT, start + 1);
+            case '$':
+                return accept(TokenType.DOLLAR, start + 1);
+            case '0': case '1': case '2': case '3': case '4':
+            case '5': case '6': case '7': case '8': case '9':
+                return accept(TokenType.NUMBER, number(start)) || accept(TokenType.NAME, name(start));
+            default:
+                if (c < 0x80 && c != '_' && !Character.isLetter(c)) {
+                    return symbol(start);
+                } else {
+                    return word(start);
+                }
+        }
+    }
+
+    /**
+     * The type of the last token scanned.
+     *
+     * @return The type
+     */
+    @Contract(pure = true)
+    TokenType type() {
+        return type;
+    }
+
+    /**
+     * The index one past the end of the last token scanned.
+     *
+     * @return The end index
+     */
+    @Contract(pure = true)
+    int end() {
+        return end;
+    }
+
+    /**
+     * The ordinal of the enum constant named by the last token scanned.
+     * <p>
+     *     The enum is given by the type of the token: {@link Keyword} for
+     *     keywords, {@link OperatorTypeNode} for operators, and so on. This is
+     *     -1 if the token does not name a constant, or if its text is not
+     *     exactly the name of the constant, such as an operator with extra
+     *     spaces in it.
+     * </p>
+     *
+     * @return The ordinal, or -1
+     */
+    @Contract(pure = true)
+    int value() {
+        return value;
+    }
+
+    private boolean accept(TokenType type, int end) {
+        if (end < 0) {
+            return false;
+        }
+        this.type = type;
+        this.end = end;
+        return true;
+    }
+
+    /**
+     * Scan a token beginning with a non-word ASCII character.
+     *
+     * @param start The start of the token
+     * @return If a token was found
+     */
+    private boolean symbol(int start) {
+        return accept(TokenType.AUG_ASSIGN, match(AUG_ASSIGNS, start))
+                || accept(TokenType.ARROW, literal(start, "->"))
+                || accept(TokenType.DOUBLE_ARROW, literal(start, "=>"))
+                || accept(TokenType.ELLIPSIS, literal(start, "..."))
+                || accept(TokenType.DOT, dot(start))
+                || accept(TokenType.INCREMENT, increment(start))
+                || accept(TokenType.OPERATOR, match(OPERATORS, start))
+                || accept(TokenType.ASSIGN, literal(start, "="));
+    }
+
+    /**
+     * Scan a token beginning with a word character.
+     *
+     * @param start The start of the token
+     * @return If a token was found
+     */
+    private boolean word(int start) {
+        return accept(TokenType.DESCRIPTOR, match(DESCRIPTORS, start))
+                || accept(TokenType.KEYWORD, match(KEYWORDS, start))
+                || accept(TokenType.AUG_ASSIGN, match(AUG_ASSIGNS, start))
+                || accept(TokenType.OPERATOR, match(OPERATORS, start))
+                || accept(TokenType.STRING, prefixedString(start))
+                || accept(TokenType.OPERATOR_SP, operatorSp(start))
+                || accept(TokenType.NAME, name(start));
+    }
+
+    /**
+     * Scan a token beginning with a backslash, which is either an escaped
+     * line break or an operator function.
+     *
+     * @param start The start of the token
+     * @return If a token was found
+     */
+    private boolean escape(int start) {
+        if (start + 1 < limit && isLineBreak(text.charAt(start + 1))) {
+            return accept(TokenType.WHITESPACE, newline(start + 1));
+        }
+        return accept(TokenType.OP_FUNC, match(OP_FUNCS, start));
+    }
+
+    private int skipBlanks(int start) {
+        int i = start + 1;
+        while (i < limit && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Find the end of a comment, whether a single-line block comment or an
+     * end-of-line comment.
+     *
+     * @param start The index of the opening {@code #}
+     * @return The end of the comment
+     */
+    private int comment(int start) {
+        if (start + 1 < limit && text.charAt(start + 1) == '|') {
+            int close = indexOf(text, "|#", start + 2, limit);
+            if (close >= 0) {
+                return close + 2;
+            }
+        }
+        int i = lineTerminator(text, start + 1, limit);
+        return i < 0 ? limit : i;
+    }
+
+    private int newline(int start) {
+        if (text.charAt(start) == '\r' && start + 1 < limit && text.charAt(start + 1) == '\n') {
+            return start + 2;
+        }
+        return start + 1;
+    }
+
+    private int dot(int start) {
+        int i = start;
+        if (text.charAt(i) == '?') {
+            i++;
+        } else if (startsWith(i, "!!")) {
+            i += 2;
+        }
+        return i < limit && text.charAt(i) == '.' ? i + 1 : -1;
+    }
+
+    private int increment(int start) {
+        return start + 1 < limit && isPlusMinus(text.charAt(start)) && isPlusMinus(text.charAt(start + 1))
+                ? start + 2 : -1;
+    }
+
+    /**
+     * Scan a string literal, with its prefixes.
+     *
+     * @param start The start of the token
+     * @return The end of the string, or -1 if there is none
+     */
+    private int prefixedString(int start) {
+        int i = start;
+        while (i < limit && isStringPrefix(text.charAt(i))) {
+            i++;
+        }
+        return i < limit && isQuote(text.charAt(i)) ? string(i) : -1;
+    }
+
+    /**
+     * Scan a string literal from its opening quote.
+     *
+     * @param quoteIndex The index of the opening quote
+     * @return The end of the string, or -1 if it is not closed on this line
+     */
+    private int string(int quoteIndex) {
+        int close = closingQuote(text, quoteIndex + 1, limit, text.charAt(quoteIndex));
+        return close < 0 ? -1 : close + 1;
+    }
+
+    /**
+     * Scan a number, in any base.
+     *
+     * @param start The start of the token
+     * @return The end of the number, or -1 if it is not one
+     */
+    private int number(int start) {
+        if (startsWith(start, "0x") && start + 2 < limit && isHexDigit(text.charAt(start + 2))) {
+            int intEnd = skipHex(start + 3);
+            if (intEnd + 1 < limit && text.charAt(intEnd) == '.' && isHexDigitOrUnderscore(text.charAt(intEnd + 1))) {
+                int fracEnd = skipHex(intEnd + 2);
+                if (isUnicodeBoundary(fracEnd)) {
+                    return fracEnd;
+                }
+            }
+            if (isUnicodeBoundary(intEnd)) {
+                return intEnd;
+            }
+        }
+        if (startsWith(start, "0o") || startsWith(start, "0b")) {
+            int result = decimal(start + 2);
+            if (result >= 0) {
+                return result;
+            }
+        }
+        return decimal(start);
+    }
+
+    private int decimal(int start) {
+        if (start >= limit || !isDigit(text.charAt(start))) {
+            return -1;
+        }
+        int intEnd = skipDecimal(start + 1);
+        if (intEnd + 1 < limit && text.charAt(intEnd) == '.' && isDigitOrUnderscore(text.charAt(intEnd + 1))) {
+            int fracEnd = skipDecimal(intEnd + 2);
+            if (isUnicodeBoundary(fracEnd)) {
+                return fracEnd;
+            }
+        }
+        return isUnicodeBoundary(intEnd) ? intEnd : -1;
+    }
+
+    private int skipDecimal(int i) {
+        while (i < limit && isDigitOrUnderscore(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipHex(int i) {
+        while (i < limit && isHexDigitOrUnderscore(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int operatorSp(int start) {
+        int i = literal(start, "operator");
+        if (i < 0 || !isBoundary(text, i, limit)) {
+            return -1;
+        }
+        while (i < limit && text.charAt(i) == ' ') {
+            i++;
+        }
+        return match(OPERATOR_SPS, i);
+    }
+
+    /**
+     * Scan a variable name.
+     *
+     * @param start The start of the token
+     * @return The end of the name, or -1 if it is not one
+     */
+    private int name(int start) {
+        int operatorEnd = literal(start, "operator");
+        if (operatorEnd >= 0 && isUnicodeBoundary(operatorEnd)) {
+            return -1;
+        }
+        int i = start;
+        char c;
+        while (i < limit && (c = text.charAt(i)) < 0x80) {
+            if (!ASCII_WORD[c]) {
+                return i == start ? -1 : i;
+            }
+            i++;
+        }
+        while (i < limit) {
+            int cp = Character.codePointAt(text, i);
+            if (!isUnicodeWord(cp)) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        return i == start ? -1 : i;
+    }
+
+    /**
+     * Match the first alternative possible at the given index, and record
+     * the constant it names.
+     *
+     * @param alternation The alternatives to match
+     * @param start The index to start matching at
+     * @return The end of the match, or -1 if nothing matched
+     */
+    private int match(@NotNull Alternation alternation, int start) {
+        if (start >= limit) {
+            return -1;
+        }
+        char first = text.charAt(start);
+        String[] candidates = first < 0x80 ? alternation.byFirstChar[first] : null;
+        if (candidates == null) {
+            return -1;
+        }
+        for (int i = 0; i < candidates.length; i++) {
+            int end = Alternation.matchOne(text, start, limit, candidates[i]);
+            if (end >= 0) {
+                value = end - start == candidates[i].length() ? alternation.ordinals[first][i] : -1;
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    private int literal(int start, @NotNull String value) {
+        return startsWith(start, value) ? start + value.length() : -1;
+    }
+
+    private boolean startsWith(int start, @NotNull String value) {
+        return regionMatches(text, start, limit, value);
+    }
+
+    /**
+     * Whether or not the index is at a word boundary, given that the
+     * character preceding it is a word character, in the sense of
+     * {@link java.util.regex.Pattern#UNICODE_CHARACTER_CLASS}.
+     */
+    private boolean isUnicodeBoundary(int index) {
+        return index >= limit || !isUnicodeWord(Character.codePointAt(text, index));
+    }
+
+    /**
+     * Find the closing quote of a string literal.
+     * <p>
+     *     A quote is escaped if and only if it is preceded by an odd number
+     *     of backslashes.
+     * </p>
+     *
+     * @param text The text to search
+     * @param from The first index of the body of the string
+     * @param limit The end of the text to search
+     * @param quote The quote character to close
+     * @return The index of the closing quote, or -1 if there is none
+     */
+    static int closingQuote(@NotNull CharSequence text, int from, int limit, char quote) {
+        if (text instanceof String) {
+            return closingQuote((String) text, from, limit, quote);
+        }
+        int backslashes = 0;
+        for (int i = from; i < limit; i++) {
+            char c = text.charAt(i);
+            if (c == quote && (backslashes & 1) == 0) {
+                return i;
+            }
+            backslashes = c == '\\' ? backslashes + 1 : 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the closing quote of a string literal in a string.
+     * <p>
+     *     This jumps from quote to quote with {@link String#indexOf(int,
+     *     int)}, which the JVM compiles to a vectorized search, and only then
+     *     counts the backslashes before each quote it finds.
+     * </p>
+     */
+    private static int closingQuote(@NotNull String text, int from, int limit, char quote) {
+        int i = text.indexOf(quote, from);
+        while (i >= 0 && i < limit) {
+            int backslash = i - 1;
+            while (backslash >= from && text.charAt(backslash) == '\\') {
+                backslash--;
+            }
+            if (((i - 1 - backslash) & 1) == 0) {
+                return i;
+            }
+            i = text.indexOf(quote, i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Find whether the token starting at an index opens a string or block
+     * comment which is not closed on the same line.
+     * <p>
+     *     A block comment is open if there is no {@code |#} after the
+     *     {@code #|}, and no line terminator except one ending the line. A
+     *     string is open if it has no unescaped closing quote.
+     * </p>
+     *
+     * @param text The text of the line
+     * @param start The start of the token
+     * @param limit The end of the line
+     * @return The delimiter which must close the token, one of {@code #},
+     *         {@code "} or {@code '}, or 0 if the token is not left open
+     */
+    static char openDelimiter(@NotNull CharSequence text, int start, int limit) {
+        char c = text.charAt(start);
+        if (c == '#') {
+            if (!regionMatches(text, start, limit, "#|") || indexOf(text, "|#", start + 2, limit) >= 0) {
+                return 0;
+            }
+            int end = isLineTerminator(text.charAt(limit - 1)) ? limit - 1 : limit;
+            return end >= start + 2 && lineTerminator(text, start + 2, end) < 0 ? '#' : 0;
+        }
+        int quote = start;
+        while (quote < limit && isStringPrefix(text.charAt(quote))) {
+            quote++;
+        }
+        if (quote == limit || !isQuote(text.charAt(quote))) {
+            return 0;
+        }
+        char delimiter = text.charAt(quote);
+        return closingQuote(text, quote + 1, limit, delimiter) < 0 ? delimiter : 0;
+    }
+
+    /**
+     * Find the end of an open string or block comment on a continuation
+     * line.
+     * <p>
+     *     The closing delimiter must come before any line terminator in the
+     *     line.
+     * </p>
+     *
+     * @param line The continuation line
+     * @param delimiter The delimiter, as given by {@link #openDelimiter}
+     * @return The index just past the closing delimiter, or -1 if the line
+     *         does not close it
+     */
+    static int closeDelimiter(@NotNull CharSequence line, char delimiter) {
+        int close;
+        int end;
+        if (delimiter == '#') {
+            close = indexOf(line, "|#", 0, line.length());
+            end = close + 2;
+        } else {
+            close = closingQuote(line, 0, line.length(), delimiter);
+            end = close + 1;
+        }
+        return close >= 0 && lineTerminator(line, 0, close) < 0 ? end : -1;
+    }
+
+    /**
+     * Find the first line terminator in part of some text.
+     *
+     * @param text The text to search
+     * @param from The first index to search
+     * @param limit The end of the part to search
+     * @return The index of the terminator, or -1 if there is none
+     */
+    static int lineTerminator(@NotNull CharSequence text, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            char c = text.charAt(i);
+            if ((c <= '\r' || c >= '\u0085') && isLineTerminator(c)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(@NotNull CharSequence text, @NotNull String value, int from, int limit) {
+        if (text instanceof String) {
+            int index = ((String) text).indexOf(value, from);
+            return index >= 0 && index <= limit - value.length() ? index : -1;
+        }
+        for (int i = from; i <= limit - value.length(); i++) {
+            if (regionMatches(text, i, limit, value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean regionMatches(@NotNull CharSequence text, int start, int limit, @NotNull String value) {
+        if (start + value.length() > limit) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether or not the index is at a word boundary, given that the
+     * character preceding it is a letter, in the sense of the default
+     * {@link java.util.regex.Pattern} {@code \b}.
+     */
+    static boolean isBoundary(@NotNull CharSequence text, int index, int limit) {
+        if (index >= limit) {
+            return true;
+        }
+        int cp = Character.codePointAt(text, index);
+        return cp != '_' && !Character.isLetterOrDigit(cp) && Character.getType(cp) != Character.NON_SPACING_MARK;
+    }
+
+    /**
+     * Whether or not the code point is a word character, as given by
+     * {@code \w} with {@link java.util.regex.Pattern#UNICODE_CHARACTER_CLASS}
+     * set.
+     */
+    @Contract(pure = true)
+    static boolean isUnicodeWord(int cp) {
+        if (cp < 0x80) {
+            return cp == '_' || (cp >= '0' && cp <= '9') || (cp >= 'a' && cp <= 'z') || (cp >= 'A' && cp <= 'Z');
+        }
+        return Character.isAlphabetic(cp)
+                || ((((1 << Character.NON_SPACING_MARK)
+                | (1 << Character.ENCLOSING_MARK)
+                | (1 << Character.COMBINING_SPACING_MARK)
+                | (1 << Character.DECIMAL_DIGIT_NUMBER)
+                | (1 << Character.CONNECTOR_PUNCTUATION))
+                >> Character.getType(cp)) & 1) != 0
+                || cp == 0x200C || cp == 0x200D;
+    }
+
+    /**
+     * Whether or not the character is a line terminator, i.e. is not
+     * matched by {@code .} in a regex.
+     */
+    @Contract(pure = true)
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Whether or not the character begins a line break, i.e. is matched by
+     * {@code \R} in a regex.
+     */
+    @Contract(pure = true)
+    private static boolean isLineBreak(char c) {
+        return isLineTerminator(c) || c == '\u000B' || c == '\f';
+    }
+
+    @Contract(pure = true)
+    private static boolean isStringPrefix(char c) {
+        return c == 'r' || c == 'e' || c == 'f' || c == 'b';
+    }
+
+    @Contract(pure = true)
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    @Contract(pure = true)
+    private static boolean isPlusMinus(char c) {
+        return c == '+' || c == '-';
+    }
+
+    @Contract(pure = true)
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    @Contract(pure = true)
+    private static boolean isDigitOrUnderscore(char c) {
+        return isDigit(c) || c == '_';
+    }
+
+    @Contract(pure = true)
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f');
+    }
+
+    @Contract(pure = true)
+    private static boolean isHexDigitOrUnderscore(char c) {
+        return isHexDigit(c) || c == '_';
+    }
+
+    /**
+     * A set of literal alternatives, indexed by their first character.
+     * <p>
+     *     Each alternative is the text of a constant of an enum. Alternatives
+     *     are tried longest first, as the regexes built from the same enums
+     *     do. A space in an alternative matches any positive number of
+     *     spaces, and an alternative ending in a word character must be
+     *     followed by a word boundary.
+     * </p>
+     */
+    private static final class Alternation {
+        private final String[][] byFirstChar = new String[0x80][];
+        private final byte[][] ordinals = new byte[0x80][];
+
+        private <E extends Enum<E>> Alternation(@NotNull Stream<E> values, Function<E, String> text, boolean allWords) {
+            @SuppressWarnings("unchecked")
+            E[] sorted = (E[]) values
+                    .sorted(Comparator.comparingInt((E e) -> text.apply(e).length()).reversed())
+                    .toArray(Enum[]::new);
+            for (E value : sorted) {
+                String string = text.apply(value);
+                char first = string.charAt(0);
+                assert first < 0x80 && value.ordinal() <= Byte.MAX_VALUE;
+                String[] old = byFirstChar[first];
+                int length = old == null ? 1 : old.length + 1;
+                byFirstChar[first] = old == null ? new String[1] : Arrays.copyOf(old, length);
+                byFirstChar[first][length - 1] = string;
+                ordinals[first] = old == null ? new byte[1] : Arrays.copyOf(ordinals[first], length);
+                ordinals[first][length - 1] = (byte) value.ordinal();
+            }
+            assert !allWords || Arrays.stream(sorted).map(text).allMatch(Alternation::endsWithWord);
+        }
+
+        @NotNull
+        @Contract("_, _ -> new")
+        static <E extends Enum<E>> Alternation words(Stream<E> values, Function<E, String> text) {
+            return new Alternation(values, text, true);
+        }
+
+        @NotNull
+        @Contract("_, _ -> new")
+        static <E extends Enum<E>> Alternation of(Stream<E> values, Function<E, String> text) {
+            return new Alternation(values, text, false);
+        }
+
+        private static int matchOne(@NotNull CharSequence text, int start, int limit, @NotNull String value) {
+            int i = start;
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (i >= limit || text.charAt(i) != c) {
+                    return -1;
+                }
+                i++;
+                if (c == ' ') {
+                    while (i < limit && text.charAt(i) == ' ') {
+                        i++;
+                    }
+                }
+            }
+            return endsWithWord(value) && !isBoundary(text, i, limit) ? -1 : i;
+        }
+
+        @Contract(pure = true)
+        private static boolean endsWithWord(@NotNull String value) {
+            char last = value.charAt(value.length() - 1);
+            return last == '_' || isDigit(last) || (last >= 'a' && last <= 'z') || (last >= 'A' && last <= 'Z');
+        }
+    }
+}
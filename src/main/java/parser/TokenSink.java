@@ -0,0 +1,25 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Something which takes the tokens produced by a {@link Tokenizer}.
+ *
+ * @author Patrick Norton
+ * @see TokenBuffer
+ * @see TokenPipeline
+ */
+interface TokenSink {
+    /**
+     * Take the next token.
+     *
+     * @param type The type of the token
+     * @param value The ordinal of the constant the token names, or -1
+     * @param position The packed position of the token
+     * @param length The length of the token's text in the file
+     * @param sequence The text of the token, if it is not the text at its
+     *                 position
+     */
+    void add(@NotNull TokenType type, int value, long position, int length, @Nullable String sequence);
+}
@@ -0,0 +1,495 @@
+package main.java.parser;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Every token of a source text, which can be brought up to date after the
+ * text is edited without lexing all of it again.
+ * <p>
+ *     Alongside the tokens, the stream remembers each newline token which
+ *     starts a line outside any multiline string or comment. The lexer holds
+ *     no state at such a point other than where it is, so lexing can be
+ *     resumed there. After an edit, lexing resumes from the last of these
+ *     before the edit, and stops as soon as it reaches one of these points
+ *     after the edit which was also one before it, as the rest of the text,
+ *     and so the rest of the tokens, are the same as they were. Those tokens
+ *     are kept, only moved to their new lines.
+ * </p>
+ *
+ * @author Patrick Norton
+ * @see Tokenizer
+ */
+public final class TokenStream {
+    /**
+     * The number of ints for each line start: the index of its token, its
+     * offset in the text, its index in the {@link SourceFile} and the line
+     * number of the line before it.
+     */
+    private static final int STRIDE = 4;
+    /**
+     * The smallest number of characters worth lexing on a separate thread.
+     */
+    static final int MIN_CHUNK = 1 << 16;
+
+    private final String text;
+    private final SourceFile source;
+    private final List<Token> tokens;
+    private final int[] lineStarts;
+    private final int lineStartCount;
+
+    @Contract(pure = true)
+    private TokenStream(String text, SourceFile source, List<Token> tokens, int[] lineStarts, int lineStartCount) {
+        this.text = text;
+        this.source = source;
+        this.tokens = tokens;
+        this.lineStarts = lineStarts;
+        this.lineStartCount = lineStartCount;
+    }
+
+    /**
+     * Lex the whole of a text.
+     *
+     * @param path The path of the file the text is from
+     * @param text The text to lex
+     * @return The stream of its tokens
+     */
+    @NotNull
+    @Contract("_, _ -> new")
+    public static TokenStream lex(Path path, @NotNull String text) {
+        Tokenizer tokenizer = Tokenizer.of(text, path);
+        Builder builder = new Builder(tokenizer.sourceFile(), 16);
+        builder.lexUntil(tokenizer, null, 0, 0);
+        return builder.build(text);
+    }
+
+    /**
+     * Lex the whole of a text, splitting large texts into chunks which are
+     * lexed in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param path The path of the file the text is from
+     * @param text The text to lex
+     * @return The stream of its tokens
+     * @see #lexParallel(Path, String, ForkJoinPool)
+     */
+    @NotNull
+    @Contract("_, _ -> new")
+    public static TokenStream lexParallel(Path path, @NotNull String text) {
+        return lexParallel(path, text, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Lex the whole of a text, splitting large texts into chunks which are
+     * lexed in parallel.
+     * <p>
+     *     The text is split at line starts, and each chunk is lexed from its
+     *     start as if it were outside any multiline string or comment. The
+     *     chunks are then joined in order: each chunk is joined from the line
+     *     start at which the chunks before it stopped, if it has one there.
+     *     If the chunk was split inside a multiline token, it will not have
+     *     one there, and that part of it is lexed again from where the
+     *     chunks before it stopped. The result, including any error thrown,
+     *     is exactly as if the text had been lexed sequentially.
+     * </p>
+     *
+     * @param path The path of the file the text is from
+     * @param text The text to lex
+     * @param pool The pool to lex on
+     * @return The stream of its tokens
+     */
+    @NotNull
+    @Contract("_, _, _ -> new")
+    public static TokenStream lexParallel(Path path, @NotNull String text, @NotNull ForkJoinPool pool) {
+        if (text.length() <= MIN_CHUNK) {
+            return lex(path, text);
+        }
+        Builder builder = new Builder(new SourceFile(path, text), text.length() / 4);
+        if (!lexChunks(path, text, pool, builder)) {
+            return lex(path, text);
+        }
+        builder.source.finish();
+        return builder.build(text);
+    }
+
+    /**
+     * Lex a text in chunks in parallel, and join the chunks in order, as
+     * described in {@link #lexParallel(Path, String, ForkJoinPool)}.
+     * <p>
+     *     The joiner is given the chunks up to and including the first which
+     *     stopped with an error, if any, and nothing at all if the text is
+     *     too small to be worth splitting.
+     * </p>
+     *
+     * @param path The path of the file the text is from
+     * @param text The text to lex
+     * @param pool The pool to lex on
+     * @param joiner Where to join the chunks
+     * @return Whether or not the text was split into chunks
+     */
+    static boolean lexChunks(
+            Path path, @NotNull String text, @NotNull ForkJoinPool pool, @NotNull TokenChunk.Joiner joiner
+    ) {
+        int chunkLength = Math.max(MIN_CHUNK, text.length() / (4 * pool.getParallelism()) + 1);
+        int[] splits = TokenChunk.splits(text, chunkLength);
+        int count = splits.length / 2;
+        if (count == 1) {
+            return false;
+        }
+        List<ForkJoinTask<TokenChunk>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = splits[2 * i];
+            int lineNumber = splits[2 * i + 1];
+            int end = i + 1 < count ? splits[2 * i + 2] : Integer.MAX_VALUE;
+            tasks.add(pool.submit(() -> TokenChunk.lex(path, text, start, lineNumber, end)));
+        }
+        try {
+            TokenChunk chunk = tasks.get(0).join();
+            joiner.append(chunk, -1);
+            int index = 0;
+            while (chunk.exitOffset() >= 0) {
+                int offset = chunk.exitOffset();
+                int lineNumber = chunk.exitNumber();
+                while (index + 1 < count && splits[2 * index + 2] <= offset) {
+                    index++;
+                }
+                chunk = tasks.get(index).join();
+                int lineStart = chunk.findLineStart(offset);
+                if (lineStart < 0) {
+                    int end = index + 1 < count ? splits[2 * index + 2] : Integer.MAX_VALUE;
+                    chunk = TokenChunk.lex(path, text, offset, lineNumber, end);
+                    lineStart = 0;
+                }
+                assert chunk.lineNumber(lineStart) == lineNumber;
+                joiner.append(chunk, lineStart);
+            }
+        } finally {
+            for (ForkJoinTask<TokenChunk> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The text the tokens are from.
+     *
+     * @return The text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * The tokens of the text, ending with an {@link TokenType#EPSILON
+     * epsilon}.
+     * <p>
+     *     Unlike a {@link TokenList}, this includes every newline.
+     * </p>
+     *
+     * @return The tokens
+     */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Replace a range of the text and bring the tokens up to date.
+     *
+     * @param offset The offset in the text of the start of the edit
+     * @param removed The number of characters removed
+     * @param inserted The text inserted in their place
+     * @return The edit, including the new stream
+     */
+    @NotNull
+    public Edit edit(int offset, int removed, @NotNull String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Edit of %d at %d in text of length %d", removed, offset, text.length())
+            );
+        }
+        String newText = text.substring(0, offset) + inserted + text.substring(offset + removed);
+        int delta = inserted.length() - removed;
+        int restart = lastLineStartBefore(offset);
+        Tokenizer tokenizer;
+        Builder builder;
+        int start;
+        if (restart < 0) {
+            tokenizer = Tokenizer.of(newText, source.getPath());
+            builder = new Builder(tokenizer.sourceFile(), tokens.size());
+            start = 0;
+        } else {
+            start = tokenIndex(restart);
+            SourceFile newSource = source.withPrefix(newText, row(restart));
+            tokenizer = Tokenizer.resume(newText, newSource, lineOffset(restart), lineNumber(restart));
+            builder = new Builder(newSource, tokens.size());
+            for (int i = 0; i < start; i++) {
+                Token token = tokens.get(i);
+                builder.tokens.add(token.moveTo(newSource, token.position()));
+            }
+            builder.appendLineStarts(this, 0, restart, 0, 0, 0, 0);
+        }
+        int oldEnd = builder.lexUntil(tokenizer, this, offset + inserted.length(), delta);
+        int newEnd = builder.resyncIndex;
+        return new Edit(builder.build(newText), start, oldEnd < 0 ? tokens.size() : oldEnd, newEnd);
+    }
+
+    /**
+     * The index of the last line start before an offset.
+     *
+     * @param offset The offset
+     * @return The index of the line start, or -1 if there is none
+     */
+    private int lastLineStartBefore(int offset) {
+        int index = findLineStart(offset);
+        return index >= 0 ? index - 1 : -index - 2;
+    }
+
+    /**
+     * Search for the line start at an offset.
+     *
+     * @param offset The offset
+     * @return The index of the line start, or {@code -(insertion point) - 1}
+     *         if there is none there
+     */
+    private int findLineStart(int offset) {
+        int low = 0;
+        int high = lineStartCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = lineOffset(mid);
+            if (value < offset) {
+                low = mid + 1;
+            } else if (value > offset) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private int tokenIndex(int lineStart) {
+        return lineStarts[STRIDE * lineStart];
+    }
+
+    private int lineOffset(int lineStart) {
+        return lineStarts[STRIDE * lineStart + 1];
+    }
+
+    private int row(int lineStart) {
+        return lineStarts[STRIDE * lineStart + 2];
+    }
+
+    private int lineNumber(int lineStart) {
+        return lineStarts[STRIDE * lineStart + 3];
+    }
+
+    /**
+     * The tokens of a stream being built, along with its line starts.
+     */
+    private static final class Builder implements TokenChunk.Joiner {
+        private final SourceFile source;
+        private final List<Token> tokens;
+        private int[] lineStarts = new int[STRIDE * 16];
+        private int lineStartCount;
+        private int resyncIndex = -1;
+
+        Builder(SourceFile source, int capacity) {
+            this.source = source;
+            this.tokens = new ArrayList<>(capacity);
+        }
+
+        /**
+         * Lex until the end of the text or, if there is an old stream, until
+         * a line start which is also in the old stream, after which the old
+         * tokens are moved over.
+         *
+         * @param tokenizer The tokenizer to lex from
+         * @param old The stream before the edit, or null
+         * @param editEnd The offset of the end of the edit in the new text
+         * @param delta The change in the length of the text
+         * @return The index of the first old token which was kept, or -1 if
+         *         none were
+         */
+        int lexUntil(@NotNull Tokenizer tokenizer, @Nullable TokenStream old, int editEnd, int delta) {
+            TokenBuffer buffer = new TokenBuffer(source);
+            while (true) {
+                tokenizer.tokenizeNext(buffer);
+                Token token = buffer.get(0);
+                buffer.pop();
+                if (tokenizer.atLineStart()) {
+                    int offset = tokenizer.lineStartOffset();
+                    int match = old == null || offset < editEnd ? -1 : old.findLineStart(offset - delta);
+                    if (match >= 0) {
+                        return keepRest(tokenizer, old, match, delta);
+                    }
+                    addLineStart(tokens.size(), offset, tokenizer.lineStartRow(), tokenizer.lineStartNumber());
+                }
+                tokens.add(token);
+                if (token.token == TokenType.EPSILON) {
+                    resyncIndex = tokens.size();
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Move the tokens of the old stream from a line start onwards to
+         * the end of this one.
+         */
+        private int keepRest(@NotNull Tokenizer tokenizer, @NotNull TokenStream old, int lineStart, int delta) {
+            int newRow = tokenizer.lineStartRow();
+            int rowDelta = newRow - old.row(lineStart);
+            int numberDelta = tokenizer.lineStartNumber() - old.lineNumber(lineStart);
+            int oldIndex = old.tokenIndex(lineStart);
+            resyncIndex = tokens.size();
+            source.truncate(newRow);
+            source.appendLines(old.source, old.row(lineStart), delta, numberDelta);
+            source.finish();
+            for (int i = oldIndex; i < old.tokens.size(); i++) {
+                Token token = old.tokens.get(i);
+                long position = token.position();
+                int row = SourceFile.lineIndex(position) + rowDelta;
+                token = token.moveTo(source, SourceFile.position(row, SourceFile.offset(position)));
+                tokens.add(token);
+            }
+            appendLineStarts(old, lineStart, old.lineStartCount, resyncIndex - oldIndex, delta, rowDelta, numberDelta);
+            return oldIndex;
+        }
+
+        /**
+         * Append the tokens of a chunk from one of its line starts onwards,
+         * throwing the error the chunk stopped with, if any.
+         *
+         * @param chunk The chunk
+         * @param lineStart The index of the line start, or -1 to append the
+         *                  whole of the first chunk of the text
+         */
+        @Override
+        public void append(@NotNull TokenChunk chunk, int lineStart) {
+            int firstToken = lineStart < 0 ? 0 : chunk.tokenIndex(lineStart);
+            int firstRow = lineStart < 0 ? 0 : chunk.row(lineStart);
+            int rowDelta = source.lineCount() - firstRow;
+            int indexDelta = tokens.size() - firstToken;
+            source.appendLines(chunk.source(), firstRow, chunk.exitRow());
+            for (int i = firstToken; i < chunk.size(); i++) {
+                long position = chunk.position(i);
+                position = SourceFile.position(SourceFile.lineIndex(position) + rowDelta, SourceFile.offset(position));
+                String sequence = chunk.sequence(i);
+                if (sequence == null) {
+                    sequence = source.text(position, chunk.length(i));
+                }
+                tokens.add(new Token(chunk.type(i), sequence, chunk.value(i), source, position));
+            }
+            for (int i = Math.max(lineStart, 0); i < chunk.lineStartCount(); i++) {
+                addLineStart(chunk.tokenIndex(i) + indexDelta, chunk.lineOffset(i),
+                        chunk.row(i) + rowDelta, chunk.lineNumber(i));
+            }
+            Throwable failure = chunk.failure();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure != null) {
+                throw (Error) failure;
+            }
+        }
+
+        void appendLineStarts(
+                @NotNull TokenStream from, int start, int end,
+                int indexDelta, int offsetDelta, int rowDelta, int numberDelta
+        ) {
+            for (int i = start; i < end; i++) {
+                addLineStart(
+                        from.tokenIndex(i) + indexDelta, from.lineOffset(i) + offsetDelta,
+                        from.row(i) + rowDelta, from.lineNumber(i) + numberDelta
+                );
+            }
+        }
+
+        private void addLineStart(int tokenIndex, int offset, int row, int lineNumber) {
+            if (STRIDE * (lineStartCount + 1) > lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, 2 * lineStarts.length);
+            }
+            int index = STRIDE * lineStartCount++;
+            lineStarts[index] = tokenIndex;
+            lineStarts[index + 1] = offset;
+            lineStarts[index + 2] = row;
+            lineStarts[index + 3] = lineNumber;
+        }
+
+        @NotNull
+        TokenStream build(String text) {
+            return new TokenStream(text, source, Collections.unmodifiableList(tokens), lineStarts, lineStartCount);
+        }
+    }
+
+    /**
+     * The result of an {@link #edit edit} to a stream.
+     * <p>
+     *     The tokens before {@link #getStart()} and those from {@link
+     *     #getOldEnd()} onwards in the old stream are the same as those
+     *     before {@code getStart()} and from {@link #getNewEnd()} onwards in
+     *     the new one, other than their lines.
+     * </p>
+     */
+    public static final class Edit {
+        private final TokenStream stream;
+        private final int start;
+        private final int oldEnd;
+        private final int newEnd;
+
+        @Contract(pure = true)
+        private Edit(TokenStream stream, int start, int oldEnd, int newEnd) {
+            this.stream = stream;
+            this.start = start;
+            this.oldEnd = oldEnd;
+            this.newEnd = newEnd;
+        }
+
+        /**
+         * The stream after the edit.
+         *
+         * @return The new stream
+         */
+        public TokenStream getStream() {
+            return stream;
+        }
+
+        /**
+         * The index of the first token which was lexed again.
+         *
+         * @return The index
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * The index in the old stream of the first token after the changed
+         * range.
+         *
+         * @return The index
+         */
+        public int getOldEnd() {
+            return oldEnd;
+        }
+
+        /**
+         * The index in the new stream of the first token after the changed
+         * range.
+         *
+         * @return The index
+         */
+        public int getNewEnd() {
+            return newEnd;
+        }
+    }
+}
@@ -5,97 +5,307 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.io.Reader;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.Normalizer;
-import java.util.NavigableSet;
-import java.util.TreeSet;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 /**
  * The lexer of a file, separates it into a list of tokens.
+ * <p>
+ *     The whole file is read into memory once, and lexing proceeds by
+ *     advancing a cursor over the current line, rather than by cutting the
+ *     front off of the line for each token.
+ * </p>
  * @author Patrick Norton
  */
 public final class Tokenizer {
-    private final LineNumberReader file;
-    private final Path fileName;
-    private String next;
+    /**
+     * Files at least this large are memory-mapped instead of read onto the
+     * heap before decoding.
+     */
+    private static final long MAP_THRESHOLD = 1 << 20;
+    /**
+     * Files at least this many characters long are lexed in parallel
+     * before they are parsed, instead of as the parser needs each token,
+     * if there is more than one processor to lex them on.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 18;
+    /**
+     * Whether or not lines which are entirely ASCII skip the normalizer.
+     * <p>
+     *     This is only turned off, by setting the system property {@code
+     *     newlang.asciiFastPath} to {@code false} before the first file is
+     *     tokenized, to measure what the fast path saves.
+     * </p>
+     * @see #normalizedLine()
+     */
+    private static final boolean ASCII_FAST_PATH =
+            Boolean.parseBoolean(System.getProperty("newlang.asciiFastPath", "true"));
+
+    private final CharSequence source;
+    private final SourceFile sourceFile;
+    private final TokenScanner scanner = new TokenScanner();
+    private int sourcePos;
+    private int lineStart;
+    private int lineEnd;
+    private int lineNumber;
     private String fullLine;
-    private NavigableSet<Integer> lbIndices;
+    private int limit;
+    private int line;
+    private int cursor;
+    private boolean section;
+    private int[] lbIndices = new int[4];
+    private int lbCount;
 
-    private static final Pattern OPEN_COMMENT = Pattern.compile("^#\\|((?!\\|#).)*$");
-    private static final Pattern CLOSE_COMMENT = Pattern.compile("^.*?\\|#");
-    private static final Pattern OPEN_STRING = Pattern.compile("^[refb]*\"([^\"]|(?<!\\\\)(\\\\{2})*\\\\\")*$");
-    private static final Pattern OPEN_SINGLE_STRING = Pattern.compile("^[refb]*'([^']|(?<!\\\\)(\\\\{2})*\\\\')*$");
-    private static final Pattern CLOSE_STRING = Pattern.compile("^.*?(?<!\\\\)(\\\\{2})*\"");
-    private static final Pattern CLOSE_SINGLE_STRING = Pattern.compile("^.*?(?<!\\\\)(\\\\{2})*'");
+    private TokenType tokenType;
+    private int tokenValue;
+    private long tokenPosition;
+    private int tokenLength;
+    private String tokenSequence;
+
+    private boolean atLineStart;
+    private int lineStartOffset;
+    private int lineStartRow;
+    private int lineStartNumber;
 
     @Contract(pure = true)
-    private Tokenizer(File name) throws FileNotFoundException {
-        this(new FileReader(name), name.toPath());
+    private Tokenizer(@NotNull CharSequence source, Path path) {
+        this.source = source;
+        this.sourceFile = new SourceFile(path, source);
+        if (readLine()) {
+            fullLine = source.subSequence(lineStart, lineEnd).toString();
+            line = sourceFile.addLine(lineStart, lineEnd, lineNumber);
+        } else {
+            fullLine = "";
+            line = sourceFile.addLine(0, 0, lineNumber);
+        }
+        limit = fullLine.length();
+        cursor = 0;
     }
 
+    /**
+     * Create a tokenizer which resumes tokenizing a file at the start of a
+     * line, as if the line before had just been finished.
+     * @param source The text of the file
+     * @param sourceFile The table of lines before the line
+     * @param offset The offset in the text of the start of the line
+     * @param lineNumber The line number of the line before
+     */
     @Contract(pure = true)
-    private Tokenizer(String str) {
-        this(new StringReader(str), Path.of(""));
+    private Tokenizer(@NotNull CharSequence source, @NotNull SourceFile sourceFile, int offset, int lineNumber) {
+        this.source = source;
+        this.sourceFile = sourceFile;
+        this.sourcePos = offset;
+        this.lineNumber = lineNumber;
+        this.fullLine = "";
+        this.limit = 0;
+        this.cursor = 0;
     }
 
+    /**
+     * Create a tokenizer over part of a line which has already been
+     * tokenized.
+     * @param sourceFile The file the line is from
+     * @param line The index of the line in the file
+     * @param text The text of the line
+     * @param start The offset in the line of the start of the part
+     * @param end The offset in the line of the end of the part
+     */
     @Contract(pure = true)
-    private Tokenizer(Reader r, Path path) {
-        file = new LineNumberReader(r);
-        next = readLine();
-        if (next == null) next = "";
-        fullLine = next;
-        fileName = path;
-        lbIndices = new TreeSet<>();
+    private Tokenizer(@NotNull SourceFile sourceFile, int line, @NotNull String text, int start, int end) {
+        this.source = text;
+        this.sourceFile = sourceFile;
+        this.sourcePos = text.length();  // There are no lines left to read
+        this.fullLine = text;
+        this.limit = end;
+        this.line = line;
+        this.cursor = start;
+        this.section = true;
+    }
+
+    /**
+     * Create a tokenizer over a whole text.
+     * @param source The text to tokenize
+     * @param path The path of the file the text is from
+     * @return The new tokenizer
+     */
+    @NotNull
+    @Contract("_, _ -> new")
+    static Tokenizer of(@NotNull CharSequence source, Path path) {
+        return new Tokenizer(source, path);
+    }
+
+    /**
+     * Create a tokenizer which resumes at the start of a line.
+     * <p>
+     *     The first token produced is the newline beginning that line.
+     * </p>
+     * @param source The text to tokenize
+     * @param sourceFile The table of the lines before the line
+     * @param offset The offset in the text of the start of the line
+     * @param lineNumber The line number of the line before
+     * @return The new tokenizer
+     */
+    @NotNull
+    @Contract("_, _, _, _ -> new")
+    static Tokenizer resume(@NotNull CharSequence source, @NotNull SourceFile sourceFile, int offset, int lineNumber) {
+        return new Tokenizer(source, sourceFile, offset, lineNumber);
+    }
+
+    /**
+     * Create a tokenizer over part of a line of a file, such as an
+     * interpolation in a formatted string.
+     * <p>
+     *     The part is tokenized as if it were a file of its own, ending in an
+     *     {@link TokenType#EPSILON epsilon}, so that a token which would run
+     *     past the end of it, such as an unclosed string, is an error. The
+     *     tokens keep their positions in the file, and the line is not
+     *     copied.
+     * </p>
+     * @param sourceFile The file the line is from
+     * @param line The index of the line in the file
+     * @param text The text of the line, as in {@link SourceFile#line(int)}
+     * @param start The offset in the line of the start of the part
+     * @param end The offset in the line of the end of the part
+     * @return The new tokenizer
+     */
+    @NotNull
+    @Contract("_, _, _, _, _ -> new")
+    static Tokenizer section(@NotNull SourceFile sourceFile, int line, @NotNull String text, int start, int end) {
+        assert start <= end && end <= text.length();
+        return new Tokenizer(sourceFile, line, text, start, end);
+    }
+
+    /**
+     * Move a {@link #section section} tokenizer on to another part of its
+     * line.
+     * @param start The offset in the line of the start of the part
+     * @param end The offset in the line of the end of the part
+     */
+    void moveSection(int start, int end) {
+        assert section && start <= end && end <= fullLine.length();
+        cursor = start;
+        limit = end;
+    }
+
+    /**
+     * Whether or not the last token was the newline at the start of a line
+     * which is not part of a multiline token, so that tokenizing could be
+     * {@link #resume resumed} from there.
+     * @return If the last token started a line
+     */
+    boolean atLineStart() {
+        return atLineStart;
+    }
+
+    /**
+     * The offset in the source of the line the last token started.
+     * @return The offset
+     * @see #atLineStart()
+     */
+    int lineStartOffset() {
+        return lineStartOffset;
+    }
+
+    /**
+     * The index in the {@link SourceFile} of the line the last token
+     * started.
+     * @return The index
+     * @see #atLineStart()
+     */
+    int lineStartRow() {
+        return lineStartRow;
     }
 
     /**
-     * Get the next token from the tokenized file.
-     * @return The next token
+     * The line number of the line before the line the last token started.
+     * @return The line number
+     * @see #atLineStart()
      */
-    Token tokenizeNext() {
-        Token nextToken;
+    int lineStartNumber() {
+        return lineStartNumber;
+    }
+
+    /**
+     * The file being tokenized, which the tokens refer to.
+     * @return The file
+     */
+    SourceFile sourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * Tokenize the next token of the file and pass it on.
+     * @param sink Where to add the token, usually a {@link TokenBuffer}
+     */
+    void tokenizeNext(@NotNull TokenSink sink) {
         do {
-            nextToken = getNext();
-            if (nextToken == null) {
+            if (!getNext()) {
                 throw invalid();
             }
-        } while (nextToken.is(TokenType.WHITESPACE));
-        return nextToken;
+        } while (tokenType == TokenType.WHITESPACE);
+        sink.add(tokenType, tokenValue, tokenPosition, tokenLength, tokenSequence);
     }
 
-    @Nullable
-    private Token getNext() {
-        if (next.isEmpty()) {
-            return emptyLine();
+    /**
+     * Tokenize the next token, including whitespace, into the token fields.
+     * @return Whether or not a valid token was found
+     */
+    private boolean getNext() {
+        if (cursor == limit) {
+            emptyLine();
+            return true;
         }
-        Token nextToken = adjustForMultiline();
-        if (nextToken != null) {
-            return nextToken;
+        if (adjustForMultiline()) {
+            return true;
         }
+        if (!scanner.scan(fullLine, cursor, limit)) {
+            assert regexMatches(null, cursor);
+            return false;
+        }
+        TokenType type = scanner.type();
+        int end = scanner.end();
+        assert regexMatches(type, end) : "Scanner disagrees with regex for " + type + " in " + fullLine;
+        setToken(type, scanner.value(), SourceFile.position(line, cursor), end - cursor, null);
+        cursor = end;
+        return true;
+    }
+
+    /**
+     * Check the result of the {@link TokenScanner} against the regex of each
+     * {@link TokenType}, which remain the reference definition of each token.
+     * <p>
+     *     This is only meant to be run with assertions enabled.
+     * </p>
+     * @param type The type of token scanned, or null if none was valid
+     * @param end The end of the token scanned
+     * @return Whether or not the regexes match the same token
+     */
+    private boolean regexMatches(TokenType type, int end) {
         for (TokenType info : TokenType.values()) {
-            Matcher match = info.matcher(next);
+            Matcher match = remainderMatcher(info.matcher(fullLine));
             if (match.find()) {
-                LineInfo lineInfo = lineInfo();
-                next = next.substring(match.end());
-                return new Token(info, match.group(), lineInfo);
+                return info == type && match.end() == end;
             }
         }
-        return null;
+        return type == null;
     }
 
     @NotNull
     private ParserException invalid() {
         for (InvalidToken info : InvalidToken.values()) {
-            Matcher match = info.regex.matcher(next);
+            Matcher match = remainderMatcher(info.regex.matcher(fullLine));
             if (match.find()) {
                 return tokenError(info);
             }
@@ -104,109 +314,258 @@ public final class Tokenizer {
     }
 
     /**
-     * Return the token for when {@link #next} is empty.
-     * @return The empty-line token
+     * Restrict a matcher over {@link #fullLine} to the part which has not yet
+     * been tokenized.
+     * <p>
+     *     With the default opaque and anchoring bounds, this matches exactly
+     *     as if the matcher had been created over the remainder alone.
+     * </p>
+     * @param matcher The matcher to restrict
+     * @return The matcher itself
      */
-    private Token emptyLine() {
-        assert next.isEmpty();
-        String nextLine = readLine();
-        if (nextLine == null) {
-            return Token.Epsilon(lineInfo());
+    @NotNull
+    @Contract("_ -> param1")
+    private Matcher remainderMatcher(@NotNull Matcher matcher) {
+        return matcher.region(cursor, limit);
+    }
+
+    /**
+     * Produce the token for when the current line is exhausted.
+     */
+    private void emptyLine() {
+        assert cursor == limit;
+        if (!readLine()) {
+            if (!section) {
+                sourceFile.finish();
+            }
+            setToken(TokenType.EPSILON, -1, SourceFile.position(line, cursor), 0, "");
         } else {
-            next = Normalizer.normalize(nextLine.stripTrailing(), Normalizer.Form.NFKD);
-            fullLine = next;
-            lbIndices.clear();
+            lbCount = 0;
+            setLine(normalizedLine());
+            int offset = lineStart;
+            int row = line;
+            int number = lineNumber - 1;
             appendEscapedLines();
-            return Token.Newline(lineInfo());
+            setToken(TokenType.NEWLINE, -1, SourceFile.position(line, cursor), 0, "\n");
+            atLineStart = true;
+            lineStartOffset = offset;
+            lineStartRow = row;
+            lineStartNumber = number;
         }
     }
 
     /**
-     * Adjust {@link #next} for multiline tokens.
+     * Adjust the current line for multiline tokens.
+     * <p>
+     *     This only looks past the first character of the token if it could
+     *     begin a string or comment.
+     * </p>
+     * @return Whether or not a multiline token was produced
      */
-    @Nullable
-    private Token adjustForMultiline() {
-        if (OPEN_COMMENT.matcher(next).find()) {
-            return concatLines(CLOSE_COMMENT, TokenType.WHITESPACE);
-        } else if (OPEN_STRING.matcher(next).find()) {
-            return concatLines(CLOSE_STRING, TokenType.STRING);
-        } else if (OPEN_SINGLE_STRING.matcher(next).find()) {
-            return concatLines(CLOSE_SINGLE_STRING, TokenType.STRING);
-        } else {
-            return null;
+    private boolean adjustForMultiline() {
+        char delimiter = TokenScanner.openDelimiter(fullLine, cursor, limit);
+        if (delimiter == 0) {
+            return false;
         }
+        concatLines(delimiter, delimiter == '#' ? TokenType.WHITESPACE : TokenType.STRING);
+        return true;
     }
 
     /**
-     * Concatenate lines to {@link #next} until the given pattern matches.
-     * @param tillMatch The pattern to match to
+     * Concatenate lines to the remainder of the current line until the given
+     * delimiter is closed.
+     * @param delimiter The delimiter of the open token
+     * @param resultType The type of the token
      */
-    @NotNull
-    @Contract("_, _ -> new")
-    private Token concatLines(@NotNull Pattern tillMatch, TokenType resultType) {
-        LineInfo lineInfo = lineInfo();
-        StringBuilder nextSequence = new StringBuilder(next);
+    private void concatLines(char delimiter, TokenType resultType) {
+        long position = SourceFile.position(line, cursor);
+        StringBuilder nextSequence = new StringBuilder().append(fullLine, cursor, limit);
         while (true) {
-            String nextLine = readLine();
-            if (nextLine == null) {
-                throw ParserException.of("Unmatched delimiter", lineInfo);
+            if (!readLine()) {
+                throw ParserException.of("Unmatched delimiter", new LineInfo(sourceFile, position));
             }
-            nextLine = Normalizer.normalize(nextLine.stripTrailing(), Normalizer.Form.NFKD);
+            String nextLine = normalizedLine();
             nextSequence.append(System.lineSeparator());
-            Matcher m = tillMatch.matcher(nextLine);
-            if (m.find()) {
-                nextSequence.append(m.group());
-                fullLine = nextLine;
-                next = nextLine.substring(m.group().length());
+            int end = TokenScanner.closeDelimiter(nextLine, delimiter);
+            if (end >= 0) {
+                nextSequence.append(nextLine, 0, end);
+                setLine(nextLine);
+                cursor = end;
                 appendEscapedLines();
-                return new Token(resultType, nextSequence.toString(), lineInfo);
+                setToken(resultType, -1, position, 0, nextSequence.toString());
+                return;
             }
             nextSequence.append(nextLine);
         }
     }
 
+    /**
+     * Join any lines ending in a backslash onto the remainder of the current
+     * line.
+     * <p>
+     *     The joined line then becomes the current line, and the length of
+     *     the line after each join is recorded in {@link #lbIndices}.
+     * </p>
+     */
     private void appendEscapedLines() {
-        while (next.endsWith("\\")) {
-            next = next.substring(0, next.length() - 1) + readLine();
-            fullLine = next;
-            lbIndices.add(fullLine.length());
+        int length = fullLine.length();
+        if (cursor == length || fullLine.charAt(length - 1) != '\\') {
+            return;
         }
+        StringBuilder joined = new StringBuilder().append(fullLine, cursor, length);
+        while (joined.length() > 0 && joined.charAt(joined.length() - 1) == '\\') {
+            joined.setLength(joined.length() - 1);
+            if (readLine()) {
+                joined.append(source, lineStart, lineEnd);
+            } else {
+                joined.append((String) null);
+            }
+            addLineBreak(joined.length());
+        }
+        fullLine = joined.toString();
+        limit = fullLine.length();
+        line = sourceFile.addLine(fullLine, lineNumber);
+        sourceFile.setLineBreaks(line, Arrays.copyOf(lbIndices, lbCount));
+        cursor = 0;
     }
 
-    @Contract(pure = true)
-    private int lineIndex() {
-        if (lbIndices.isEmpty()) return fullLine.length() - next.length();
-        Integer index = lbIndices.lower(fullLine.length() - next.length());
-        return fullLine.length() - next.length() - (index == null ? 0 : index);
-    }
-
-    @Contract(pure = true)
-    private int lineNumber() {
-        return file.getLineNumber() + (lbIndices.isEmpty() ? 0 :
-                lbIndices.headSet(fullLine.length() - next.length(), true).size());
+    /**
+     * Add an index to the sorted set of escaped line breaks.
+     * @param index The index to add
+     */
+    private void addLineBreak(int index) {
+        int position = Arrays.binarySearch(lbIndices, 0, lbCount, index);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (lbCount == lbIndices.length) {
+            lbIndices = Arrays.copyOf(lbIndices, lbCount * 2);
+        }
+        System.arraycopy(lbIndices, position, lbIndices, position + 1, lbCount - position);
+        lbIndices[position] = index;
+        lbCount++;
     }
 
     @NotNull
     @Contract(" -> new")
     private LineInfo lineInfo() {
-        return new LineInfo(
-                fileName,
-                lineNumber(),
-                fullLine,
-                lineIndex()
-        );
+        return new LineInfo(sourceFile, SourceFile.position(line, cursor));
     }
 
     /**
-     * Read a line from the line reader
-     * @return The read line
+     * Set the token which was just tokenized.
+     * @param type The type of the token
+     * @param value The ordinal of the constant the token names, or -1
+     * @param position The packed position of the token
+     * @param length The length of the token's text in its line
+     * @param sequence The text of the token, if it is not the text at its
+     *                 position
      */
-    private String readLine() {
-        try {
-            return file.readLine();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private void setToken(TokenType type, int value, long position, int length, @Nullable String sequence) {
+        tokenType = type;
+        tokenValue = value;
+        atLineStart = false;
+        tokenPosition = position;
+        tokenLength = length;
+        tokenSequence = sequence;
+    }
+
+    /**
+     * Make the given normalized text of the line just read the current line.
+     * @param text The text of the line
+     */
+    private void setLine(@NotNull String text) {
+        fullLine = text;
+        limit = text.length();
+        line = sourceFile.addLine(text, lineStart, strippedEnd(), lineNumber);
+        if (lbCount > 0) {
+            sourceFile.setLineBreaks(line, Arrays.copyOf(lbIndices, lbCount));
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Advance to the next line of the source.
+     * <p>
+     *     Lines are terminated by {@code \n}, {@code \r}, or {@code \r\n},
+     *     exactly as with {@link java.io.BufferedReader#readLine()}.
+     * </p>
+     * @return Whether or not there was another line
+     */
+    private boolean readLine() {
+        int length = source.length();
+        if (sourcePos >= length) {
+            return false;
+        }
+        int end = sourcePos;
+        char c = 0;
+        while (end < length && (c = source.charAt(end)) != '\n' && c != '\r') {
+            end++;
+        }
+        lineStart = sourcePos;
+        lineEnd = end;
+        if (end == length) {
+            sourcePos = end;
+        } else if (c == '\r' && end + 1 < length && source.charAt(end + 1) == '\n') {
+            sourcePos = end + 2;
+        } else {
+            sourcePos = end + 1;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * The current line of the source, stripped of trailing whitespace and
+     * normalized.
+     * <p>
+     *     ASCII text is unchanged by normalization, so lines which are
+     *     entirely ASCII, as nearly all are, skip the normalizer.
+     * </p>
+     * @return The normalized line
+     */
+    @NotNull
+    private String normalizedLine() {
+        int end = strippedEnd();
+        CharSequence text = source.subSequence(lineStart, end);
+        if (ASCII_FAST_PATH && isAscii(lineStart, end)) {
+            return text.toString();
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKD);
+    }
+
+    /**
+     * Whether or not a range of the source is entirely ASCII.
+     * @param start The start of the range
+     * @param end The end of the range
+     * @return If every character in the range is ASCII
+     */
+    @Contract(pure = true)
+    private boolean isAscii(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The end of the current line of the source, without trailing whitespace.
+     * @return The index of the end
+     */
+    @Contract(pure = true)
+    private int strippedEnd() {
+        int end = lineEnd;
+        while (end > lineStart) {
+            int cp = Character.codePointBefore(source, end);
+            if (!Character.isWhitespace(cp)) {
+                break;
+            }
+            end -= Character.charCount(cp);
         }
+        return end;
     }
 
     @NotNull
@@ -226,6 +585,33 @@ public final class Tokenizer {
         return ParserException.of(message, lineInfo());
     }
 
+    /**
+     * Read the whole of a source file.
+     * <p>
+     *     Large files are memory-mapped and decoded straight from the mapping.
+     *     Malformed input is replaced, as it would be by a {@link
+     *     java.io.FileReader}.
+     * </p>
+     * @param path The path of the file
+     * @return The text of the file
+     * @throws IOException If the file could not be read
+     */
+    @NotNull
+    private static CharSequence readSource(@NotNull Path path) throws IOException {
+        Charset charset = Charset.defaultCharset();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD) {
+                return new String(Files.readAllBytes(path), charset);
+            }
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+        }
+    }
+
     /**
      * Parse the file passed.
      * @param f The file to pass
@@ -233,14 +619,54 @@ public final class Tokenizer {
      */
     @Contract("_ -> new")
     @NotNull
-    public static TokenList parse(File f) {
-        Tokenizer tokenizer;
+    public static TokenList parse(@NotNull File f) {
+        return parse(f, false);
+    }
+
+    /**
+     * Parse the file passed, optionally tokenizing on a separate thread.
+     * <p>
+     *     When pipelined, the file is tokenized ahead of the parser on a
+     *     thread of its own, so that tokenizing and parsing overlap. Errors
+     *     are thrown from the list exactly as when tokenizing lazily.
+     * </p>
+     * @param f The file to pass
+     * @param pipelined Whether or not to tokenize on a separate thread
+     * @return The tokenizer with the list of tokens
+     */
+    @Contract("_, _ -> new")
+    @NotNull
+    public static TokenList parse(@NotNull File f, boolean pipelined) {
+        CharSequence source;
         try {
-            tokenizer = new Tokenizer(f);
-        } catch (FileNotFoundException e) {
+            source = readSource(f.toPath());
+        } catch (FileSystemException e) {
             throw new ParserException("File not found", e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return tokens(source, f.toPath(), pipelined);
+    }
+
+    /**
+     * Make the list of tokens of a whole text.
+     * <p>
+     *     Large texts are {@link TokenList#lexParallel lexed in parallel}
+     *     before parsing starts, when the common {@link ForkJoinPool} has
+     *     more than one thread, in which case they are never pipelined.
+     * </p>
+     * @param source The text to tokenize
+     * @param path The path of the file the text is from
+     * @param pipelined Whether or not to tokenize on a separate thread
+     * @return The list of tokens
+     */
+    @NotNull
+    @Contract("_, _, _ -> new")
+    static TokenList tokens(@NotNull CharSequence source, Path path, boolean pipelined) {
+        if (source.length() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return TokenList.lexParallel(path, source.toString());
         }
-        return new TokenList(tokenizer);
+        return new TokenList(new Tokenizer(source, path), pipelined);
     }
 
     /**
@@ -251,6 +677,6 @@ public final class Tokenizer {
     @NotNull
     @Contract("_ -> new")
     public static TokenList parse(String str) {
-        return new TokenList(new Tokenizer(str));
+        return new TokenList(new Tokenizer(str, Path.of("")));
     }
 }
@@ -2,6 +2,7 @@ package main.java.parser;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.util.Iterator;
@@ -9,12 +10,18 @@ import java.util.LinkedList;
 
 /**
  * The node representing the full program.
+ * <p>
+ *     The statements of a program may instead be held {@link AstArena
+ *     packed}, in which case each one is recreated when it is iterated over
+ *     unless the arena still holds it, and none can be added.
+ * </p>
  * @author Patrick Norton
  * @see StatementBodyNode
  */
 public class TopNode implements BaseNode, Iterable<IndependentNode> {
     private Path path;
     private LinkedList<IndependentNode> nodes;
+    private AstArena arena;
 
     @Contract(pure = true)
     public TopNode(Path path) {
@@ -22,6 +29,12 @@ public class TopNode implements BaseNode, Iterable<IndependentNode> {
         this.nodes = new LinkedList<>();
     }
 
+    @Contract(pure = true)
+    TopNode(Path path, @NotNull AstArena arena) {
+        this.path = path;
+        this.arena = arena;
+    }
+
     public Path getPath() {
         return path;
     }
@@ -32,17 +45,50 @@ public class TopNode implements BaseNode, Iterable<IndependentNode> {
     }
 
     public void add(IndependentNode operand) {
+        if (arena != null) {
+            throw new IllegalStateException("Cannot add to a packed program");
+        }
         nodes.add(operand);
     }
 
+    /**
+     * The statements of the program.
+     * <p>
+     *     If the program is {@link #isCompact packed}, these are taken from
+     *     it, being recreated if need be, and changing the list does not
+     *     change the program.
+     * </p>
+     *
+     * @return The statements
+     */
     public LinkedList<IndependentNode> getNodes() {
+        if (arena != null) {
+            LinkedList<IndependentNode> result = new LinkedList<>();
+            arena.forEach(result::add);
+            return result;
+        }
         return nodes;
     }
 
+    /**
+     * Whether or not the statements of the program are held in an {@link
+     * AstArena}.
+     *
+     * @return If the program is packed
+     */
+    public boolean isCompact() {
+        return arena != null;
+    }
+
+    @Nullable
+    public AstArena getArena() {
+        return arena;
+    }
+
     @NotNull
     @Override
     public Iterator<IndependentNode> iterator() {
-        return nodes.iterator();
+        return arena != null ? arena.iterator() : nodes.iterator();
     }
 
     @Override
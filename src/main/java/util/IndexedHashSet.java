@@ -5,24 +5,25 @@ import org.jetbrains.annotations.NotNull;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 public class IndexedHashSet<E> extends AbstractSet<E> implements IndexedSet<E> {
-    private Set<E> values;
+    private Map<E, Integer> indices;
     private List<E> valueList;
 
     public IndexedHashSet() {
         this.valueList = new ArrayList<>();
-        this.values = new HashSet<>();
+        this.indices = new HashMap<>();
     }
 
     public IndexedHashSet(Collection<? extends E> values) {
-        this.values = new HashSet<>(values);
-        this.valueList = new ArrayList<>(values);
+        this.valueList = new ArrayList<>(values.size());
+        this.indices = new HashMap<>(values.size());
+        addAll(values);
     }
 
     @NotNull
@@ -32,7 +33,7 @@ public class IndexedHashSet<E> extends AbstractSet<E> implements IndexedSet<E> {
 
     @Override
     public int size() {
-        return values.size();
+        return valueList.size();
     }
 
     @Override
@@ -42,24 +43,27 @@ public class IndexedHashSet<E> extends AbstractSet<E> implements IndexedSet<E> {
 
     @Override
     public void set(int index, E value) {
-        valueList.set(index, value);
-        if (index < size()) {
-            values.remove(value);
-        }
-        values.add(value);
+        E old = valueList.set(index, value);
+        indices.remove(old);
+        indices.put(value, index);
     }
 
     @Override
     public E remove(int index) {
         E val = valueList.remove(index);
-        values.remove(val);
+        indices.remove(val);
+        // Everything after it has moved down one
+        for (int i = index; i < valueList.size(); i++) {
+            indices.put(valueList.get(i), i);
+        }
         return val;
     }
 
     @Override
     public boolean remove(Object o) {
-        if (values.remove(o)) {
-            valueList.remove(o);
+        Integer index = indices.get(o);
+        if (index != null) {
+            remove((int) index);
             return true;
         } else {
             return false;
@@ -68,12 +72,12 @@ public class IndexedHashSet<E> extends AbstractSet<E> implements IndexedSet<E> {
 
     @Override
     public boolean contains(Object o) {
-        return values.contains(o);
+        return indices.containsKey(o);
     }
 
     @Override
     public boolean add(E e) {
-        boolean modified = values.add(e);
+        boolean modified = indices.putIfAbsent(e, valueList.size()) == null;
         if (modified) valueList.add(e);
         return modified;
     }
@@ -92,7 +96,7 @@ public class IndexedHashSet<E> extends AbstractSet<E> implements IndexedSet<E> {
 
     @Override
     public int indexOf(E object) {
-        return valueList.indexOf(object);
+        return indices.getOrDefault(object, -1);
     }
 
     @NotNull
@@ -121,12 +125,12 @@ public class IndexedHashSet<E> extends AbstractSet<E> implements IndexedSet<E> {
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         IndexedHashSet<?> that = (IndexedHashSet<?>) o;
-        return Objects.equals(values, that.values) &&
+        return Objects.equals(indices, that.indices) &&
                 Objects.equals(valueList, that.valueList);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), values, valueList);
+        return Objects.hash(super.hashCode(), indices, valueList);
     }
 }
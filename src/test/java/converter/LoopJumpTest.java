@@ -0,0 +1,96 @@
+package test.java.converter;
+
+import main.java.converter.BreakConverter;
+import main.java.converter.Bytecode;
+import main.java.converter.BytecodeWriter;
+import main.java.converter.CompilerException;
+import main.java.converter.CompilerInfo;
+import main.java.converter.CompilerInternalError;
+import main.java.converter.ContinueConverter;
+import main.java.converter.Label;
+import main.java.parser.BreakStatementNode;
+import main.java.parser.ContinueStatementNode;
+import main.java.parser.LineInfo;
+import main.java.parser.TestNode;
+import main.java.parser.TopNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for jumps out of loops, and that those with nowhere to go are
+ * reported rather than compiled.
+ *
+ * @author Patrick Norton
+ */
+public class LoopJumpTest {
+    private static CompilerInfo info() {
+        return new CompilerInfo(new TopNode(Path.of("test.newlang")));
+    }
+
+    private static BreakStatementNode breakNode(int loops) {
+        return new BreakStatementNode(LineInfo.empty(), loops, TestNode.empty(), TestNode.empty());
+    }
+
+    private static ContinueStatementNode continueNode() {
+        return new ContinueStatementNode(LineInfo.empty(), TestNode.empty());
+    }
+
+    @Test
+    public void breakOutsideLoop() {
+        var info = info();
+        var converter = new BreakConverter(info, breakNode(0));
+        assertThrows(CompilerException.class, () -> converter.convert(new BytecodeWriter()));
+    }
+
+    @Test
+    public void breakTooManyLevels() {
+        var info = info();
+        info.loopManager().enterLoop(true);
+        info.loopManager().enterLoop(true);
+        var converter = new BreakConverter(info, breakNode(3));
+        assertThrows(CompilerException.class, () -> converter.convert(new BytecodeWriter()));
+    }
+
+    @Test
+    public void breakEveryLevel() {
+        var info = info();
+        info.loopManager().enterLoop(true);
+        info.loopManager().enterLoop(true);
+        var converter = new BreakConverter(info, breakNode(2));
+        assertDoesNotThrow(() -> converter.convert(new BytecodeWriter()));
+    }
+
+    @Test
+    public void continueOutsideLoop() {
+        var info = info();
+        var converter = new ContinueConverter(info, continueNode());
+        assertThrows(CompilerException.class, () -> converter.convert(new BytecodeWriter()));
+    }
+
+    @Test
+    public void continueUncontinuableLoop() {
+        var info = info();
+        info.loopManager().enterLoop(false);
+        var converter = new ContinueConverter(info, continueNode());
+        assertThrows(CompilerException.class, () -> converter.convert(new BytecodeWriter()));
+    }
+
+    @Test
+    public void continueInLoop() {
+        var info = info();
+        info.loopManager().enterLoop(true);
+        var converter = new ContinueConverter(info, continueNode());
+        assertDoesNotThrow(() -> converter.convert(new BytecodeWriter()));
+    }
+
+    @Test
+    public void jumpToUnboundLabel() {
+        var bytes = new BytecodeWriter();
+        bytes.emitJump(Bytecode.JUMP, new Label());
+        assertThrows(CompilerInternalError.class, bytes::toByteArray);
+    }
+}